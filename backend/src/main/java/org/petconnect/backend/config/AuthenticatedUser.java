@@ -0,0 +1,18 @@
+package org.petconnect.backend.config;
+
+import java.util.UUID;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * The principal of a request or WebSocket session, built from the verified token's
+ * claims without loading the user. It is named by the user id, so
+ * Authentication.getName() and STOMP user destinations both resolve to the id.
+ */
+public record AuthenticatedUser(UUID id, String email) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return id.toString();
+    }
+}
\ No newline at end of file
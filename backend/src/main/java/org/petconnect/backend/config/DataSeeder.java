@@ -29,6 +29,7 @@ import org.petconnect.backend.repository.ShelterAddressRepository;
 import org.petconnect.backend.repository.ShelterRepository;
 import org.petconnect.backend.repository.UserRepository;
 import org.petconnect.backend.service.ImageService;
+import org.petconnect.backend.service.PetSearchService;
 import org.petconnect.backend.service.StorageService;
 import org.petconnect.backend.util.DateTimeUtil;
 import org.springframework.boot.CommandLineRunner;
@@ -41,17 +42,12 @@ import org.springframework.util.StreamUtils;
 
 import com.github.javafaker.Faker;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 
 @Component
 @RequiredArgsConstructor
 public class DataSeeder implements CommandLineRunner {
 
-    @PersistenceContext
-    private EntityManager entityManager;
-
     private final UserRepository userRepository;
     private final ShelterRepository shelterRepository;
     private final PetRepository petRepository;
@@ -62,6 +58,7 @@ public class DataSeeder implements CommandLineRunner {
     private final ShelterAddressRepository shelterAddressRepository;
     private final PetAddressRepository petAddressRepository;
     private final ImageService imageService;
+    private final PetSearchService petSearchService;
     private final PasswordEncoder passwordEncoder;
     private final StorageService storageService;
 
@@ -159,15 +156,6 @@ public class DataSeeder implements CommandLineRunner {
         "sample/avatars/avatar3.jpg"
     };
 
-    @Transactional
-    public void enablePostgresExtensions() {
-        // Enable the cube extension (required for earthdistance)
-        entityManager.createNativeQuery("CREATE EXTENSION IF NOT EXISTS cube").executeUpdate();
-
-        // Enable the earthdistance extension
-        entityManager.createNativeQuery("CREATE EXTENSION IF NOT EXISTS earthdistance").executeUpdate();
-    }
-
     private Image uploadSampleImage(String resourcePath, String s3Folder) {
         try {
             var resource = new ClassPathResource(resourcePath);
@@ -264,19 +252,12 @@ public class DataSeeder implements CommandLineRunner {
             e.printStackTrace();
         }
 
-        try {
-            // Enable PostgreSQL extensions first
-            enablePostgresExtensions();
-        } catch (Exception e) {
-            System.err.println(
-                    "Warning: Failed to enable PostgreSQL extensions. Distance-based sorting may not work.");
-            e.printStackTrace();
-        }
-
         System.out.println("Seeding data...");
 
         // Only seed if the database is empty
         if (userRepository.count() > 0) {
+            // Backfill the search read model for databases created before it existed
+            petSearchService.rebuildIfEmpty();
             return;
         }
 
@@ -485,6 +466,9 @@ public class DataSeeder implements CommandLineRunner {
                     : null;
             createPet(creator.getId(), shelter != null ? shelter.getId() : null, false);
         }
+
+        // Seeded pets bypass PetService, so build the search read model in one pass
+        petSearchService.rebuild();
     }
 
     private Pet createPet(UUID creatorId, UUID shelterId, boolean isJohnDoePet) {
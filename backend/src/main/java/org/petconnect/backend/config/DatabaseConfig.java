@@ -21,7 +21,8 @@ public class DatabaseConfig {
     public DataSource dataSource() {
         YamlConfig.Database.Postgres postgresConfig = yamlConfig.getDatabase().getPostgres();
 
-        String url = String.format("jdbc:postgresql://%s:%d/%s",
+        // Batched inserts are rewritten into multi-row statements
+        String url = String.format("jdbc:postgresql://%s:%d/%s?reWriteBatchedInserts=true",
                 postgresConfig.getHost(),
                 postgresConfig.getPort(),
                 postgresConfig.getDatabase());
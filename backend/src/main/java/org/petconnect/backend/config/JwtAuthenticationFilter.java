@@ -1,20 +1,23 @@
 package org.petconnect.backend.config;
 
 import java.io.IOException;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.petconnect.backend.dto.error.ErrorResponse;
 import org.petconnect.backend.service.JwtService;
 import org.petconnect.backend.util.DateTimeUtil;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -23,7 +26,6 @@ import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
-import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -32,20 +34,14 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Map<List<String>, List<GrantedAuthority>> AUTHORITIES = new ConcurrentHashMap<>();
+
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
     private final ObjectMapper objectMapper;
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
-        return SecurityPaths.PUBLIC_ENDPOINTS.stream()
-                .anyMatch(endpoint -> {
-                    boolean pathMatches = pathMatcher.match(endpoint.path(), request.getServletPath());
-                    boolean methodMatches = endpoint.method() == null ||
-                            endpoint.method().toString().equals(request.getMethod());
-                    return pathMatches && methodMatches;
-                });
+        return SecurityPaths.PUBLIC_ENDPOINT_MATCHER.matches(request);
     }
 
     @Override
@@ -53,68 +49,78 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull HttpServletRequest request,
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain) throws ServletException, IOException {
-        final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String userEmail;
-
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            // Try to get token from cookies
-            Cookie[] cookies = request.getCookies();
-            if (cookies != null) {
-                for (Cookie cookie : cookies) {
-                    if (cookie.getName().equals(jwtService.getCookieName())) {
-                        jwt = cookie.getValue();
-                        try {
-                            userEmail = jwtService.extractUsername(jwt);
-                            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-                                if (jwtService.isTokenValid(jwt, userDetails)) {
-                                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                                            userDetails,
-                                            null,
-                                            userDetails.getAuthorities());
-                                    authToken.setDetails(
-                                            new WebAuthenticationDetailsSource().buildDetails(request));
-                                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                                }
-                            }
-                        } catch (ExpiredJwtException e) {
-                            handleError(response, HttpStatus.UNAUTHORIZED, "JWT token has expired", "Unauthorized");
-                        } catch (JwtException e) {
-                            handleError(response, HttpStatus.UNAUTHORIZED, "Invalid JWT token", "Unauthorized");
-                        }
-                        filterChain.doFilter(request, response);
-                        return;
-                    }
-                }
-            }
+        final String jwt = resolveToken(request);
+        if (jwt == null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
         try {
-            userEmail = jwtService.extractUsername(jwt);
-
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities());
-                    authToken.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+            // Verified once per request, a token seen before comes from the service's cache
+            JwtService.VerifiedToken token = jwtService.verify(jwt);
+
+            // The principal comes from the claims, the user is not loaded
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        new AuthenticatedUser(token.userId(), token.subject()),
+                        null,
+                        authorities(token));
+                // No details, nothing reads the remote address or session id of a stateless request
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
-            filterChain.doFilter(request, response);
         } catch (ExpiredJwtException e) {
             handleError(response, HttpStatus.UNAUTHORIZED, "JWT token has expired", "Unauthorized");
+            return;
         } catch (JwtException e) {
             handleError(response, HttpStatus.UNAUTHORIZED, "Invalid JWT token", "Unauthorized");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    static List<GrantedAuthority> authorities(JwtService.VerifiedToken token) {
+        // Tokens share a handful of role sets, each is converted once
+        return AUTHORITIES.computeIfAbsent(token.roles(), roles -> roles.stream()
+                .<GrantedAuthority>map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList());
+    }
+
+    // The bearer header wins, browsers send the token as a cookie instead
+    private String resolveToken(HttpServletRequest request) {
+        final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+
+        // Read from the header, so the container does not build a Cookie for every cookie sent
+        final String cookieName = jwtService.getCookieName();
+        Enumeration<String> cookieHeaders = request.getHeaders(HttpHeaders.COOKIE);
+        while (cookieHeaders != null && cookieHeaders.hasMoreElements()) {
+            String value = cookieValue(cookieHeaders.nextElement(), cookieName);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static String cookieValue(String header, String name) {
+        int start = 0;
+        while (start < header.length()) {
+            int end = header.indexOf(';', start);
+            if (end < 0) {
+                end = header.length();
+            }
+            while (start < end && header.charAt(start) == ' ') {
+                start++;
+            }
+            int equals = start + name.length();
+            if (equals < end && header.charAt(equals) == '=' && header.startsWith(name, start)) {
+                return header.substring(equals + 1, end).trim();
+            }
+            start = end + 1;
         }
+        return null;
     }
 
     private void handleError(HttpServletResponse response, HttpStatus status, String message, String error)
@@ -0,0 +1,62 @@
+package org.petconnect.backend.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Matches requests against the public endpoints. The patterns are parsed once and
+ * indexed by HTTP method, so a request parses its path once and only tries the
+ * patterns of its own method and those open to any method. SecurityConfig permits
+ * exactly what this matches and JwtAuthenticationFilter skips exactly that.
+ */
+public final class PublicEndpointMatcher implements RequestMatcher {
+
+    private static final PathPattern[] NONE = new PathPattern[0];
+
+    private final Map<String, PathPattern[]> patternsByMethod = new HashMap<>();
+    private final PathPattern[] anyMethodPatterns;
+
+    public PublicEndpointMatcher(List<SecurityPaths.PublicEndpoint> endpoints) {
+        Map<String, List<PathPattern>> byMethod = new HashMap<>();
+        List<PathPattern> anyMethod = new ArrayList<>();
+        for (SecurityPaths.PublicEndpoint endpoint : endpoints) {
+            PathPattern pattern = PathPatternParser.defaultInstance.parse(endpoint.path());
+            if (endpoint.method() == null) {
+                anyMethod.add(pattern);
+            } else {
+                byMethod.computeIfAbsent(endpoint.method().name(), method -> new ArrayList<>()).add(pattern);
+            }
+        }
+        byMethod.forEach((method, patterns) -> patternsByMethod.put(method, patterns.toArray(NONE)));
+        this.anyMethodPatterns = anyMethod.toArray(NONE);
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        return matches(request.getMethod(), request.getServletPath());
+    }
+
+    public boolean matches(String method, String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        return matchesAny(patternsByMethod.getOrDefault(method, NONE), container)
+                || matchesAny(anyMethodPatterns, container);
+    }
+
+    private static boolean matchesAny(PathPattern[] patterns, PathContainer path) {
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
\ No newline at end of file
@@ -27,6 +27,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -38,6 +39,7 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthFilter;
     private final UserDetailsService userDetailsService;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -59,17 +61,9 @@ public class SecurityConfig {
 
                             objectMapper.writeValue(response.getOutputStream(), errorResponse);
                         }))
-                .authorizeHttpRequests(authorize -> {
-                    // Configure endpoints with specific HTTP methods
-                    SecurityPaths.PUBLIC_ENDPOINTS.forEach(endpoint -> {
-                        if (endpoint.method() != null) {
-                            authorize.requestMatchers(endpoint.method(), endpoint.path()).permitAll();
-                        } else {
-                            authorize.requestMatchers(endpoint.path()).permitAll();
-                        }
-                    });
-                    authorize.anyRequest().authenticated();
-                })
+                .authorizeHttpRequests(authorize -> authorize
+                        .requestMatchers(SecurityPaths.PUBLIC_ENDPOINT_MATCHER).permitAll()
+                        .anyRequest().authenticated())
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authenticationProvider(authenticationProvider())
@@ -107,6 +101,8 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        YamlConfig.Auth auth = yamlConfig.getAuth();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), auth.getPasswordHashThreads(),
+                auth.getPasswordHashQueueCapacity(), meterRegistry);
     }
 }
\ No newline at end of file
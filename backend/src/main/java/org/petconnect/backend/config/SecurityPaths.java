@@ -30,6 +30,7 @@ public final class SecurityPaths {
             PublicEndpoint.get("/api/v1/pets/species"),
             PublicEndpoint.get("/api/v1/pets/breeds"),
             PublicEndpoint.get("/api/v1/pets/genders"),
+            PublicEndpoint.get("/api/v1/pets/facets"),
             PublicEndpoint.get("/api/v1/pets/{id}"),
             PublicEndpoint.get("/api/v1/pets/{id}/owner"),
             PublicEndpoint.get("/api/v1/pets/{id}/address"),
@@ -47,10 +48,16 @@ public final class SecurityPaths {
             // WebSocket endpoint
             PublicEndpoint.get("/api/v1/messages/pets/{id}/owner"),
 
+            // WebSocket handshake, STOMP frames are authorized by WebSocketAuthChannelInterceptor
+            PublicEndpoint.any("/api/v1/ws/**"),
+
             // Swagger UI paths - allow all methods
             PublicEndpoint.any("/api/v1/docs/**"),
             PublicEndpoint.any("/api/v1/scalar.html"));
 
+    // Compiled once, shared by SecurityConfig and JwtAuthenticationFilter
+    public static final PublicEndpointMatcher PUBLIC_ENDPOINT_MATCHER = new PublicEndpointMatcher(PUBLIC_ENDPOINTS);
+
     // Helper method to get all paths regardless of method
     public static String[] getAllPublicPaths() {
         return PUBLIC_ENDPOINTS.stream()
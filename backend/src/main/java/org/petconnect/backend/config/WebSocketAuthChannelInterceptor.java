@@ -1,5 +1,8 @@
 package org.petconnect.backend.config;
 
+import java.util.UUID;
+
+import org.petconnect.backend.repository.PetRepository;
 import org.petconnect.backend.service.JwtService;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -7,11 +10,11 @@ import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 
 import lombok.RequiredArgsConstructor;
 
@@ -20,7 +23,8 @@ import lombok.RequiredArgsConstructor;
 public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final PetRepository petRepository;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -31,21 +35,53 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
 
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 final String jwt = authHeader.substring(7);
-                final String userEmail = jwtService.extractUsername(jwt);
-
-                if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+                final JwtService.VerifiedToken token = jwtService.verify(jwt);
 
-                    if (jwtService.isTokenValid(jwt, userDetails)) {
-                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
+                if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                    // Named by user id, so user destinations and the session's sender need no lookups later
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            new AuthenticatedUser(token.userId(), token.subject()), null,
+                            JwtAuthenticationFilter.authorities(token));
 
-                        accessor.setUser(authToken);
-                    }
+                    accessor.setUser(authToken);
                 }
             }
         }
 
+        if (accessor != null && StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            authorizeSubscription(accessor.getDestination());
+        }
+
+        // Anonymous sessions may only listen
+        if (accessor != null && StompCommand.SEND.equals(accessor.getCommand()) && accessor.getUser() == null) {
+            throw new AccessDeniedException("Authentication required");
+        }
+
         return message;
     }
+
+    private void authorizeSubscription(String destination) {
+        // Queues are only reachable through /user, which resolves to the subscriber's own session
+        if (destination == null) {
+            throw new AccessDeniedException("Subscription destination is required");
+        }
+        if (destination.startsWith("/user/")) {
+            return;
+        }
+
+        // Pet status is public, so anyone may follow a pet that exists
+        if (pathMatcher.match(WebSocketConfig.PET_STATUS_TOPIC, destination)) {
+            String petId = pathMatcher.extractUriTemplateVariables(WebSocketConfig.PET_STATUS_TOPIC, destination)
+                    .get("petId");
+            try {
+                if (petRepository.existsById(UUID.fromString(petId))) {
+                    return;
+                }
+            } catch (IllegalArgumentException e) {
+                // Not a pet id, rejected below
+            }
+        }
+
+        throw new AccessDeniedException("Cannot subscribe to " + destination);
+    }
 }
\ No newline at end of file
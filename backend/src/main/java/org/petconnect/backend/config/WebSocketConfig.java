@@ -1,34 +1,86 @@
 package org.petconnect.backend.config;
 
+import java.util.UUID;
+
 import org.petconnect.backend.config.helper.YamlConfig;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 import lombok.RequiredArgsConstructor;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@EnableScheduling
 @RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    public static final String PET_STATUS_TOPIC = "/topic/pets/{petId}/status";
+
+    private static final String USER_REGISTRY_TOPIC = "/topic/user-registry";
+    private static final String UNRESOLVED_USER_TOPIC = "/topic/unresolved-user-destination";
+
     private final WebSocketAuthChannelInterceptor authChannelInterceptor;
     private final YamlConfig yamlConfig;
+    private final WebSocketSessionMetrics sessionMetrics;
+
+    private TaskScheduler heartbeatScheduler;
+
+    // The broker's own scheduler, lazy since it is created by this configuration
+    @Autowired
+    public void setHeartbeatScheduler(@Lazy TaskScheduler messageBrokerTaskScheduler) {
+        this.heartbeatScheduler = messageBrokerTaskScheduler;
+    }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple memory-based message broker to carry messages back to the
-        // client
-        config.enableSimpleBroker("/topic", "/queue", "/user");
+        YamlConfig.Broker broker = yamlConfig.getBroker();
+        if (broker.getMode() == YamlConfig.Broker.Mode.RELAY) {
+            // Forward to an external STOMP broker so every instance sees every destination
+            YamlConfig.Broker.Relay relay = broker.getRelay();
+            StompBrokerRelayRegistration registration = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relay.getHost())
+                    .setRelayPort(relay.getPort())
+                    .setClientLogin(relay.getClientLogin())
+                    .setClientPasscode(relay.getClientPasscode())
+                    .setSystemLogin(relay.getSystemLogin())
+                    .setSystemPasscode(relay.getSystemPasscode())
+                    // Instances share their connected users, so a user destination resolves on any of them
+                    .setUserRegistryBroadcast(USER_REGISTRY_TOPIC)
+                    .setUserDestinationBroadcast(UNRESOLVED_USER_TOPIC);
+            if (relay.getVirtualHost() != null) {
+                registration.setVirtualHost(relay.getVirtualHost());
+            }
+        } else {
+            // Enable a simple memory-based message broker to carry messages back to the
+            // client. Heartbeats find connections that died without closing
+            long heartbeatMs = yamlConfig.getWebSocket().getHeartbeatMs();
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] { heartbeatMs, heartbeatMs })
+                    .setTaskScheduler(heartbeatScheduler);
+        }
+
+        // Frames to a session are sent in the order they were published, not as the outbound threads get to them
+        config.setPreservePublishOrder(true);
 
         // Prefix for messages that are bound for methods annotated with @MessageMapping
         config.setApplicationDestinationPrefixes("/app");
 
         // Use this for user-specific messages
         config.setUserDestinationPrefix("/user");
+
+        // Between PresenceService's listeners, which must see a session in the registry both when it
+        // connects and when it disconnects
+        config.setUserRegistryOrder(0);
     }
 
     @Override
@@ -37,10 +89,36 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/api/v1/ws")
                 .setAllowedOrigins(yamlConfig.getCors().getAllowedOrigins().toArray(new String[0]))
                 .withSockJS();
+
+        // A session's frames are handled in the order they arrived, so its messages are written in order
+        registry.setPreserveReceiveOrder(true);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Frames for a session that is still busy are buffered, past these limits the session is closed
+        YamlConfig.WebSocket webSocket = yamlConfig.getWebSocket();
+        registration.setSendTimeLimit(webSocket.getSendTimeLimitMs())
+                .setSendBufferSizeLimit(webSocket.getSendBufferSizeLimit())
+                .setMessageSizeLimit(webSocket.getMessageSizeLimit())
+                .addDecoratorFactory(sessionMetrics);
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
+        int poolSize = yamlConfig.getWebSocket().getInboundPoolSize();
         registration.interceptors(authChannelInterceptor);
+        registration.taskExecutor().corePoolSize(poolSize).maxPoolSize(poolSize);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Slow sessions only buffer, so a fixed pool keeps up with the others
+        int poolSize = yamlConfig.getWebSocket().getOutboundPoolSize();
+        registration.taskExecutor().corePoolSize(poolSize).maxPoolSize(poolSize);
+    }
+
+    public static String petStatusTopic(UUID petId) {
+        return PET_STATUS_TOPIC.replace("{petId}", petId.toString());
     }
 }
\ No newline at end of file
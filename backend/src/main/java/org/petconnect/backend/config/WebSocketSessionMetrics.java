@@ -0,0 +1,83 @@
+package org.petconnect.backend.config;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * WebSocket session metrics for the actuator. Times every frame written to a client,
+ * counts open sessions and counts the sessions closed as slow consumers, which the
+ * send limits in WebSocketConfig decide. The queue depth of the inbound and outbound
+ * channels is published by Spring Boot's executor metrics.
+ */
+@Component
+public class WebSocketSessionMetrics implements WebSocketHandlerDecoratorFactory {
+
+    private final Timer sendTimer;
+    private final Counter droppedSessions;
+    private final AtomicInteger openSessions = new AtomicInteger();
+
+    public WebSocketSessionMetrics(MeterRegistry meterRegistry) {
+        this.sendTimer = Timer.builder("websocket.send")
+                .description("Time taken to write a frame to a WebSocket client")
+                .register(meterRegistry);
+        this.droppedSessions = Counter.builder("websocket.sessions.dropped")
+                .description("Sessions closed for exceeding the send time or buffer limit")
+                .register(meterRegistry);
+        Gauge.builder("websocket.sessions.open", openSessions, AtomicInteger::get)
+                .description("Open WebSocket sessions")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                openSessions.incrementAndGet();
+                // The STOMP handler buffers around this session, so only actual writes are timed
+                super.afterConnectionEstablished(new TimedSession(session));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                openSessions.decrementAndGet();
+                if (CloseStatus.SESSION_NOT_RELIABLE.equals(closeStatus)) {
+                    droppedSessions.increment();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    private final class TimedSession extends WebSocketSessionDecorator {
+
+        TimedSession(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            long start = System.nanoTime();
+            try {
+                super.sendMessage(message);
+            } finally {
+                sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -20,6 +20,9 @@ public class YamlConfig {
     private Frontend frontend;
     private Jwt jwt;
     private Cors cors;
+    private Broker broker = new Broker();
+    private WebSocket webSocket = new WebSocket();
+    private Auth auth = new Auth();
 
     @Data
     public static class Database {
@@ -69,7 +72,8 @@ public class YamlConfig {
     public static class Jwt {
 
         private String secret;
-        private long expirationMs = 7 * 24 * 60 * 60 * 1000; // 24 hours by default
+        private long accessTokenExpirationMs = 15 * 60 * 1000; // 15 minutes by default
+        private long refreshTokenExpirationMs = 7L * 24 * 60 * 60 * 1000; // 7 days by default
         private String cookieName;
     }
 
@@ -78,4 +82,54 @@ public class YamlConfig {
         private List<String> allowedOrigins;
         private List<String> allowedMethods;
     }
+
+    @Data
+    public static class Broker {
+
+        // SIMPLE keeps messaging inside this instance, RELAY is needed when running more than one
+        private Mode mode = Mode.SIMPLE;
+        private Relay relay = new Relay();
+
+        public enum Mode {
+            SIMPLE,
+            RELAY
+        }
+
+        @Data
+        public static class Relay {
+            private String host = "localhost";
+            private int port = 61613;
+            private String virtualHost;
+            private String clientLogin = "guest";
+            private String clientPasscode = "guest";
+            private String systemLogin = "guest";
+            private String systemPasscode = "guest";
+        }
+    }
+
+    @Data
+    public static class WebSocket {
+
+        // A session that cannot take its frames within these limits is a slow consumer and is closed
+        private int sendTimeLimitMs = 10_000;
+        private int sendBufferSizeLimit = 512 * 1024;
+        private int messageSizeLimit = 64 * 1024;
+        // How often the simple broker sends and expects heartbeats, 0 turns them off
+        private long heartbeatMs = 10_000;
+        private int inboundPoolSize = 2 * Runtime.getRuntime().availableProcessors();
+        private int outboundPoolSize = 2 * Runtime.getRuntime().availableProcessors();
+    }
+
+    @Data
+    public static class Auth {
+
+        // Password hashing gets at most half the cores, what does not fit in the queue is refused
+        private int passwordHashThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        private int passwordHashQueueCapacity = 64;
+        // Login attempts allowed in a burst, then one more per refill interval
+        private int ipLoginBurst = 20;
+        private long ipLoginRefillMs = 3_000;
+        private int accountLoginBurst = 5;
+        private long accountLoginRefillMs = 60_000;
+    }
 }
@@ -3,6 +3,8 @@ package org.petconnect.backend.controller;
 import java.util.List;
 
 import org.petconnect.backend.service.AddressService;
+import org.petconnect.backend.service.ReferenceDataService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -35,7 +37,7 @@ public class AddressController {
         if (country == null || country.trim().isEmpty()) {
             throw new IllegalArgumentException("Country parameter is missing or empty");
         }
-        return ResponseEntity.ok(addressService.getCitiesByCountry(country));
+        return reference(addressService.getCitiesByCountry(country));
     }
 
     @Operation(summary = "Get all countries", description = "Retrieves all distinct countries from the database")
@@ -44,6 +46,14 @@ public class AddressController {
     })
     @GetMapping("/countries")
     public ResponseEntity<List<String>> getAllCountries() {
-        return ResponseEntity.ok(addressService.getAllCountries());
+        return reference(addressService.getAllCountries());
+    }
+
+    private ResponseEntity<List<String>> reference(ReferenceDataService.ReferenceList list) {
+        // Clients revalidate with If-None-Match and get a 304 while the list is unchanged
+        return ResponseEntity.ok()
+                .eTag(list.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(list.values());
     }
 }
\ No newline at end of file
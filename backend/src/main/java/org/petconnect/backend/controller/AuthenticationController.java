@@ -2,12 +2,15 @@ package org.petconnect.backend.controller;
 
 import org.petconnect.backend.dto.auth.AuthResponse;
 import org.petconnect.backend.dto.auth.LoginRequest;
+import org.petconnect.backend.dto.auth.RefreshTokenRequest;
 import org.petconnect.backend.dto.auth.RegisterRequest;
 import org.petconnect.backend.service.AuthenticationService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -15,6 +18,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -29,20 +33,50 @@ public class AuthenticationController {
     @Operation(summary = "Register a new user", description = "Creates a new user account and returns an authentication token")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Successfully registered"),
-            @ApiResponse(responseCode = "400", description = "Invalid input data")
+            @ApiResponse(responseCode = "400", description = "Invalid input data"),
+            @ApiResponse(responseCode = "429", description = "Too many attempts, retry after the Retry-After seconds")
     })
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(authenticationService.register(request));
+    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request,
+            HttpServletRequest servletRequest) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(authenticationService.register(request, servletRequest.getRemoteAddr()));
     }
 
     @Operation(summary = "Login user", description = "Authenticates a user and returns a JWT token")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully authenticated"),
-            @ApiResponse(responseCode = "401", description = "Invalid credentials")
+            @ApiResponse(responseCode = "401", description = "Invalid credentials"),
+            @ApiResponse(responseCode = "429", description = "Too many attempts, retry after the Retry-After seconds")
     })
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        return ResponseEntity.ok(authenticationService.login(request));
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request,
+            HttpServletRequest servletRequest) {
+        return ResponseEntity.ok(authenticationService.login(request, servletRequest.getRemoteAddr()));
+    }
+
+    @Operation(summary = "Refresh tokens", description = "Exchanges a refresh token for a new access and refresh token. A refresh token can be used once")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully refreshed"),
+            @ApiResponse(responseCode = "401", description = "Invalid, expired or already used refresh token")
+    })
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(authenticationService.refresh(request));
+    }
+
+    @Operation(summary = "Logout user", description = "Revokes the bearer access token and the given refresh token")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Successfully logged out")
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestBody(required = false) RefreshTokenRequest request) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7)
+                : null;
+        authenticationService.logout(accessToken, request != null ? request.getRefreshToken() : null);
+        return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
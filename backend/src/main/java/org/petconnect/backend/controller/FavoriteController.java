@@ -2,6 +2,7 @@ package org.petconnect.backend.controller;
 
 import java.util.UUID;
 
+import org.petconnect.backend.config.CurrentUser;
 import org.petconnect.backend.dto.favorite.FavoritesResponse;
 import org.petconnect.backend.service.FavoriteService;
 import org.springframework.http.ResponseEntity;
@@ -36,8 +37,10 @@ public class FavoriteController {
         })
         public ResponseEntity<FavoritesResponse> getFavoritePets(
                         @Parameter(description = "Pagination cursor") @RequestParam(required = false) String cursor,
-                        @Parameter(description = "Number of items per page") @RequestParam(required = false, defaultValue = "12") Integer limit) {
-                return ResponseEntity.ok(favoriteService.getFavoritePets(cursor, limit));
+                        @Parameter(description = "Number of items per page") @RequestParam(required = false, defaultValue = "12") Integer limit,
+                        @Parameter(description = "Whether to include the total count") @RequestParam(defaultValue = "true") boolean includeTotal,
+                        @CurrentUser UUID userId) {
+                return ResponseEntity.ok(favoriteService.getFavoritePets(userId, cursor, limit, includeTotal));
         }
 
         @PostMapping("/{petId}")
@@ -49,8 +52,9 @@ public class FavoriteController {
                         @ApiResponse(responseCode = "404", description = "Pet not found")
         })
         public ResponseEntity<Void> addFavorite(
-                        @Parameter(description = "ID of the pet to favorite", required = true) @PathVariable UUID petId) {
-                favoriteService.addFavorite(petId);
+                        @Parameter(description = "ID of the pet to favorite", required = true) @PathVariable UUID petId,
+                        @CurrentUser UUID userId) {
+                favoriteService.addFavorite(userId, petId);
                 return ResponseEntity.noContent().build();
         }
 
@@ -62,8 +66,9 @@ public class FavoriteController {
                         @ApiResponse(responseCode = "401", description = "Unauthorized")
         })
         public ResponseEntity<Void> removeFavorite(
-                        @Parameter(description = "ID of the pet to remove from favorites", required = true) @PathVariable UUID petId) {
-                favoriteService.removeFavorite(petId);
+                        @Parameter(description = "ID of the pet to remove from favorites", required = true) @PathVariable UUID petId,
+                        @CurrentUser UUID userId) {
+                favoriteService.removeFavorite(userId, petId);
                 return ResponseEntity.noContent().build();
         }
 
@@ -75,7 +80,8 @@ public class FavoriteController {
                         @ApiResponse(responseCode = "404", description = "Pet not found")
         })
         public ResponseEntity<Boolean> isPetFavorited(
-                        @Parameter(description = "ID of the pet to check favorite status", required = true) @PathVariable UUID petId) {
-                return ResponseEntity.ok(favoriteService.isPetFavorited(petId));
+                        @Parameter(description = "ID of the pet to check favorite status", required = true) @PathVariable UUID petId,
+                        @CurrentUser UUID userId) {
+                return ResponseEntity.ok(favoriteService.isPetFavorited(userId, petId));
         }
 }
\ No newline at end of file
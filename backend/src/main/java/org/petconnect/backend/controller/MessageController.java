@@ -3,21 +3,20 @@ package org.petconnect.backend.controller;
 import java.util.List;
 import java.util.UUID;
 
+import org.petconnect.backend.config.CurrentUser;
 import org.petconnect.backend.dto.message.ConversationDTO;
 import org.petconnect.backend.dto.message.MessageDTO;
+import org.petconnect.backend.dto.message.MessagesResponse;
 import org.petconnect.backend.dto.message.SendMessageRequest;
-import org.petconnect.backend.dto.user.UserDTO;
 import org.petconnect.backend.service.MessageService;
-import org.petconnect.backend.service.UserService;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -37,7 +36,6 @@ import lombok.RequiredArgsConstructor;
 public class MessageController {
 
     private final MessageService messageService;
-    private final UserService userService;
 
     @Operation(summary = "Send a message", description = "Sends a message to another user about a pet (pet ID is required)")
     @ApiResponses(value = {
@@ -46,11 +44,9 @@ public class MessageController {
             @ApiResponse(responseCode = "401", description = "Not authenticated")
     })
     @PostMapping
-    public ResponseEntity<MessageDTO> sendMessage(@Valid @RequestBody SendMessageRequest request) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDTO currentUser = getUserFromAuthentication(authentication);
-
-        MessageDTO sentMessage = messageService.sendMessage(currentUser.getId(), request);
+    public ResponseEntity<MessageDTO> sendMessage(@Valid @RequestBody SendMessageRequest request,
+            @CurrentUser UUID currentUserId) {
+        MessageDTO sentMessage = messageService.sendMessage(currentUserId, request);
         return ResponseEntity.ok(sentMessage);
     }
 
@@ -60,11 +56,8 @@ public class MessageController {
             @ApiResponse(responseCode = "401", description = "Not authenticated")
     })
     @GetMapping("/conversations")
-    public ResponseEntity<List<ConversationDTO>> getConversations() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDTO currentUser = getUserFromAuthentication(authentication);
-
-        List<ConversationDTO> conversations = messageService.getUserConversations(currentUser.getId());
+    public ResponseEntity<List<ConversationDTO>> getConversations(@CurrentUser UUID currentUserId) {
+        List<ConversationDTO> conversations = messageService.getUserConversations(currentUserId);
         return ResponseEntity.ok(conversations);
     }
 
@@ -74,28 +67,27 @@ public class MessageController {
             @ApiResponse(responseCode = "401", description = "Not authenticated")
     })
     @GetMapping("/conversations/unread")
-    public ResponseEntity<List<ConversationDTO>> getUnreadConversations() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDTO currentUser = getUserFromAuthentication(authentication);
-
-        List<ConversationDTO> unreadConversations = messageService.getUnreadConversations(currentUser.getId());
+    public ResponseEntity<List<ConversationDTO>> getUnreadConversations(@CurrentUser UUID currentUserId) {
+        List<ConversationDTO> unreadConversations = messageService.getUnreadConversations(currentUserId);
         return ResponseEntity.ok(unreadConversations);
     }
 
-    @Operation(summary = "Get conversation with user about a pet", description = "Get all messages between the current user and another user about a specific pet")
+    @Operation(summary = "Get conversation with user about a pet", description = "Get a page of the messages between the current user and another user about a specific pet. Without a cursor the newest page is returned, and fetching messages does not mark them as read")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved messages"),
             @ApiResponse(responseCode = "401", description = "Not authenticated"),
             @ApiResponse(responseCode = "404", description = "User or pet not found")
     })
     @GetMapping("/conversations/{userId}/pets/{petId}")
-    public ResponseEntity<List<MessageDTO>> getConversationAboutPet(
+    public ResponseEntity<MessagesResponse> getConversationAboutPet(
             @Parameter(description = "ID of the other user", required = true) @PathVariable UUID userId,
-            @Parameter(description = "ID of the pet", required = true) @PathVariable UUID petId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDTO currentUser = getUserFromAuthentication(authentication);
-
-        List<MessageDTO> messages = messageService.getConversationAboutPet(currentUser.getId(), userId, petId);
+            @Parameter(description = "ID of the pet", required = true) @PathVariable UUID petId,
+            @Parameter(description = "Cursor of the messages older than a page") @RequestParam(required = false) String before,
+            @Parameter(description = "Cursor of the messages newer than a page") @RequestParam(required = false) String after,
+            @Parameter(description = "Number of messages per page") @RequestParam(required = false, defaultValue = "50") Integer limit,
+            @CurrentUser UUID currentUserId) {
+        MessagesResponse messages = messageService.getConversationAboutPet(currentUserId, userId, petId,
+                before, after, limit);
         return ResponseEntity.ok(messages);
     }
 
@@ -107,11 +99,9 @@ public class MessageController {
     @PutMapping("/conversations/{userId}/pets/{petId}/read")
     public ResponseEntity<Void> markConversationAboutPetAsRead(
             @Parameter(description = "ID of the other user", required = true) @PathVariable UUID userId,
-            @Parameter(description = "ID of the pet", required = true) @PathVariable UUID petId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDTO currentUser = getUserFromAuthentication(authentication);
-
-        messageService.markMessagesAboutPetAsRead(currentUser.getId(), userId, petId);
+            @Parameter(description = "ID of the pet", required = true) @PathVariable UUID petId,
+            @CurrentUser UUID currentUserId) {
+        messageService.markMessagesAboutPetAsRead(currentUserId, userId, petId);
         return ResponseEntity.noContent().build();
     }
 
@@ -121,16 +111,8 @@ public class MessageController {
             @ApiResponse(responseCode = "401", description = "Not authenticated")
     })
     @GetMapping("/unread/count")
-    public ResponseEntity<Long> getUnreadMessageCount() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDTO currentUser = getUserFromAuthentication(authentication);
-
-        long count = messageService.getUnreadMessageCount(currentUser.getId());
+    public ResponseEntity<Long> getUnreadMessageCount(@CurrentUser UUID currentUserId) {
+        long count = messageService.getUnreadMessageCount(currentUserId);
         return ResponseEntity.ok(count);
     }
-
-    // Helper method to get the current user from authentication
-    private UserDTO getUserFromAuthentication(Authentication authentication) {
-        return userService.getUser(authentication.getName());
-    }
 }
\ No newline at end of file
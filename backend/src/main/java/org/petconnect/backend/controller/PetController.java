@@ -3,18 +3,20 @@ package org.petconnect.backend.controller;
 import java.util.List;
 import java.util.UUID;
 
+import org.petconnect.backend.config.CurrentUser;
 import org.petconnect.backend.dto.address.AddressDTO;
 import org.petconnect.backend.dto.pet.CreatePetRequest;
 import org.petconnect.backend.dto.pet.PetDTO;
+import org.petconnect.backend.dto.pet.PetFacetsResponse;
 import org.petconnect.backend.dto.pet.PetFilters;
 import org.petconnect.backend.dto.pet.PetsResponse;
 import org.petconnect.backend.dto.user.UserDTO;
 import org.petconnect.backend.model.PetStatus;
 import org.petconnect.backend.service.PetService;
+import org.petconnect.backend.service.ReferenceDataService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -58,42 +60,51 @@ public class PetController {
             @Parameter(description = "Filter by city") @RequestParam(required = false) String city,
             @Parameter(description = "Filter by country") @RequestParam(required = false) String country,
             @Parameter(description = "Search query") @RequestParam(required = false) String search,
-            @Parameter(description = "Sort field (newest, oldest, youngest, eldest, name_asc, name_desc, distance)") @RequestParam(required = false) String sortBy,
+            @Parameter(description = "Sort field (newest, oldest, youngest, eldest, name_asc, name_desc, distance, relevance)") @RequestParam(required = false) String sortBy,
             @Parameter(description = "Latitude for distance-based sorting") @RequestParam(required = false) Double lat,
             @Parameter(description = "Longitude for distance-based sorting") @RequestParam(required = false) Double lng,
-            @Parameter(description = "Number of items per page") @RequestParam(required = false, defaultValue = "12") Integer limit) {
+            @Parameter(description = "Only include pets within this many kilometers of lat/lng") @RequestParam(required = false) Double radiusKm,
+            @Parameter(description = "Number of items per page") @RequestParam(required = false, defaultValue = "12") Integer limit,
+            @Parameter(description = "Whether to include the total count") @RequestParam(defaultValue = "true") boolean includeTotal) {
         // Build filters from request params
-        PetFilters filters = PetFilters.builder()
-                .species(species)
-                .breed(breed)
-                .ageRange(minAge != null || maxAge != null ? PetFilters.AgeRange.builder()
-                        .min(minAge)
-                        .max(maxAge)
-                        .build() : null)
-                .gender(gender)
-                .city(city)
-                .country(country)
-                .searchQuery(search)
-                .sortBy(sortBy)
-                .location(lat != null && lng != null ? PetFilters.Location.builder()
-                        .lat(lat)
-                        .lng(lng)
-                        .build() : null)
-                .build();
+        PetFilters filters = toFilters(species, breed, minAge, maxAge, gender, city, country, search, lat, lng,
+                radiusKm);
+        filters.setSortBy(sortBy);
 
         // Get pets with pagination and filters
-        PetsResponse response = petService.getPets(cursor, filters, limit);
+        PetsResponse response = petService.getPets(cursor, filters, limit, includeTotal);
 
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Get pet facet counts", description = "Counts the pets per species, breed, gender, country, city and age bucket for the same filters as the pet list, in a single query")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved facet counts")
+    })
+    @GetMapping("/facets")
+    public ResponseEntity<PetFacetsResponse> getPetFacets(
+            @Parameter(description = "Filter by species") @RequestParam(required = false) String species,
+            @Parameter(description = "Filter by breed") @RequestParam(required = false) String breed,
+            @Parameter(description = "Minimum age in months") @RequestParam(required = false) Integer minAge,
+            @Parameter(description = "Maximum age in months") @RequestParam(required = false) Integer maxAge,
+            @Parameter(description = "Filter by gender") @RequestParam(required = false) String gender,
+            @Parameter(description = "Filter by city") @RequestParam(required = false) String city,
+            @Parameter(description = "Filter by country") @RequestParam(required = false) String country,
+            @Parameter(description = "Search query") @RequestParam(required = false) String search,
+            @Parameter(description = "Latitude of the radius center") @RequestParam(required = false) Double lat,
+            @Parameter(description = "Longitude of the radius center") @RequestParam(required = false) Double lng,
+            @Parameter(description = "Only include pets within this many kilometers of lat/lng") @RequestParam(required = false) Double radiusKm) {
+        return ResponseEntity.ok(petService.getPetFacets(
+                toFilters(species, breed, minAge, maxAge, gender, city, country, search, lat, lng, radiusKm)));
+    }
+
     @Operation(summary = "Get all species", description = "Retrieves a list of all available pet species")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved species list")
     })
     @GetMapping("/species")
     public ResponseEntity<List<String>> getAllSpecies() {
-        return ResponseEntity.ok(petService.getAllSpecies());
+        return reference(petService.getAllSpecies());
     }
 
     @Operation(summary = "Get breeds by species", description = "Retrieves a list of breeds for a specific species")
@@ -104,7 +115,7 @@ public class PetController {
     @GetMapping("/breeds")
     public ResponseEntity<List<String>> getBreedsBySpecies(
             @Parameter(description = "Species name", required = true) @RequestParam String species) {
-        return ResponseEntity.ok(petService.getBreedsBySpecies(species));
+        return reference(petService.getBreedsBySpecies(species));
     }
 
     @Operation(summary = "Get all genders", description = "Retrieves a list of all available pet genders")
@@ -113,7 +124,7 @@ public class PetController {
     })
     @GetMapping("/genders")
     public ResponseEntity<List<String>> getAllGenders() {
-        return ResponseEntity.ok(petService.getAllGenders());
+        return reference(petService.getAllGenders());
     }
 
     @Operation(summary = "Get pet by ID", description = "Retrieves a specific pet by its ID")
@@ -135,8 +146,9 @@ public class PetController {
     })
     @SecurityRequirement(name = "bearerAuth")
     @PostMapping
-    public ResponseEntity<PetDTO> createPet(@Valid @RequestBody CreatePetRequest request) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(petService.createPet(request));
+    public ResponseEntity<PetDTO> createPet(@Valid @RequestBody CreatePetRequest request,
+            @CurrentUser UUID userId) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(petService.createPet(request, userId));
     }
 
     @Operation(summary = "Upload pet images", description = "Upload one or more images for a pet. The first image will be set as primary if no primary image exists.")
@@ -151,8 +163,9 @@ public class PetController {
     @PostMapping(value = "/{petId}/images", consumes = "multipart/form-data")
     public ResponseEntity<PetDTO> uploadPetImages(
             @Parameter(description = "ID of the pet", required = true) @PathVariable UUID petId,
-            @Parameter(description = "Image files to upload", required = true) @RequestParam("files") List<MultipartFile> files) {
-        return ResponseEntity.ok(petService.uploadPetImages(petId, files));
+            @Parameter(description = "Image files to upload", required = true) @RequestParam("files") List<MultipartFile> files,
+            @CurrentUser UUID userId) {
+        return ResponseEntity.ok(petService.uploadPetImages(petId, files, userId));
     }
 
     @Operation(summary = "Get pet owner", description = "Retrieves the owner details for a specific pet")
@@ -176,8 +189,9 @@ public class PetController {
     @SecurityRequirement(name = "bearerAuth")
     @DeleteMapping("/{petId}")
     public ResponseEntity<Void> deletePet(
-            @Parameter(description = "ID of the pet", required = true) @PathVariable UUID petId) {
-        petService.deletePet(petId);
+            @Parameter(description = "ID of the pet", required = true) @PathVariable UUID petId,
+            @CurrentUser UUID userId) {
+        petService.deletePet(petId, userId);
         return ResponseEntity.noContent().build();
     }
 
@@ -217,8 +231,9 @@ public class PetController {
     @PutMapping("/{petId}/status/{status}")
     public ResponseEntity<PetDTO> updatePetStatus(
             @Parameter(description = "ID of the pet", required = true) @PathVariable UUID petId,
-            @Parameter(description = "New status for the pet", required = true) @PathVariable PetStatus status) {
-        return ResponseEntity.ok(petService.updatePetStatus(petId, status));
+            @Parameter(description = "New status for the pet", required = true) @PathVariable PetStatus status,
+            @CurrentUser UUID userId) {
+        return ResponseEntity.ok(petService.updatePetStatus(petId, status, userId));
     }
 
     @Operation(summary = "Mark pet as adopted", description = "Mark a pet as adopted by a user who has messaged about the pet")
@@ -232,11 +247,37 @@ public class PetController {
     @SecurityRequirement(name = "bearerAuth")
     @PutMapping("/{petId}/adopt")
     public ResponseEntity<PetDTO> markPetAsAdopted(
-            @Parameter(description = "ID of the pet", required = true) @PathVariable UUID petId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName();
-        UserDTO currentUser = petService.getUserByEmail(userEmail);
+            @Parameter(description = "ID of the pet", required = true) @PathVariable UUID petId,
+            @CurrentUser UUID userId) {
+        return ResponseEntity.ok(petService.markPetAsAdopted(petId, userId));
+    }
+
+    private ResponseEntity<List<String>> reference(ReferenceDataService.ReferenceList list) {
+        // Clients revalidate with If-None-Match and get a 304 while the list is unchanged
+        return ResponseEntity.ok()
+                .eTag(list.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(list.values());
+    }
 
-        return ResponseEntity.ok(petService.markPetAsAdopted(petId, currentUser.getId()));
+    private static PetFilters toFilters(String species, String breed, Integer minAge, Integer maxAge, String gender,
+            String city, String country, String search, Double lat, Double lng, Double radiusKm) {
+        return PetFilters.builder()
+                .species(species)
+                .breed(breed)
+                .ageRange(minAge != null || maxAge != null ? PetFilters.AgeRange.builder()
+                        .min(minAge)
+                        .max(maxAge)
+                        .build() : null)
+                .gender(gender)
+                .city(city)
+                .country(country)
+                .searchQuery(search)
+                .location(lat != null && lng != null ? PetFilters.Location.builder()
+                        .lat(lat)
+                        .lng(lng)
+                        .build() : null)
+                .radiusKm(radiusKm)
+                .build();
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package org.petconnect.backend.controller;
 
 import java.util.UUID;
 
+import org.petconnect.backend.config.CurrentUser;
 import org.petconnect.backend.dto.pet.PetsResponse;
 import org.petconnect.backend.dto.shelter.CreateShelterRequest;
 import org.petconnect.backend.dto.shelter.ShelterDTO;
@@ -46,12 +47,13 @@ public class ShelterController {
     public ResponseEntity<SheltersResponse> getAllShelters(
             @Parameter(description = "Pagination cursor") @RequestParam(required = false) String cursor,
             @Parameter(description = "Search query") @RequestParam(required = false) String search,
-            @Parameter(description = "Sort field (newest, oldest, name_asc, name_desc, distance)") @RequestParam(required = false) String sortBy,
+            @Parameter(description = "Sort field (newest, oldest, name_asc, name_desc, distance, relevance)") @RequestParam(required = false) String sortBy,
             @Parameter(description = "Latitude for distance-based sorting") @RequestParam(required = false) Double lat,
             @Parameter(description = "Longitude for distance-based sorting") @RequestParam(required = false) Double lng,
             @Parameter(description = "Filter by city") @RequestParam(required = false) String city,
             @Parameter(description = "Filter by country") @RequestParam(required = false) String country,
-            @Parameter(description = "Number of items per page") @RequestParam(required = false, defaultValue = "12") Integer limit) {
+            @Parameter(description = "Number of items per page") @RequestParam(required = false, defaultValue = "12") Integer limit,
+            @Parameter(description = "Whether to include the total count") @RequestParam(defaultValue = "true") boolean includeTotal) {
         // Build filters from request params
         ShelterFilters filters = ShelterFilters.builder()
                 .searchQuery(search)
@@ -65,7 +67,7 @@ public class ShelterController {
                 .build();
 
         // Get shelters with pagination and filters
-        SheltersResponse response = shelterService.getShelters(cursor, filters, limit);
+        SheltersResponse response = shelterService.getShelters(cursor, filters, limit, includeTotal);
 
         return ResponseEntity.ok(response);
     }
@@ -114,8 +116,9 @@ public class ShelterController {
     @SecurityRequirement(name = "bearerAuth")
     @PostMapping
     public ResponseEntity<ShelterDTO> createShelter(
-            @Parameter(description = "Shelter creation request", required = true) @Valid @RequestBody CreateShelterRequest request) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(shelterService.createShelter(request));
+            @Parameter(description = "Shelter creation request", required = true) @Valid @RequestBody CreateShelterRequest request,
+            @CurrentUser UUID userId) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(shelterService.createShelter(request, userId));
     }
 
     @Operation(summary = "Update a shelter", description = "Updates an existing shelter's information")
@@ -130,8 +133,9 @@ public class ShelterController {
     @PutMapping("/{id}")
     public ResponseEntity<ShelterDTO> updateShelter(
             @Parameter(description = "ID of the shelter", required = true) @PathVariable UUID id,
-            @Parameter(description = "Shelter update request", required = true) @Valid @RequestBody CreateShelterRequest request) {
-        return ResponseEntity.ok(shelterService.updateShelter(id, request));
+            @Parameter(description = "Shelter update request", required = true) @Valid @RequestBody CreateShelterRequest request,
+            @CurrentUser UUID userId) {
+        return ResponseEntity.ok(shelterService.updateShelter(id, request, userId));
     }
 
     @Operation(summary = "Upload shelter avatar", description = "Uploads or updates the shelter's avatar image")
@@ -146,8 +150,9 @@ public class ShelterController {
     @PostMapping(value = "/{id}/avatar", consumes = "multipart/form-data")
     public ResponseEntity<ShelterDTO> uploadShelterAvatar(
             @Parameter(description = "ID of the shelter", required = true) @PathVariable UUID id,
-            @Parameter(description = "Avatar image file", required = true) @RequestParam("file") MultipartFile file) {
-        return ResponseEntity.ok(shelterService.uploadShelterAvatar(id, file));
+            @Parameter(description = "Avatar image file", required = true) @RequestParam("file") MultipartFile file,
+            @CurrentUser UUID userId) {
+        return ResponseEntity.ok(shelterService.uploadShelterAvatar(id, file, userId));
     }
 
     @Operation(summary = "Delete a shelter", description = "Deletes a shelter and all associated data. Only the shelter owner or administrators can delete the shelter.")
@@ -160,8 +165,9 @@ public class ShelterController {
     @SecurityRequirement(name = "bearerAuth")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteShelter(
-            @Parameter(description = "ID of the shelter", required = true) @PathVariable UUID id) {
-        shelterService.deleteShelter(id);
+            @Parameter(description = "ID of the shelter", required = true) @PathVariable UUID id,
+            @CurrentUser UUID userId) {
+        shelterService.deleteShelter(id, userId);
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -1,13 +1,14 @@
 package org.petconnect.backend.controller;
 
+import java.util.UUID;
+
+import org.petconnect.backend.config.CurrentUser;
 import org.petconnect.backend.dto.pet.PetsResponse;
 import org.petconnect.backend.dto.shelter.SheltersResponse;
 import org.petconnect.backend.dto.user.UpdateUserRequest;
 import org.petconnect.backend.dto.user.UserDTO;
 import org.petconnect.backend.service.UserService;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -43,9 +44,8 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "User not found")
     })
     @GetMapping("/me")
-    public ResponseEntity<UserDTO> getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return ResponseEntity.ok(userService.getUser(authentication.getName()));
+    public ResponseEntity<UserDTO> getCurrentUser(@CurrentUser UUID userId) {
+        return ResponseEntity.ok(userService.getUserById(userId));
     }
 
     @Operation(summary = "Update current user", description = "Update the profile of the currently authenticated user")
@@ -56,9 +56,9 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "User not found")
     })
     @PutMapping("/me")
-    public ResponseEntity<UserDTO> updateCurrentUser(@Valid @RequestBody UpdateUserRequest request) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return ResponseEntity.ok(userService.updateUser(authentication.getName(), request));
+    public ResponseEntity<UserDTO> updateCurrentUser(@Valid @RequestBody UpdateUserRequest request,
+            @CurrentUser UUID userId) {
+        return ResponseEntity.ok(userService.updateUser(userId, request));
     }
 
     @Operation(summary = "Upload avatar", description = "Upload a new avatar image for the current user")
@@ -69,9 +69,9 @@ public class UserController {
     })
     @PostMapping(value = "/avatar", consumes = "multipart/form-data")
     public ResponseEntity<UserDTO> uploadAvatar(
-            @Parameter(description = "Avatar image file to upload", required = true) @RequestParam("file") MultipartFile file) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return ResponseEntity.ok(userService.updateAvatar(authentication.getName(), file));
+            @Parameter(description = "Avatar image file to upload", required = true) @RequestParam("file") MultipartFile file,
+            @CurrentUser UUID userId) {
+        return ResponseEntity.ok(userService.updateAvatar(userId, file));
     }
 
     @Operation(summary = "Remove avatar", description = "Remove the current user's avatar image")
@@ -82,9 +82,8 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "User not found")
     })
     @DeleteMapping("/avatar")
-    public ResponseEntity<Void> removeAvatar() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        userService.removeAvatar(authentication.getName());
+    public ResponseEntity<Void> removeAvatar(@CurrentUser UUID userId) {
+        userService.removeAvatar(userId);
         return ResponseEntity.noContent().build();
     }
 
@@ -96,9 +95,9 @@ public class UserController {
     @GetMapping("/me/pets")
     public ResponseEntity<PetsResponse> getCurrentUserPets(
             @Parameter(description = "Pagination cursor") @RequestParam(required = false) String cursor,
-            @Parameter(description = "Number of items per page") @RequestParam(required = false) Integer limit) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return ResponseEntity.ok(userService.getUserPets(authentication.getName(), cursor, limit));
+            @Parameter(description = "Number of items per page") @RequestParam(required = false) Integer limit,
+            @CurrentUser UUID userId) {
+        return ResponseEntity.ok(userService.getUserPets(userId, cursor, limit));
     }
 
     @Operation(summary = "Get current user's shelters", description = "Retrieves a paginated list of shelters owned by the currently authenticated user")
@@ -109,8 +108,8 @@ public class UserController {
     @GetMapping("/me/shelters")
     public ResponseEntity<SheltersResponse> getCurrentUserShelters(
             @Parameter(description = "Pagination cursor") @RequestParam(required = false) String cursor,
-            @Parameter(description = "Number of items per page") @RequestParam(required = false) Integer limit) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return ResponseEntity.ok(userService.getUserShelters(authentication.getName(), cursor, limit));
+            @Parameter(description = "Number of items per page") @RequestParam(required = false) Integer limit,
+            @CurrentUser UUID userId) {
+        return ResponseEntity.ok(userService.getUserShelters(userId, cursor, limit));
     }
 }
\ No newline at end of file
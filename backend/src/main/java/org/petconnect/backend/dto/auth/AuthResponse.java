@@ -11,4 +11,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class AuthResponse {
     private String token;
+    private String refreshToken;
+    // Seconds until the access token expires
+    private long expiresIn;
 } 
\ No newline at end of file
@@ -25,6 +25,6 @@ public class FavoritesResponse {
     @Schema(description = "Whether there are more results available")
     private boolean hasMore;
 
-    @Schema(description = "Total number of favorited pets")
-    private long totalCount;
+    @Schema(description = "Total number of favorited pets, null when includeTotal is false")
+    private Long totalCount;
 }
\ No newline at end of file
@@ -33,6 +33,9 @@ public class ConversationDTO {
     @Schema(description = "Whether there are unread messages")
     private boolean hasUnread;
 
+    @Schema(description = "Number of messages the current user has not read yet", example = "2")
+    private int unreadCount;
+
     @Schema(description = "ID of the shelter related to the conversation", example = "123e4567-e89b-12d3-a456-426614174000")
     private UUID shelterId;
 
@@ -48,7 +51,10 @@ public class ConversationDTO {
     @Schema(description = "Timestamp of the last message (in UTC)", example = "2023-06-01T15:30:45Z")
     private ZonedDateTime lastMessageAt;
 
-    public static ConversationDTO fromLatestMessage(Message message, UUID currentUserId) {
+    @Schema(description = "Whether the other user is connected right now")
+    private boolean online;
+
+    public static ConversationDTO fromLatestMessage(Message message, UUID currentUserId, int unreadCount) {
         if (message == null || message.getPet() == null) {
             return null;
         }
@@ -61,13 +67,12 @@ public class ConversationDTO {
                 ? (message.getReceiver() != null ? UserDTO.fromEntity(message.getReceiver()) : null)
                 : (message.getSender() != null ? UserDTO.fromEntity(message.getSender()) : null);
 
-        boolean hasUnread = !message.getIsRead() && message.getReceiverId().equals(currentUserId);
-
         return ConversationDTO.builder()
                 .otherUserId(otherUserId)
                 .otherUser(otherUser)
                 .lastMessage(message.getContent())
-                .hasUnread(hasUnread)
+                .hasUnread(unreadCount > 0)
+                .unreadCount(unreadCount)
                 .shelterId(message.getShelterId())
                 .shelter(message.getShelter() != null ? ShelterDTO.fromEntity(message.getShelter()) : null)
                 .petId(message.getPetId())
@@ -0,0 +1,31 @@
+package org.petconnect.backend.dto.message;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A page of a conversation's messages with cursors to the older and newer pages")
+public class MessagesResponse {
+    @Schema(description = "Messages of the page, oldest first")
+    private List<MessageDTO> messages;
+
+    @Schema(description = "Cursor to pass as before for the older page, null when there are no older messages", example = "bWVzc2FnZXN8...")
+    private String olderCursor;
+
+    @Schema(description = "Cursor to pass as after for newer messages, also usable to poll for messages sent later", example = "bWVzc2FnZXN8...")
+    private String newerCursor;
+
+    @Schema(description = "Whether there are older messages")
+    private boolean hasOlder;
+
+    @Schema(description = "Whether there are newer messages")
+    private boolean hasNewer;
+}
\ No newline at end of file
@@ -37,4 +37,8 @@ public class SendMessageRequest {
 
     @Schema(description = "Timestamp when the message was sent by the client (in UTC)", example = "2023-06-01T15:30:45Z")
     private ZonedDateTime sentAt;
+
+    @Size(max = 100, message = "Client message ID must be at most 100 characters")
+    @Schema(description = "Client's own reference for the message, sent back if the message cannot be written", example = "temp-1685633445000", maxLength = 100)
+    private String clientMessageId;
 }
\ No newline at end of file
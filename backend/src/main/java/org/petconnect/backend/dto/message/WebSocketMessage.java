@@ -1,5 +1,7 @@
 package org.petconnect.backend.dto.message;
 
+import java.util.Map;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,11 +15,28 @@ public class WebSocketMessage {
     private MessageType type;
     private Object payload;
 
+    // Position in the receiving user's event log, only set on events that can be resumed
+    private Long sequence;
+
+    public static WebSocketMessage unreadCount(int count, int delta) {
+        return WebSocketMessage.builder()
+                .type(MessageType.UNREAD_COUNT)
+                .payload(Map.of("count", count, "delta", delta))
+                .build();
+    }
+
     public enum MessageType {
         NEW_MESSAGE,
+        MESSAGE_SENT,
+        MESSAGE_FAILED,
         READ_RECEIPT,
+        UNREAD_COUNT,
         PET_STATUS_UPDATE,
         USER_TYPING,
-        USER_STOPPED_TYPING
+        USER_STOPPED_TYPING,
+        USER_ONLINE,
+        USER_OFFLINE,
+        MISSED_EVENTS,
+        RESYNC_REQUIRED
     }
 }
\ No newline at end of file
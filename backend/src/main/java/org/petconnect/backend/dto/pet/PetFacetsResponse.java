@@ -0,0 +1,64 @@
+package org.petconnect.backend.dto.pet;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Number of pets per filter value. Each facet applies every other filter but not its own, so the values it excludes are still counted")
+public class PetFacetsResponse {
+    @Schema(description = "Pet counts per species")
+    private List<FacetCount> species;
+
+    @Schema(description = "Pet counts per breed")
+    private List<FacetCount> breeds;
+
+    @Schema(description = "Pet counts per gender")
+    private List<FacetCount> genders;
+
+    @Schema(description = "Pet counts per country")
+    private List<FacetCount> countries;
+
+    @Schema(description = "Pet counts per city")
+    private List<FacetCount> cities;
+
+    @Schema(description = "Pet counts per age bucket, youngest first")
+    private List<AgeBucketCount> ages;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetCount {
+        @Schema(description = "Filter value", example = "dog")
+        private String value;
+
+        @Schema(description = "Number of pets with this value", example = "412")
+        private long count;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AgeBucketCount {
+        @Schema(description = "Bucket label", example = "6-12 months")
+        private String label;
+
+        @Schema(description = "Minimum age in months, usable as the minAge filter", example = "6")
+        private Integer minAge;
+
+        @Schema(description = "Maximum age in months, usable as the maxAge filter, null for the oldest bucket", example = "12")
+        private Integer maxAge;
+
+        @Schema(description = "Number of pets in this age bucket", example = "57")
+        private long count;
+    }
+}
\ No newline at end of file
@@ -33,12 +33,15 @@ public class PetFilters {
     @Schema(description = "Search query to match against pet name and description")
     private String searchQuery;
 
-    @Schema(description = "Sort field (newest, oldest, youngest, eldest, name_asc, name_desc, distance)", example = "newest")
+    @Schema(description = "Sort field (newest, oldest, youngest, eldest, name_asc, name_desc, distance, relevance)", example = "newest")
     private String sortBy;
 
     @Schema(description = "Location coordinates for distance-based sorting")
     private Location location;
 
+    @Schema(description = "Only include pets within this many kilometers of the location", example = "25")
+    private Double radiusKm;
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -15,7 +15,7 @@ public class ShelterFilters {
     @Schema(description = "Search query to match against shelter name and description")
     private String searchQuery;
 
-    @Schema(description = "Sort field (newest, oldest, name_asc, name_desc, distance)")
+    @Schema(description = "Sort field (newest, oldest, name_asc, name_desc, distance, relevance)")
     private String sortBy;
 
     @Schema(description = "Filter by city", example = "New York")
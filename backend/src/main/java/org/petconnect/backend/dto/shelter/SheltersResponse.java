@@ -23,6 +23,9 @@ public class SheltersResponse {
     @Schema(description = "Whether there are more results available")
     private boolean hasMore;
 
-    @Schema(description = "Total number of shelters matching the filters")
-    private long totalCount;
+    @Schema(description = "Total number of shelters matching the filters, null when includeTotal is false")
+    private Long totalCount;
+
+    @Schema(description = "Whether totalCount is the query planner's estimate for a large result set")
+    private boolean totalCountEstimated;
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package org.petconnect.backend.exception;
+
+/**
+ * Exception thrown when a request is refused to protect the server, because the
+ * client sent too many or the work it needs is already queued to capacity.
+ * This will be translated to HTTP 429 Too Many Requests responses.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
\ No newline at end of file
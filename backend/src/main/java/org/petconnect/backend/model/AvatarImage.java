@@ -42,10 +42,4 @@ public class AvatarImage {
     @OneToOne
     @JoinColumn(name = "image_id", insertable = false, updatable = false)
     private Image image;
-
-    @OneToOne(mappedBy = "avatarImage")
-    private User user;
-
-    @OneToOne(mappedBy = "avatarImage")
-    private Shelter shelter;
 }
\ No newline at end of file
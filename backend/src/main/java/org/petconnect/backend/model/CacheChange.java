@@ -0,0 +1,52 @@
+package org.petconnect.backend.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A committed write that other nodes must apply to their in-memory caches. Rows
+ * are written in the transaction of the change and followed by
+ * {@link org.petconnect.backend.service.CacheChangeService}.
+ */
+@Entity
+@Table(name = "cache_change")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheChange {
+
+    public enum Cache {
+        PET_LOCATION,
+        REFERENCE_DATA
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "cache", nullable = false, length = 32)
+    private Cache cache;
+
+    // Null when every pet changed
+    @Column(name = "pet_id", columnDefinition = "uuid")
+    private UUID petId;
+
+    // Set by the database when the row is written
+    @Column(name = "changed_at", nullable = false, insertable = false, updatable = false)
+    private Instant changedAt;
+}
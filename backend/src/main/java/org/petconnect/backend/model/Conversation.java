@@ -0,0 +1,65 @@
+package org.petconnect.backend.model;
+
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Summary of the messages two users exchanged about a pet.
+ * userAId is the smaller of the two user ids, so each pair has a single row no
+ * matter who wrote first. Rows are maintained by
+ * {@link org.petconnect.backend.service.MessageService} in the same transaction
+ * as the messages they summarize.
+ */
+@Entity
+@Table(name = "conversation")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(Conversation.ConversationId.class)
+public class Conversation {
+
+    @Id
+    @Column(name = "user_a_id", columnDefinition = "uuid")
+    private UUID userAId;
+
+    @Id
+    @Column(name = "user_b_id", columnDefinition = "uuid")
+    private UUID userBId;
+
+    @Id
+    @Column(name = "pet_id", columnDefinition = "uuid")
+    private UUID petId;
+
+    @Column(name = "last_message_id", nullable = false, columnDefinition = "uuid")
+    private UUID lastMessageId;
+
+    @Column(name = "last_message_at", nullable = false)
+    private ZonedDateTime lastMessageAt;
+
+    @Column(name = "user_a_unread", nullable = false)
+    private int userAUnread;
+
+    @Column(name = "user_b_unread", nullable = false)
+    private int userBUnread;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ConversationId implements Serializable {
+        private UUID userAId;
+        private UUID userBId;
+        private UUID petId;
+    }
+}
\ No newline at end of file
@@ -7,21 +7,17 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.petconnect.backend.config.helper.YamlConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
-import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import lombok.ToString;
 
 @Entity
 @Table(name = "image")
@@ -29,8 +25,6 @@ import lombok.ToString;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@ToString(exclude = { "avatarImage", "petImage" })
-@EqualsAndHashCode(exclude = { "avatarImage", "petImage" })
 public class Image {
 
     @Id
@@ -54,12 +48,7 @@ public class Image {
     @Column(name = "uploaded_at", nullable = false, updatable = false)
     private ZonedDateTime uploadedAt;
 
-    // Relationships
-    @OneToOne(mappedBy = "image", cascade = CascadeType.ALL, orphanRemoval = true)
-    private AvatarImage avatarImage;
-
-    @OneToOne(mappedBy = "image", cascade = CascadeType.ALL, orphanRemoval = true)
-    private PetImage petImage;
+    // The avatar_image and pet_image links are removed by ON DELETE CASCADE
 
     // Static helper to be used in services
     private static YamlConfig yamlConfig;
@@ -0,0 +1,80 @@
+package org.petconnect.backend.model;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Denormalized browse row for an AVAILABLE pet.
+ * Location, city and country are resolved from the pet or shelter address when
+ * the row is written, so pet listings can filter and sort on a single table.
+ * Rows are maintained by {@link org.petconnect.backend.service.PetSearchService}.
+ */
+@Entity
+@Table(name = "pet_search")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PetSearch {
+
+    @Id
+    @Column(name = "pet_id", updatable = false, nullable = false, columnDefinition = "uuid")
+    private UUID petId;
+
+    @Column(name = "name", length = 50, nullable = false)
+    private String name;
+
+    @Column(name = "description")
+    private String description;
+
+    // Species, breed and gender are stored lowercase for case-insensitive filtering
+    @Column(name = "species", length = 50, nullable = false)
+    private String species;
+
+    @Column(name = "breed", length = 50, nullable = false)
+    private String breed;
+
+    @Column(name = "gender", length = 50, nullable = false)
+    private String gender;
+
+    @Column(name = "birth_date", nullable = false)
+    private LocalDate birthDate;
+
+    @Column(name = "created_at", nullable = false)
+    private ZonedDateTime createdAt;
+
+    @Column(name = "owner_id", columnDefinition = "uuid")
+    private UUID ownerId;
+
+    @Column(name = "shelter_id", columnDefinition = "uuid")
+    private UUID shelterId;
+
+    @Column(name = "shelter_name", length = 100)
+    private String shelterName;
+
+    // City and country are stored lowercase for case-insensitive filtering
+    @Column(name = "city", length = 100)
+    private String city;
+
+    @Column(name = "country", length = 100)
+    private String country;
+
+    @Column(name = "lat")
+    private Double lat;
+
+    @Column(name = "lng")
+    private Double lng;
+
+    @Column(name = "primary_image_key", length = 255)
+    private String primaryImageKey;
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package org.petconnect.backend.model;
+
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An event pushed to a user's WebSocket queue, kept so a client that reconnects
+ * can be sent what it missed. Rows are written by
+ * {@link org.petconnect.backend.service.UserEventService} and purged after the
+ * retention period.
+ */
+@Entity
+@Table(name = "user_event")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(UserEvent.UserEventId.class)
+public class UserEvent {
+
+    @Id
+    @Column(name = "user_id", columnDefinition = "uuid")
+    private UUID userId;
+
+    @Id
+    @Column(name = "sequence")
+    private long sequence;
+
+    @Column(name = "type", nullable = false, length = 32)
+    private String type;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "payload", nullable = false, columnDefinition = "jsonb")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private ZonedDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserEventId implements Serializable {
+        private UUID userId;
+        private long sequence;
+    }
+}
\ No newline at end of file
@@ -17,4 +17,15 @@ public interface AddressRepository extends JpaRepository<Address, UUID> {
 
     @Query("SELECT DISTINCT a.country FROM Address a ORDER BY a.country")
     List<String> findDistinctCountries();
+
+    // Countries and cities are listed as stored, the lowercase index narrows the rows first
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM address WHERE LOWER(country) = LOWER(:country) AND country = :country)",
+            nativeQuery = true)
+    boolean existsByCountry(@Param("country") String country);
+
+    @Query(value = """
+            SELECT EXISTS (SELECT 1 FROM address
+            WHERE LOWER(country) = LOWER(:country) AND LOWER(city) = LOWER(:city) AND city = :city)
+            """, nativeQuery = true)
+    boolean existsByCountryAndCity(@Param("country") String country, @Param("city") String city);
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package org.petconnect.backend.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.petconnect.backend.model.CacheChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CacheChangeRepository extends JpaRepository<CacheChange, Long> {
+
+    // The change feed the nodes follow
+    @Query("SELECT c FROM CacheChange c WHERE c.changedAt > :since ORDER BY c.changedAt, c.id")
+    List<CacheChange> findChangedSince(@Param("since") Instant since);
+
+    // Null while nothing changed
+    @Query("SELECT MAX(c.changedAt) FROM CacheChange c")
+    Instant findLastChangedAt();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CacheChange c WHERE c.changedAt < :before")
+    int deleteChangedBefore(@Param("before") Instant before);
+}
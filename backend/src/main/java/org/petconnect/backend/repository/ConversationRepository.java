@@ -0,0 +1,230 @@
+package org.petconnect.backend.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.petconnect.backend.model.Conversation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ConversationRepository extends JpaRepository<Conversation, Conversation.ConversationId> {
+
+    interface ConversationSummary {
+        UUID getLastMessageId();
+
+        int getUnreadCount();
+    }
+
+    // A user's total unread count after a change, and the change
+    interface UnreadCount {
+        UUID getUserId();
+
+        int getUnreadCount();
+
+        int getDelta();
+    }
+
+    // The latest message and unread count of each of a user's conversations, newest first.
+    // Each side of the pair is its own index range scan, a conversation with oneself is only user_a
+    @Query(value = """
+            SELECT c.last_message_id AS lastMessageId, c.unread AS unreadCount
+            FROM (
+                SELECT last_message_id, last_message_at, user_a_unread AS unread
+                FROM conversation WHERE user_a_id = :userId
+                UNION ALL
+                SELECT last_message_id, last_message_at, user_b_unread AS unread
+                FROM conversation WHERE user_b_id = :userId AND user_a_id <> :userId
+            ) c
+            ORDER BY c.last_message_at DESC
+            """, nativeQuery = true)
+    List<ConversationSummary> findUserConversations(@Param("userId") UUID userId);
+
+    @Query(value = """
+            SELECT c.last_message_id AS lastMessageId, c.unread AS unreadCount
+            FROM (
+                SELECT last_message_id, last_message_at, user_a_unread AS unread
+                FROM conversation WHERE user_a_id = :userId AND user_a_unread > 0
+                UNION ALL
+                SELECT last_message_id, last_message_at, user_b_unread AS unread
+                FROM conversation WHERE user_b_id = :userId AND user_a_id <> :userId AND user_b_unread > 0
+            ) c
+            ORDER BY c.last_message_at DESC
+            """, nativeQuery = true)
+    List<ConversationSummary> findUnreadConversations(@Param("userId") UUID userId);
+
+    @Query(value = """
+            SELECT COALESCE((SELECT unread_count FROM user_unread_count WHERE user_id = :userId), 0)
+            """, nativeQuery = true)
+    long countUnreadMessages(@Param("userId") UUID userId);
+
+    // Everyone the user has a conversation with
+    @Query(value = """
+            SELECT user_b_id FROM conversation WHERE user_a_id = :userId
+            UNION
+            SELECT user_a_id FROM conversation WHERE user_b_id = :userId
+            """, nativeQuery = true)
+    List<UUID> findPartnerIds(@Param("userId") UUID userId);
+
+    // Whether the user has a conversation about the pet, read from the conversations instead of the messages
+    @Query(value = """
+            SELECT EXISTS (
+                SELECT 1 FROM conversation
+                WHERE pet_id = :petId AND (user_a_id = :userId OR user_b_id = :userId))
+            """, nativeQuery = true)
+    boolean existsByPetIdAndParticipant(@Param("petId") UUID petId, @Param("userId") UUID userId);
+
+    @Query(value = """
+            SELECT EXISTS (
+                SELECT 1 FROM conversation
+                WHERE user_a_id = LEAST(CAST(:userId AS uuid), CAST(:otherId AS uuid))
+                AND user_b_id = GREATEST(CAST(:userId AS uuid), CAST(:otherId AS uuid))
+                AND pet_id = :petId)
+            """, nativeQuery = true)
+    boolean existsBetween(@Param("userId") UUID userId, @Param("otherId") UUID otherId, @Param("petId") UUID petId);
+
+    // Adds a batch of sent messages to their conversations, each conversation once with the
+    // batch's latest message and unread counts. The latest message only moves forward, since
+    // clients may supply sentAt, and the receiver's unread count grows by the messages received
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query(value = """
+            WITH added AS (
+                SELECT LEAST(m.sender_id, m.receiver_id) AS user_a_id, GREATEST(m.sender_id, m.receiver_id) AS user_b_id,
+                    m.pet_id, m.id, m.sent_at,
+                    CASE WHEN m.receiver_id <= m.sender_id THEN 1 ELSE 0 END AS user_a_unread,
+                    CASE WHEN m.receiver_id > m.sender_id THEN 1 ELSE 0 END AS user_b_unread
+                FROM message m
+                WHERE m.id IN (:messageIds) AND m.pet_id IS NOT NULL
+            )
+            INSERT INTO conversation (user_a_id, user_b_id, pet_id, last_message_id, last_message_at, user_a_unread,
+                user_b_unread)
+            SELECT DISTINCT ON (a.user_a_id, a.user_b_id, a.pet_id) a.user_a_id, a.user_b_id, a.pet_id, a.id, a.sent_at,
+                SUM(a.user_a_unread) OVER w, SUM(a.user_b_unread) OVER w
+            FROM added a
+            WINDOW w AS (PARTITION BY a.user_a_id, a.user_b_id, a.pet_id)
+            ORDER BY a.user_a_id, a.user_b_id, a.pet_id, a.sent_at DESC
+            ON CONFLICT (user_a_id, user_b_id, pet_id) DO UPDATE SET
+                last_message_id = CASE WHEN EXCLUDED.last_message_at >= conversation.last_message_at
+                    THEN EXCLUDED.last_message_id ELSE conversation.last_message_id END,
+                last_message_at = GREATEST(EXCLUDED.last_message_at, conversation.last_message_at),
+                user_a_unread = conversation.user_a_unread + EXCLUDED.user_a_unread,
+                user_b_unread = conversation.user_b_unread + EXCLUDED.user_b_unread
+            """, nativeQuery = true)
+    void addMessages(@Param("messageIds") List<UUID> messageIds);
+
+    // Adds a batch of sent messages to their receivers' total unread counts, once per receiver in id order
+    @Query(value = """
+            WITH received AS (
+                SELECT m.receiver_id, CAST(COUNT(*) AS integer) AS received
+                FROM message m
+                WHERE m.id IN (:messageIds) AND m.pet_id IS NOT NULL
+                GROUP BY m.receiver_id
+            ), added AS (
+                INSERT INTO user_unread_count (user_id, unread_count)
+                SELECT r.receiver_id, r.received FROM received r ORDER BY r.receiver_id
+                ON CONFLICT (user_id) DO UPDATE SET
+                    unread_count = user_unread_count.unread_count + EXCLUDED.unread_count
+                RETURNING user_id, unread_count
+            )
+            SELECT a.user_id AS userId, a.unread_count AS unreadCount, r.received AS delta
+            FROM added a JOIN received r ON r.receiver_id = a.user_id
+            """, nativeQuery = true)
+    @Transactional
+    List<UnreadCount> addUnreadMessages(@Param("messageIds") List<UUID> messageIds);
+
+    // Deletes a pet's conversations before the pet and its messages go, and takes their unread
+    // counts off each participant's total, once per participant in id order
+    @Query(value = """
+            WITH deleted AS (
+                DELETE FROM conversation WHERE pet_id = :petId
+                RETURNING user_a_id, user_b_id, user_a_unread, user_b_unread
+            ), removed AS (
+                SELECT c.user_id, CAST(SUM(c.unread) AS integer) AS removed
+                FROM (
+                    SELECT user_a_id AS user_id, user_a_unread AS unread FROM deleted
+                    UNION ALL
+                    SELECT user_b_id AS user_id, user_b_unread AS unread FROM deleted WHERE user_a_id <> user_b_id
+                ) c
+                WHERE c.unread > 0
+                GROUP BY c.user_id
+            ), updated AS (
+                INSERT INTO user_unread_count (user_id, unread_count)
+                SELECT r.user_id, 0 FROM removed r ORDER BY r.user_id
+                ON CONFLICT (user_id) DO UPDATE SET unread_count = GREATEST(user_unread_count.unread_count
+                    - (SELECT r.removed FROM removed r WHERE r.user_id = EXCLUDED.user_id), 0)
+                RETURNING user_id, unread_count
+            )
+            SELECT u.user_id AS userId, u.unread_count AS unreadCount, -r.removed AS delta
+            FROM updated u JOIN removed r ON r.user_id = u.user_id
+            ORDER BY u.user_id
+            """, nativeQuery = true)
+    @Transactional
+    List<UnreadCount> deleteByPetId(@Param("petId") UUID petId);
+
+    // Clears the reader's unread counts and takes what was cleared off their total. Called before
+    // the messages are marked read, so a message sent meanwhile either waits for these row locks
+    // and counts as unread, or commits first and is marked read by the message update
+    @Query(value = """
+            WITH old AS (
+                SELECT user_a_id, user_b_id, pet_id,
+                    CASE WHEN user_a_id = CAST(:userId AS uuid) THEN user_a_unread ELSE 0 END
+                        + CASE WHEN user_b_id = CAST(:userId AS uuid) AND user_a_id <> user_b_id
+                            THEN user_b_unread ELSE 0 END AS unread
+                FROM conversation
+                WHERE user_a_id = LEAST(CAST(:userId AS uuid), CAST(:otherId AS uuid))
+                AND user_b_id = GREATEST(CAST(:userId AS uuid), CAST(:otherId AS uuid))
+                ORDER BY pet_id
+                FOR UPDATE
+            ), cleared AS (
+                UPDATE conversation c SET
+                    user_a_unread = CASE WHEN c.user_a_id = CAST(:userId AS uuid) THEN 0 ELSE c.user_a_unread END,
+                    user_b_unread = CASE WHEN c.user_b_id = CAST(:userId AS uuid) THEN 0 ELSE c.user_b_unread END
+                FROM old
+                WHERE c.user_a_id = old.user_a_id AND c.user_b_id = old.user_b_id AND c.pet_id = old.pet_id
+                RETURNING old.unread
+            )
+            INSERT INTO user_unread_count (user_id, unread_count)
+            VALUES (CAST(:userId AS uuid), 0)
+            ON CONFLICT (user_id) DO UPDATE SET unread_count =
+                GREATEST(user_unread_count.unread_count - (SELECT COALESCE(SUM(unread), 0) FROM cleared), 0)
+            RETURNING user_id AS userId, unread_count AS unreadCount,
+                CAST(-(SELECT COALESCE(SUM(unread), 0) FROM cleared) AS integer) AS delta
+            """, nativeQuery = true)
+    @Transactional
+    UnreadCount markAsRead(@Param("userId") UUID userId, @Param("otherId") UUID otherId);
+
+    @Query(value = """
+            WITH old AS (
+                SELECT user_a_id, user_b_id, pet_id,
+                    CASE WHEN user_a_id = CAST(:userId AS uuid) THEN user_a_unread ELSE 0 END
+                        + CASE WHEN user_b_id = CAST(:userId AS uuid) AND user_a_id <> user_b_id
+                            THEN user_b_unread ELSE 0 END AS unread
+                FROM conversation
+                WHERE user_a_id = LEAST(CAST(:userId AS uuid), CAST(:otherId AS uuid))
+                AND user_b_id = GREATEST(CAST(:userId AS uuid), CAST(:otherId AS uuid))
+                AND pet_id = :petId
+                FOR UPDATE
+            ), cleared AS (
+                UPDATE conversation c SET
+                    user_a_unread = CASE WHEN c.user_a_id = CAST(:userId AS uuid) THEN 0 ELSE c.user_a_unread END,
+                    user_b_unread = CASE WHEN c.user_b_id = CAST(:userId AS uuid) THEN 0 ELSE c.user_b_unread END
+                FROM old
+                WHERE c.user_a_id = old.user_a_id AND c.user_b_id = old.user_b_id AND c.pet_id = old.pet_id
+                RETURNING old.unread
+            )
+            INSERT INTO user_unread_count (user_id, unread_count)
+            VALUES (CAST(:userId AS uuid), 0)
+            ON CONFLICT (user_id) DO UPDATE SET unread_count =
+                GREATEST(user_unread_count.unread_count - (SELECT COALESCE(SUM(unread), 0) FROM cleared), 0)
+            RETURNING user_id AS userId, unread_count AS unreadCount,
+                CAST(-(SELECT COALESCE(SUM(unread), 0) FROM cleared) AS integer) AS delta
+            """, nativeQuery = true)
+    @Transactional
+    UnreadCount markAboutPetAsRead(@Param("userId") UUID userId, @Param("otherId") UUID otherId,
+            @Param("petId") UUID petId);
+}
\ No newline at end of file
@@ -17,9 +17,18 @@ public interface FavoriteRepository extends JpaRepository<Favorite, Favorite.Fav
     @Query("SELECT COUNT(f) FROM Favorite f WHERE f.userId = :userId")
     long countByUserId(@Param("userId") UUID userId);
 
-    @Query(value = "SELECT * FROM (SELECT f.*, ROW_NUMBER() OVER (ORDER BY f.created_at DESC) AS rn FROM favorite f WHERE f.user_id = :userId) AS ranked WHERE rn > :offset AND rn <= :offset + :limit", nativeQuery = true)
+    @Query(value = """
+            SELECT * FROM favorite f
+            WHERE f.user_id = :userId
+            AND (CAST(:cursorId AS uuid) IS NULL
+              OR f.created_at < CAST(:cursorTime AS timestamptz)
+              OR (f.created_at = CAST(:cursorTime AS timestamptz) AND f.pet_id < CAST(:cursorId AS uuid)))
+            ORDER BY f.created_at DESC, f.pet_id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
     List<Favorite> findByUserIdWithPagination(
             @Param("userId") UUID userId,
-            @Param("offset") int offset,
+            @Param("cursorTime") String cursorTime,
+            @Param("cursorId") String cursorId,
             @Param("limit") int limit);
 }
\ No newline at end of file
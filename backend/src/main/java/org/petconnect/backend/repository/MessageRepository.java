@@ -22,46 +22,52 @@ public interface MessageRepository extends JpaRepository<Message, UUID> {
                         "ORDER BY m.sentAt ASC")
         List<Message> findConversation(@Param("userId") UUID userId, @Param("otherId") UUID otherId);
 
-        // Find all messages between two users about a specific pet
-        @Query("SELECT m FROM Message m WHERE " +
-                        "((m.senderId = :userId AND m.receiverId = :otherId) OR " +
-                        "(m.senderId = :otherId AND m.receiverId = :userId)) " +
-                        "AND m.petId = :petId " +
-                        "ORDER BY m.sentAt ASC")
-        List<Message> findConversationAboutPet(@Param("userId") UUID userId, @Param("otherId") UUID otherId,
-                        @Param("petId") UUID petId);
-
-        // Find all conversations for a user (returns the latest message for each
-        // distinct conversation)
-        @Query(nativeQuery = true, value = "SELECT * FROM message m1 WHERE m1.sent_at = " +
-                        "(SELECT MAX(m2.sent_at) FROM message m2 WHERE " +
-                        "((m2.sender_id = m1.sender_id AND m2.receiver_id = m1.receiver_id) OR " +
-                        "(m2.sender_id = m1.receiver_id AND m2.receiver_id = m1.sender_id)) " +
-                        "AND m2.pet_id = m1.pet_id) " +
-                        "AND (m1.sender_id = :userId OR m1.receiver_id = :userId) " +
-                        "AND m1.pet_id IS NOT NULL " +
-                        "ORDER BY m1.sent_at DESC")
-        List<Message> findUserConversations(@Param("userId") UUID userId);
+        // A page of a conversation's history older than the cursor message, newest first.
+        // The seek is always a row comparison, so it is an index condition and the page is read
+        // straight from the (conversation_key, sent_at, id) index
+        @Query(nativeQuery = true, value = """
+                        SELECT m.id FROM message m
+                        WHERE m.conversation_key = conversation_key(
+                            CAST(:userId AS uuid), CAST(:otherId AS uuid), CAST(:petId AS uuid))
+                        AND (m.sent_at, m.id) < (CAST(:cursorTime AS timestamptz), CAST(:cursorId AS uuid))
+                        ORDER BY m.sent_at DESC, m.id DESC
+                        LIMIT :limit
+                        """)
+        List<UUID> findConversationIdsBefore(@Param("userId") UUID userId, @Param("otherId") UUID otherId,
+                        @Param("petId") UUID petId, @Param("cursorTime") String cursorTime,
+                        @Param("cursorId") String cursorId, @Param("limit") int limit);
 
-        // Find unread messages count for a user
-        @Query("SELECT COUNT(m) FROM Message m WHERE m.receiverId = :userId AND m.isRead = false AND m.petId IS NOT NULL")
-        long countUnreadMessages(@Param("userId") UUID userId);
+        // A page of a conversation's history newer than the cursor message, oldest first
+        @Query(nativeQuery = true, value = """
+                        SELECT m.id FROM message m
+                        WHERE m.conversation_key = conversation_key(
+                            CAST(:userId AS uuid), CAST(:otherId AS uuid), CAST(:petId AS uuid))
+                        AND (m.sent_at, m.id) > (CAST(:cursorTime AS timestamptz), CAST(:cursorId AS uuid))
+                        ORDER BY m.sent_at ASC, m.id ASC
+                        LIMIT :limit
+                        """)
+        List<UUID> findConversationIdsAfter(@Param("userId") UUID userId, @Param("otherId") UUID otherId,
+                        @Param("petId") UUID petId, @Param("cursorTime") String cursorTime,
+                        @Param("cursorId") String cursorId, @Param("limit") int limit);
 
-        // Find all conversations with unread messages for a user
-        @Query(nativeQuery = true, value = "SELECT * FROM message m1 WHERE m1.sent_at = " +
-                        "(SELECT MAX(m2.sent_at) FROM message m2 WHERE " +
-                        "((m2.sender_id = m1.sender_id AND m2.receiver_id = m1.receiver_id) OR " +
-                        "(m2.sender_id = m1.receiver_id AND m2.receiver_id = m1.sender_id)) " +
-                        "AND m2.pet_id = m1.pet_id) " +
-                        "AND (m1.sender_id = :userId OR m1.receiver_id = :userId) " +
-                        "AND m1.pet_id IS NOT NULL " +
-                        "AND EXISTS (SELECT 1 FROM message m3 WHERE m3.receiver_id = :userId " +
-                        "AND m3.is_read = false AND ((m3.sender_id = m1.sender_id AND m3.receiver_id = m1.receiver_id) OR "
-                        +
-                        "(m3.sender_id = m1.receiver_id AND m3.receiver_id = m1.sender_id)) " +
-                        "AND m3.pet_id = m1.pet_id) " +
-                        "ORDER BY m1.sent_at DESC")
-        List<Message> findUnreadConversations(@Param("userId") UUID userId);
+        // Load messages with the users, pet and shelter a conversation shows in one
+        // statement, the mappedBy addresses would otherwise be loaded one row at a time
+        @Query("SELECT m FROM Message m " +
+                        "LEFT JOIN FETCH m.sender " +
+                        "LEFT JOIN FETCH m.receiver " +
+                        "LEFT JOIN FETCH m.shelter sh " +
+                        "LEFT JOIN FETCH sh.shelterAddress sha " +
+                        "LEFT JOIN FETCH sha.address " +
+                        "LEFT JOIN FETCH m.pet p " +
+                        "LEFT JOIN FETCH p.shelter psh " +
+                        "LEFT JOIN FETCH psh.shelterAddress psha " +
+                        "LEFT JOIN FETCH psha.address " +
+                        "LEFT JOIN FETCH p.petAddress pa " +
+                        "LEFT JOIN FETCH pa.address " +
+                        "LEFT JOIN FETCH p.petImages pi " +
+                        "LEFT JOIN FETCH pi.image " +
+                        "WHERE m.id IN :ids")
+        List<Message> findAllWithDetailsByIdIn(@Param("ids") List<UUID> ids);
 
         // Update messages as read in a conversation
         @Modifying
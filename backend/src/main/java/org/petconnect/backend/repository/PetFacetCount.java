@@ -0,0 +1,6 @@
+package org.petconnect.backend.repository;
+
+// One row of the facet query: the facet name, one of its values and the number of pets with it.
+// Age buckets are reported by their index in the bounds the query was given.
+public record PetFacetCount(String facet, String value, long count) {
+}
\ No newline at end of file
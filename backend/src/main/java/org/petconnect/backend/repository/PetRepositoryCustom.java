@@ -0,0 +1,22 @@
+package org.petconnect.backend.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.petconnect.backend.model.Pet;
+
+public interface PetRepositoryCustom {
+
+    List<Pet> findPets(PetSearchCriteria criteria);
+
+    List<Pet> findAllWithDetails(List<UUID> petIds);
+
+    long countPets(PetSearchCriteria criteria);
+
+    long estimatePets(PetSearchCriteria criteria);
+
+    List<PetFacetCount> findPetFacets(PetSearchCriteria criteria, List<LocalDate> ageBounds);
+
+    Double findRelevance(UUID petId, String searchQuery);
+}
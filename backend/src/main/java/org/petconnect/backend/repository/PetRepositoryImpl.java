@@ -0,0 +1,267 @@
+package org.petconnect.backend.repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.petconnect.backend.model.Pet;
+import org.petconnect.backend.util.PageCursor;
+import org.petconnect.backend.util.PaginationUtil;
+import org.petconnect.backend.util.SqlQueryBuilder;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Pet browsing queries over the pet_search read model.
+ * Only the filters that are set become predicates, and each sort emits a single
+ * ORDER BY with its tie-breaker in the same direction, so the keyset seek is a
+ * row comparison that walks the (column, pet_id) indexes directly.
+ */
+@RequiredArgsConstructor
+public class PetRepositoryImpl implements PetRepositoryCustom {
+
+    private static final String RELEVANCE = """
+            CAST(ts_rank_cd(s.search_vector, websearch_to_tsquery('english', :searchQuery))
+                + word_similarity(LOWER(:searchQuery), LOWER(s.name)) AS double precision)""";
+
+    // Everything PetDTO reads in one statement. The mappedBy one-to-ones would otherwise be
+    // loaded one row at a time, the shelters' other associations are batch fetched
+    private static final String PET_DETAILS = """
+            SELECT p FROM Pet p
+            LEFT JOIN FETCH p.shelter sh
+            LEFT JOIN FETCH sh.shelterAddress sa
+            LEFT JOIN FETCH sa.address
+            LEFT JOIN FETCH p.petAddress pa
+            LEFT JOIN FETCH pa.address
+            LEFT JOIN FETCH p.petImages pi
+            LEFT JOIN FETCH pi.image
+            WHERE p.id IN :ids""";
+
+    // Facet names, each grouping the facet query by the column of the same name
+    private static final List<String> FACETS = List.of("species", "breed", "gender", "country", "city", "age");
+
+    private final EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Pet> findPets(PetSearchCriteria criteria) {
+        SqlQueryBuilder query = filter(criteria);
+        if (criteria.getSortBy() != null) {
+            orderAndSeek(query, criteria.getSortBy(), criteria.getCursor());
+        }
+        query.limit(criteria.getLimit());
+
+        // Only the ids of the page come from pet_search, the pets are loaded with their details at once
+        List<UUID> petIds = query.createQuery(entityManager, "SELECT s.pet_id FROM pet_search s").getResultList();
+        return findAllWithDetails(petIds);
+    }
+
+    @Override
+    public List<Pet> findAllWithDetails(List<UUID> petIds) {
+        return PaginationUtil.loadInOrder(petIds, ids -> entityManager.createQuery(PET_DETAILS, Pet.class)
+                .setParameter("ids", ids)
+                .getResultList(), Pet::getId);
+    }
+
+    @Override
+    public long countPets(PetSearchCriteria criteria) {
+        Number count = (Number) filter(criteria)
+                .createCountQuery(entityManager, "SELECT COUNT(*) FROM pet_search s")
+                .getSingleResult();
+        return count.longValue();
+    }
+
+    @Override
+    public long estimatePets(PetSearchCriteria criteria) {
+        return filter(criteria).estimateRows(entityManager, "SELECT 1 FROM pet_search s");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<PetFacetCount> findPetFacets(PetSearchCriteria criteria, List<LocalDate> ageBounds) {
+        // The facet filters stay out of the WHERE clause so every facet still counts the values
+        // its own filter excludes, the other filters narrow the scan as usual
+        SqlQueryBuilder query = filter(criteria.toBuilder()
+                .species(null)
+                .breed(null)
+                .gender(null)
+                .country(null)
+                .city(null)
+                .bornOnOrBefore(null)
+                .bornAfter(null)
+                .build());
+
+        Map<String, String> facetFilters = new LinkedHashMap<>();
+        if (criteria.getSpecies() != null) {
+            facetFilters.put("species", "f.species = LOWER(:species)");
+            query.parameter("species", criteria.getSpecies());
+        }
+        if (criteria.getBreed() != null) {
+            facetFilters.put("breed", "f.breed = LOWER(:breed)");
+            query.parameter("breed", criteria.getBreed());
+        }
+        if (criteria.getGender() != null) {
+            facetFilters.put("gender", "f.gender = LOWER(:gender)");
+            query.parameter("gender", criteria.getGender());
+        }
+        if (criteria.getCountry() != null) {
+            facetFilters.put("country", "f.country = LOWER(:country)");
+            query.parameter("country", criteria.getCountry());
+        }
+        if (criteria.getCity() != null) {
+            facetFilters.put("city", "f.city = LOWER(:city)");
+            query.parameter("city", criteria.getCity());
+        }
+        List<String> ageFilters = new ArrayList<>();
+        if (criteria.getBornOnOrBefore() != null) {
+            ageFilters.add("f.birth_date <= :bornOnOrBefore");
+            query.parameter("bornOnOrBefore", criteria.getBornOnOrBefore());
+        }
+        if (criteria.getBornAfter() != null) {
+            ageFilters.add("f.birth_date > :bornAfter");
+            query.parameter("bornAfter", criteria.getBornAfter());
+        }
+        if (!ageFilters.isEmpty()) {
+            facetFilters.put("age", String.join(" AND ", ageFilters));
+        }
+
+        // The bounds are birth dates from youngest to eldest, a pet falls in the first one it was born after
+        StringBuilder ageBucket = new StringBuilder("CASE");
+        for (int i = 0; i < ageBounds.size(); i++) {
+            ageBucket.append(" WHEN s.birth_date > :ageBound").append(i).append(" THEN ").append(i);
+            query.parameter("ageBound" + i, ageBounds.get(i));
+        }
+        ageBucket.append(" ELSE ").append(ageBounds.size()).append(" END");
+
+        StringBuilder facet = new StringBuilder("CASE");
+        StringBuilder value = new StringBuilder("CASE");
+        StringBuilder count = new StringBuilder("CASE");
+        for (String name : FACETS) {
+            String grouped = " WHEN GROUPING(f." + name + ") = 0 THEN ";
+            List<String> otherFilters = facetFilters.entrySet().stream()
+                    .filter(entry -> !entry.getKey().equals(name))
+                    .map(Map.Entry::getValue)
+                    .collect(Collectors.toList());
+            facet.append(grouped).append('\'').append(name).append('\'');
+            value.append(grouped).append("CAST(f.").append(name).append(" AS varchar)");
+            count.append(grouped).append(otherFilters.isEmpty()
+                    ? "COUNT(*)"
+                    : "COUNT(*) FILTER (WHERE " + String.join(" AND ", otherFilters) + ")");
+        }
+
+        // One pass over the matching rows, grouped once per facet
+        String sql = "SELECT " + facet + " END, " + value + " END, " + count + " END FROM ("
+                + query.toCountSql("SELECT s.species, s.breed, s.gender, s.country, s.city, s.birth_date, "
+                        + ageBucket + " AS age FROM pet_search s")
+                + ") f GROUP BY GROUPING SETS (" + FACETS.stream()
+                        .map(name -> "(f." + name + ")")
+                        .collect(Collectors.joining(", "))
+                + ")";
+        List<Object[]> rows = query.bind(entityManager.createNativeQuery(sql)).getResultList();
+
+        // Pets without a location have no city or country, and values only other filters exclude count zero
+        List<PetFacetCount> facets = new ArrayList<>();
+        for (Object[] row : rows) {
+            long rowCount = ((Number) row[2]).longValue();
+            if (row[1] != null && rowCount > 0) {
+                facets.add(new PetFacetCount((String) row[0], (String) row[1], rowCount));
+            }
+        }
+        return facets;
+    }
+
+    // Same relevance expression as the relevance sort, so the value can be carried
+    // in a keyset cursor and compared exactly on the next page
+    @Override
+    public Double findRelevance(UUID petId, String searchQuery) {
+        List<?> results = entityManager
+                .createNativeQuery("SELECT " + RELEVANCE + " FROM pet_search s WHERE s.pet_id = :petId")
+                .setParameter("petId", petId)
+                .setParameter("searchQuery", searchQuery)
+                .getResultList();
+        return !results.isEmpty() && results.get(0) != null ? ((Number) results.get(0)).doubleValue() : null;
+    }
+
+    private SqlQueryBuilder filter(PetSearchCriteria criteria) {
+        SqlQueryBuilder query = new SqlQueryBuilder();
+        if (criteria.getCandidateIds() != null) {
+            // A uuid array literal, unnested once in a sub-select instead of being cast per row
+            query.where("s.pet_id IN (SELECT UNNEST(CAST(:candidateIds AS uuid[])))",
+                    "candidateIds", toIdArray(criteria.getCandidateIds()));
+        }
+        if (criteria.isWithoutLocation()) {
+            query.where("(s.lat IS NULL OR s.lng IS NULL)");
+        }
+        // Species, breed, gender, city and country are stored lowercase
+        if (criteria.getSpecies() != null) {
+            query.where("s.species = LOWER(:species)", "species", criteria.getSpecies());
+        }
+        if (criteria.getBreed() != null) {
+            query.where("s.breed = LOWER(:breed)", "breed", criteria.getBreed());
+        }
+        if (criteria.getGender() != null) {
+            query.where("s.gender = LOWER(:gender)", "gender", criteria.getGender());
+        }
+        if (criteria.getBornOnOrBefore() != null) {
+            query.where("s.birth_date <= :bornOnOrBefore", "bornOnOrBefore", criteria.getBornOnOrBefore());
+        }
+        if (criteria.getBornAfter() != null) {
+            query.where("s.birth_date > :bornAfter", "bornAfter", criteria.getBornAfter());
+        }
+        if (criteria.getSearchQuery() != null && !criteria.getSearchQuery().isEmpty()) {
+            query.where("""
+                    (s.search_vector @@ websearch_to_tsquery('english', :searchQuery)
+                      OR LOWER(:searchQuery) <% LOWER(s.name))""", "searchQuery", criteria.getSearchQuery());
+        }
+        if (criteria.getCity() != null) {
+            query.where("s.city = LOWER(:city)", "city", criteria.getCity());
+        }
+        if (criteria.getCountry() != null) {
+            query.where("s.country = LOWER(:country)", "country", criteria.getCountry());
+        }
+        return query;
+    }
+
+    private void orderAndSeek(SqlQueryBuilder query, String sortBy, PageCursor cursor) {
+        switch (sortBy) {
+            case "oldest" -> orderAndSeek(query, "s.created_at", "timestamptz", true, cursor);
+            case "youngest" -> orderAndSeek(query, "s.birth_date", "date", false, cursor);
+            case "eldest" -> orderAndSeek(query, "s.birth_date", "date", true, cursor);
+            case "name_asc" -> orderAndSeek(query, "s.name", "text", true, cursor);
+            case "name_desc" -> orderAndSeek(query, "s.name", "text", false, cursor);
+            case "relevance" -> orderAndSeek(query, RELEVANCE, "double precision", false, cursor);
+            case "distance" -> {
+                // Distance ordering comes from PetLocationIndex, so this only pages
+                // the pets without a location that are listed after every located pet
+                query.orderBy("s.pet_id DESC");
+                if (cursor != null) {
+                    query.where("s.pet_id < CAST(:cursorId AS uuid)", "cursorId", cursor.id().toString());
+                }
+            }
+            default -> orderAndSeek(query, "s.created_at", "timestamptz", false, cursor);
+        }
+    }
+
+    private void orderAndSeek(SqlQueryBuilder query, String sortKey, String keyType, boolean ascending,
+            PageCursor cursor) {
+        String direction = ascending ? "ASC" : "DESC";
+        query.orderBy(sortKey + " " + direction + ", s.pet_id " + direction);
+        if (cursor != null) {
+            query.where("(" + sortKey + ", s.pet_id) " + (ascending ? ">" : "<")
+                    + " (CAST(:cursorKey AS " + keyType + "), CAST(:cursorId AS uuid))")
+                    .parameter("cursorKey", cursor.key())
+                    .parameter("cursorId", cursor.id().toString());
+        }
+    }
+
+    private static String toIdArray(List<UUID> ids) {
+        return ids.stream()
+                .map(UUID::toString)
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package org.petconnect.backend.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.petconnect.backend.util.PageCursor;
+
+import lombok.Builder;
+import lombok.Data;
+
+// Filters, ordering and keyset position for a pet_search query. Unset fields add
+// no predicate, and a null sortBy leaves the rows unordered.
+@Data
+@Builder(toBuilder = true)
+public class PetSearchCriteria {
+    private String species;
+    private String breed;
+    private String gender;
+    private LocalDate bornOnOrBefore;
+    private LocalDate bornAfter;
+    private String searchQuery;
+    private String city;
+    private String country;
+    private List<UUID> candidateIds;
+    private boolean withoutLocation;
+    private String sortBy;
+    private PageCursor cursor;
+    private int limit;
+}
@@ -0,0 +1,90 @@
+package org.petconnect.backend.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.petconnect.backend.model.PetSearch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PetSearchRepository extends JpaRepository<PetSearch, UUID> {
+
+    interface PetLocation {
+        UUID getPetId();
+
+        Double getLat();
+
+        Double getLng();
+    }
+
+    @Query("SELECT ps.petId AS petId, ps.lat AS lat, ps.lng AS lng FROM PetSearch ps")
+    List<PetLocation> findAllLocations();
+
+    @Query("SELECT ps.petId AS petId, ps.lat AS lat, ps.lng AS lng FROM PetSearch ps WHERE ps.petId = :petId")
+    List<PetLocation> findLocationsByPetId(@Param("petId") UUID petId);
+
+    @Query("SELECT ps.petId AS petId, ps.lat AS lat, ps.lng AS lng FROM PetSearch ps WHERE ps.petId IN :petIds")
+    List<PetLocation> findLocationsByPetIds(@Param("petIds") Collection<UUID> petIds);
+
+    @Query("SELECT ps.petId AS petId, ps.lat AS lat, ps.lng AS lng FROM PetSearch ps WHERE ps.shelterId = :shelterId")
+    List<PetLocation> findLocationsByShelterId(@Param("shelterId") UUID shelterId);
+
+    // Rebuilds the rows of the given pet, the pets of the given shelter, or every
+    // pet when both are null. A pet address takes precedence over the shelter address.
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO pet_search (pet_id, name, description, species, breed, gender, birth_date, created_at,
+                owner_id, shelter_id, shelter_name, city, country, lat, lng, primary_image_key)
+            SELECT p.id, p.name, p.description, LOWER(p.species), LOWER(p.breed), LOWER(p.gender),
+                p.birth_date, p.created_at, p.created_by_user_id, p.shelter_id, s.name,
+                LOWER(a.city), LOWER(a.country), a.lat, a.lng,
+                (SELECT i.key FROM pet_image pi
+                 JOIN image i ON i.id = pi.image_id
+                 WHERE pi.pet_id = p.id
+                 ORDER BY pi.is_primary DESC, pi.created_at ASC
+                 LIMIT 1)
+            FROM pet p
+            LEFT JOIN shelter s ON s.id = p.shelter_id
+            LEFT JOIN pet_address pa ON pa.pet_id = p.id
+            LEFT JOIN shelter_address sa ON sa.shelter_id = p.shelter_id AND pa.id IS NULL
+            LEFT JOIN address a ON a.id = COALESCE(pa.address_id, sa.address_id)
+            WHERE p.status = 'AVAILABLE'
+            AND (CAST(:petId AS uuid) IS NULL OR p.id = CAST(:petId AS uuid))
+            AND (CAST(:shelterId AS uuid) IS NULL OR p.shelter_id = CAST(:shelterId AS uuid))
+            ON CONFLICT (pet_id) DO UPDATE SET
+                name = EXCLUDED.name,
+                description = EXCLUDED.description,
+                species = EXCLUDED.species,
+                breed = EXCLUDED.breed,
+                gender = EXCLUDED.gender,
+                birth_date = EXCLUDED.birth_date,
+                created_at = EXCLUDED.created_at,
+                owner_id = EXCLUDED.owner_id,
+                shelter_id = EXCLUDED.shelter_id,
+                shelter_name = EXCLUDED.shelter_name,
+                city = EXCLUDED.city,
+                country = EXCLUDED.country,
+                lat = EXCLUDED.lat,
+                lng = EXCLUDED.lng,
+                primary_image_key = EXCLUDED.primary_image_key
+            """, nativeQuery = true)
+    int upsertAvailablePets(@Param("petId") String petId, @Param("shelterId") String shelterId);
+
+    // Removes rows whose pet was deleted or is no longer AVAILABLE
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            DELETE FROM pet_search ps
+            WHERE (CAST(:petId AS uuid) IS NULL OR ps.pet_id = CAST(:petId AS uuid))
+            AND (CAST(:shelterId AS uuid) IS NULL OR ps.shelter_id = CAST(:shelterId AS uuid))
+            AND NOT EXISTS (
+                SELECT 1 FROM pet p
+                WHERE p.id = ps.pet_id AND p.status = 'AVAILABLE'
+            )
+            """, nativeQuery = true)
+    int deleteUnavailablePets(@Param("petId") String petId, @Param("shelterId") String shelterId);
+}
\ No newline at end of file
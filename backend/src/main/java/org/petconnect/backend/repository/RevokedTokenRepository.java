@@ -0,0 +1,51 @@
+package org.petconnect.backend.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.petconnect.backend.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, UUID> {
+
+    interface Revocation {
+        UUID getTokenId();
+
+        Instant getRevokedAt();
+    }
+
+    // Returns 0 when the token was already revoked, which tells a reused refresh token apart
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            INSERT INTO revoked_token (token_id, expires_at)
+            VALUES (:tokenId, :expiresAt)
+            ON CONFLICT (token_id) DO NOTHING
+            """)
+    int revoke(@Param("tokenId") UUID tokenId, @Param("expiresAt") Instant expiresAt);
+
+    // The change feed the nodes follow
+    @Query("SELECT r.tokenId AS tokenId, r.revokedAt AS revokedAt FROM RevokedToken r "
+            + "WHERE r.revokedAt > :since ORDER BY r.revokedAt")
+    List<Revocation> findRevokedSince(@Param("since") Instant since);
+
+    // Null while nothing is revoked
+    @Query("SELECT MAX(r.revokedAt) FROM RevokedToken r")
+    Instant findLastRevokedAt();
+
+    // The whole list, only the ids are read
+    @Query("SELECT r.tokenId FROM RevokedToken r")
+    List<UUID> findAllTokenIds();
+
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "DELETE FROM revoked_token WHERE expires_at <= now()")
+    int deleteExpired();
+}
\ No newline at end of file
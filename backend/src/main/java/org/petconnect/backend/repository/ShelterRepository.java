@@ -11,101 +11,22 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ShelterRepository extends JpaRepository<Shelter, UUID> {
+public interface ShelterRepository extends JpaRepository<Shelter, UUID>, ShelterRepositoryCustom {
 
     @Query(value = """
-            WITH shelter_distances AS (
-                SELECT s.*,
-                CASE
-                    WHEN :lat IS NOT NULL AND :lng IS NOT NULL THEN
-                        earth_distance(
-                            ll_to_earth(:lat, :lng),
-                            ll_to_earth(
-                                (SELECT a.lat FROM address a
-                                 JOIN shelter_address sa ON sa.address_id = a.id
-                                 WHERE sa.shelter_id = s.id),
-                                (SELECT a.lng FROM address a
-                                 JOIN shelter_address sa ON sa.address_id = a.id
-                                 WHERE sa.shelter_id = s.id)
-                            )
-                        ) / 1609.34  -- Convert meters to miles
-                    ELSE NULL
-                END as distance_miles
-            FROM shelter s)
-            SELECT * FROM shelter_distances s
-            WHERE (:searchQuery IS NULL OR
-                  LOWER(s.name) LIKE LOWER(CONCAT('%', :searchQuery, '%')) OR
-                  LOWER(CAST(s.description AS TEXT)) LIKE LOWER(CONCAT('%', :searchQuery, '%')))
-            AND (:city IS NULL OR EXISTS (
-                SELECT 1 FROM address a
-                JOIN shelter_address sa ON sa.address_id = a.id
-                WHERE sa.shelter_id = s.id AND LOWER(a.city) = LOWER(:city)
-            ))
-            AND (:country IS NULL OR EXISTS (
-                SELECT 1 FROM address a
-                JOIN shelter_address sa ON sa.address_id = a.id
-                WHERE sa.shelter_id = s.id AND LOWER(a.country) = LOWER(:country)
-            ))
-            ORDER BY
-            CASE
-                WHEN COALESCE(:sortBy, 'newest') = 'newest' THEN s.created_at
-            END DESC NULLS LAST,
-            CASE
-                WHEN :sortBy = 'oldest' THEN s.created_at
-            END ASC NULLS LAST,
-            CASE
-                WHEN :sortBy = 'name_asc' THEN s.name
-            END ASC NULLS LAST,
-            CASE
-                WHEN :sortBy = 'name_desc' THEN s.name
-            END DESC NULLS LAST,
-            CASE
-                WHEN :sortBy = 'distance' AND :lat IS NOT NULL AND :lng IS NOT NULL THEN distance_miles
-            END ASC NULLS LAST,
-            s.id DESC
-            LIMIT :limit OFFSET :offset
-            """, nativeQuery = true)
-    List<Shelter> findSheltersByFilters(
-            @Param("searchQuery") String searchQuery,
-            @Param("sortBy") String sortBy,
-            @Param("lat") Double lat,
-            @Param("lng") Double lng,
-            @Param("city") String city,
-            @Param("country") String country,
-            @Param("limit") int limit,
-            @Param("offset") int offset);
-
-    @Query(value = """
-            SELECT COUNT(*) FROM shelter s
-            WHERE (:searchQuery IS NULL OR
-                   LOWER(s.name) LIKE LOWER(CONCAT('%', :searchQuery, '%')) OR
-                   LOWER(CAST(s.description AS TEXT)) LIKE LOWER(CONCAT('%', :searchQuery, '%')))
-            AND (:city IS NULL OR EXISTS (
-                SELECT 1 FROM address a
-                JOIN shelter_address sa ON sa.address_id = a.id
-                WHERE sa.shelter_id = s.id AND LOWER(a.city) = LOWER(:city)
-            ))
-            AND (:country IS NULL OR EXISTS (
-                SELECT 1 FROM address a
-                JOIN shelter_address sa ON sa.address_id = a.id
-                WHERE sa.shelter_id = s.id AND LOWER(a.country) = LOWER(:country)
-            ))
-            """, nativeQuery = true)
-    long countSheltersByFilters(
-            @Param("searchQuery") String searchQuery,
-            @Param("city") String city,
-            @Param("country") String country);
-
-    @Query(value = """
-            SELECT * FROM shelter s
+            SELECT s.id FROM shelter s
             WHERE s.owner_id = :ownerId
-            ORDER BY s.created_at DESC
-            LIMIT :limit OFFSET :offset
+            AND (CAST(:cursorId AS uuid) IS NULL
+              OR s.created_at < CAST(:cursorTime AS timestamptz)
+              OR (s.created_at = CAST(:cursorTime AS timestamptz) AND s.id < CAST(:cursorId AS uuid)))
+            ORDER BY s.created_at DESC, s.id DESC
+            LIMIT :limit
             """, nativeQuery = true)
-    List<Shelter> findByOwnerIdOrderByCreatedAtDesc(
+    List<UUID> findIdsByOwnerIdWithPagination(
             @Param("ownerId") UUID ownerId,
-            @Param("limit") int limit,
-            @Param("offset") int offset);
+            @Param("cursorTime") String cursorTime,
+            @Param("cursorId") String cursorId,
+            @Param("limit") int limit);
 
     @Query("SELECT COUNT(s) FROM Shelter s WHERE s.ownerId = :ownerId")
     long countByOwnerId(@Param("ownerId") UUID ownerId);
@@ -0,0 +1,21 @@
+package org.petconnect.backend.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.petconnect.backend.model.Shelter;
+
+public interface ShelterRepositoryCustom {
+
+    List<Shelter> findShelters(ShelterSearchCriteria criteria);
+
+    List<Shelter> findAllWithDetails(List<UUID> shelterIds);
+
+    long countShelters(ShelterSearchCriteria criteria);
+
+    long estimateShelters(ShelterSearchCriteria criteria);
+
+    Double findDistanceMiles(UUID shelterId, double lat, double lng);
+
+    Double findRelevance(UUID shelterId, String searchQuery);
+}
@@ -0,0 +1,178 @@
+package org.petconnect.backend.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.petconnect.backend.model.Shelter;
+import org.petconnect.backend.util.PageCursor;
+import org.petconnect.backend.util.PaginationUtil;
+import org.petconnect.backend.util.SqlQueryBuilder;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Shelter browsing queries. Only the filters that are set become predicates and
+ * each sort emits a single ORDER BY, with the distance only computed when it is
+ * the requested sort.
+ */
+@RequiredArgsConstructor
+public class ShelterRepositoryImpl implements ShelterRepositoryCustom {
+
+    private static final String RELEVANCE = """
+            CAST(ts_rank_cd(s.search_vector, websearch_to_tsquery('english', :searchQuery))
+                + word_similarity(LOWER(:searchQuery), LOWER(s.name)) AS double precision)""";
+
+    private static final String DISTANCE_MILES = """
+            (earth_distance(
+                ll_to_earth(:lat, :lng),
+                ll_to_earth(
+                    (SELECT a.lat FROM address a
+                     JOIN shelter_address sa ON sa.address_id = a.id
+                     WHERE sa.shelter_id = s.id),
+                    (SELECT a.lng FROM address a
+                     JOIN shelter_address sa ON sa.address_id = a.id
+                     WHERE sa.shelter_id = s.id)
+                )
+            ) / 1609.34)""";
+
+    // Everything ShelterDTO reads in one statement, including the mappedBy address that
+    // would otherwise be loaded one row at a time
+    private static final String SHELTER_DETAILS = """
+            SELECT s FROM Shelter s
+            LEFT JOIN FETCH s.shelterAddress sa
+            LEFT JOIN FETCH sa.address
+            LEFT JOIN FETCH s.avatarImage ai
+            LEFT JOIN FETCH ai.image
+            LEFT JOIN FETCH s.owner
+            WHERE s.id IN :ids""";
+
+    private final EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Shelter> findShelters(ShelterSearchCriteria criteria) {
+        SqlQueryBuilder query = filter(criteria);
+        orderAndSeek(query, criteria);
+        query.limit(criteria.getLimit());
+
+        // Only the ids of the page are selected here, the shelters are loaded with their details at once
+        List<UUID> shelterIds = query.createQuery(entityManager, "SELECT s.id FROM shelter s").getResultList();
+        return findAllWithDetails(shelterIds);
+    }
+
+    @Override
+    public List<Shelter> findAllWithDetails(List<UUID> shelterIds) {
+        return PaginationUtil.loadInOrder(shelterIds, ids -> entityManager.createQuery(SHELTER_DETAILS, Shelter.class)
+                .setParameter("ids", ids)
+                .getResultList(), Shelter::getId);
+    }
+
+    @Override
+    public long countShelters(ShelterSearchCriteria criteria) {
+        Number count = (Number) filter(criteria)
+                .createCountQuery(entityManager, "SELECT COUNT(*) FROM shelter s")
+                .getSingleResult();
+        return count.longValue();
+    }
+
+    @Override
+    public long estimateShelters(ShelterSearchCriteria criteria) {
+        return filter(criteria).estimateRows(entityManager, "SELECT 1 FROM shelter s");
+    }
+
+    // Same distance expression as the distance sort, so the value can be carried
+    // in a keyset cursor and compared exactly on the next page
+    @Override
+    public Double findDistanceMiles(UUID shelterId, double lat, double lng) {
+        return singleDouble(entityManager
+                .createNativeQuery("SELECT " + DISTANCE_MILES + " FROM shelter s WHERE s.id = :shelterId")
+                .setParameter("shelterId", shelterId)
+                .setParameter("lat", lat)
+                .setParameter("lng", lng));
+    }
+
+    // Same relevance expression as the relevance sort, for the same reason
+    @Override
+    public Double findRelevance(UUID shelterId, String searchQuery) {
+        return singleDouble(entityManager
+                .createNativeQuery("SELECT " + RELEVANCE + " FROM shelter s WHERE s.id = :shelterId")
+                .setParameter("shelterId", shelterId)
+                .setParameter("searchQuery", searchQuery));
+    }
+
+    private SqlQueryBuilder filter(ShelterSearchCriteria criteria) {
+        SqlQueryBuilder query = new SqlQueryBuilder();
+        if (criteria.getSearchQuery() != null && !criteria.getSearchQuery().isEmpty()) {
+            query.where("""
+                    (s.search_vector @@ websearch_to_tsquery('english', :searchQuery)
+                      OR LOWER(:searchQuery) <% LOWER(s.name))""", "searchQuery", criteria.getSearchQuery());
+        }
+        if (criteria.getCity() != null) {
+            query.where("""
+                    EXISTS (
+                        SELECT 1 FROM address a
+                        JOIN shelter_address sa ON sa.address_id = a.id
+                        WHERE sa.shelter_id = s.id AND LOWER(a.city) = LOWER(:city))""",
+                    "city", criteria.getCity());
+        }
+        if (criteria.getCountry() != null) {
+            query.where("""
+                    EXISTS (
+                        SELECT 1 FROM address a
+                        JOIN shelter_address sa ON sa.address_id = a.id
+                        WHERE sa.shelter_id = s.id AND LOWER(a.country) = LOWER(:country))""",
+                    "country", criteria.getCountry());
+        }
+        return query;
+    }
+
+    private void orderAndSeek(SqlQueryBuilder query, ShelterSearchCriteria criteria) {
+        PageCursor cursor = criteria.getCursor();
+        String sortBy = criteria.getSortBy() != null ? criteria.getSortBy() : "newest";
+        switch (sortBy) {
+            case "oldest" -> orderAndSeek(query, "s.created_at", "timestamptz", true, cursor);
+            case "name_asc" -> orderAndSeek(query, "s.name", "text", true, cursor);
+            case "name_desc" -> orderAndSeek(query, "s.name", "text", false, cursor);
+            case "relevance" -> orderAndSeek(query, RELEVANCE, "double precision", false, cursor);
+            case "distance" -> {
+                // Shelters without an address have no distance and are listed last
+                query.parameter("lat", criteria.getLat())
+                        .parameter("lng", criteria.getLng())
+                        .orderBy(DISTANCE_MILES + " ASC NULLS LAST, s.id DESC");
+                if (cursor != null && cursor.key() != null) {
+                    query.where("(" + DISTANCE_MILES + " > CAST(:cursorKey AS double precision)"
+                            + " OR (" + DISTANCE_MILES + " = CAST(:cursorKey AS double precision)"
+                            + " AND s.id < CAST(:cursorId AS uuid))"
+                            + " OR " + DISTANCE_MILES + " IS NULL)")
+                            .parameter("cursorKey", cursor.key())
+                            .parameter("cursorId", cursor.id().toString());
+                } else if (cursor != null) {
+                    query.where(DISTANCE_MILES + " IS NULL AND s.id < CAST(:cursorId AS uuid)",
+                            "cursorId", cursor.id().toString());
+                }
+            }
+            default -> orderAndSeek(query, "s.created_at", "timestamptz", false, cursor);
+        }
+    }
+
+    private void orderAndSeek(SqlQueryBuilder query, String sortKey, String keyType, boolean ascending,
+            PageCursor cursor) {
+        // The tie-breaker follows the sort direction so the seek is a single row comparison
+        String direction = ascending ? "ASC" : "DESC";
+        query.orderBy(sortKey + " " + direction + ", s.id " + direction);
+        if (cursor != null) {
+            query.where("(" + sortKey + ", s.id) " + (ascending ? ">" : "<")
+                    + " (CAST(:cursorKey AS " + keyType + "), CAST(:cursorId AS uuid))")
+                    .parameter("cursorKey", cursor.key())
+                    .parameter("cursorId", cursor.id().toString());
+        }
+    }
+
+    private static Double singleDouble(Query query) {
+        // The value itself is null for a shelter without an address
+        List<?> results = query.getResultList();
+        return !results.isEmpty() && results.get(0) != null ? ((Number) results.get(0)).doubleValue() : null;
+    }
+}
\ No newline at end of file
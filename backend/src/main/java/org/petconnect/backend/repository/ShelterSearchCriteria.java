@@ -0,0 +1,20 @@
+package org.petconnect.backend.repository;
+
+import org.petconnect.backend.util.PageCursor;
+
+import lombok.Builder;
+import lombok.Data;
+
+// Filters, ordering and keyset position for a shelter query. Unset fields add no predicate.
+@Data
+@Builder(toBuilder = true)
+public class ShelterSearchCriteria {
+    private String searchQuery;
+    private String city;
+    private String country;
+    private Double lat;
+    private Double lng;
+    private String sortBy;
+    private PageCursor cursor;
+    private int limit;
+}
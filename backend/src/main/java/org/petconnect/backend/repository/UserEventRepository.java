@@ -0,0 +1,52 @@
+package org.petconnect.backend.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.petconnect.backend.model.UserEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface UserEventRepository extends JpaRepository<UserEvent, UserEvent.UserEventId> {
+
+    // Takes the user's next sequences and records a JSON array of {type, payload} events under them,
+    // in array order, in one statement. The sequence row stays locked until the transaction ends,
+    // so a user's events are numbered in commit order
+    @Query(nativeQuery = true, value = """
+            WITH next AS (
+                INSERT INTO user_event_sequence (user_id, last_sequence)
+                VALUES (:userId, jsonb_array_length(CAST(:events AS jsonb)))
+                ON CONFLICT (user_id) DO UPDATE SET last_sequence = user_event_sequence.last_sequence + EXCLUDED.last_sequence
+                RETURNING last_sequence
+            )
+            INSERT INTO user_event (user_id, sequence, type, payload)
+            SELECT :userId, next.last_sequence - jsonb_array_length(CAST(:events AS jsonb)) + e.position,
+                e.event ->> 'type', e.event -> 'payload'
+            FROM next, jsonb_array_elements(CAST(:events AS jsonb)) WITH ORDINALITY AS e(event, position)
+            RETURNING sequence
+            """)
+    @Transactional
+    List<Long> appendAll(@Param("userId") UUID userId, @Param("events") String events);
+
+    @Query(nativeQuery = true, value = "SELECT last_sequence FROM user_event_sequence WHERE user_id = :userId")
+    Optional<Long> findLastSequence(@Param("userId") UUID userId);
+
+    @Query(nativeQuery = true, value = """
+            SELECT * FROM user_event
+            WHERE user_id = :userId AND sequence > :after
+            ORDER BY sequence
+            LIMIT :limit
+            """)
+    List<UserEvent> findAfter(@Param("userId") UUID userId, @Param("after") long after, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "DELETE FROM user_event WHERE created_at < now() - make_interval(days => :days)")
+    int deleteOlderThanDays(@Param("days") int days);
+}
\ No newline at end of file
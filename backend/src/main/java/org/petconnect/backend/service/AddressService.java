@@ -1,8 +1,5 @@
 package org.petconnect.backend.service;
 
-import java.util.List;
-
-import org.petconnect.backend.repository.AddressRepository;
 import org.springframework.stereotype.Service;
 
 import lombok.RequiredArgsConstructor;
@@ -11,13 +8,13 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class AddressService {
 
-    private final AddressRepository addressRepository;
+    private final ReferenceDataService referenceDataService;
 
-    public List<String> getCitiesByCountry(String country) {
-        return addressRepository.findDistinctCitiesByCountry(country);
+    public ReferenceDataService.ReferenceList getCitiesByCountry(String country) {
+        return referenceDataService.getCities(country);
     }
 
-    public List<String> getAllCountries() {
-        return addressRepository.findDistinctCountries();
+    public ReferenceDataService.ReferenceList getAllCountries() {
+        return referenceDataService.getCountries();
     }
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package org.petconnect.backend.service;
 
+import java.util.function.Function;
+
 import org.petconnect.backend.dto.auth.AuthResponse;
 import org.petconnect.backend.dto.auth.LoginRequest;
+import org.petconnect.backend.dto.auth.RefreshTokenRequest;
 import org.petconnect.backend.dto.auth.RegisterRequest;
 import org.petconnect.backend.exception.ResourceNotFoundException;
 import org.petconnect.backend.model.User;
@@ -11,6 +14,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -19,9 +23,13 @@ public class AuthenticationService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    private final LoginRateLimiter loginRateLimiter;
     private final AuthenticationManager authenticationManager;
 
-    public AuthResponse register(RegisterRequest request) {
+    public AuthResponse register(RegisterRequest request, String clientIp) {
+        loginRateLimiter.acquireIp(clientIp);
+
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new IllegalArgumentException("Email already exists");
         }
@@ -37,21 +45,15 @@ public class AuthenticationService {
                 .passwordHash(passwordEncoder.encode(request.getPassword()))
                 .build();
 
-        userRepository.save(user);
-
-        var jwtToken = jwtService.generateToken(
-                org.springframework.security.core.userdetails.User.builder()
-                        .username(user.getEmail())
-                        .password(user.getPasswordHash())
-                        .roles("USER")
-                        .build());
+        user = userRepository.save(user);
 
-        return AuthResponse.builder()
-                .token(jwtToken)
-                .build();
+        return issueTokens(user);
     }
 
-    public AuthResponse login(LoginRequest request) {
+    public AuthResponse login(LoginRequest request, String clientIp) {
+        // Refused before the password is hashed, so a burst costs no hashing
+        loginRateLimiter.acquireLogin(clientIp, request.getEmail());
+
         authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getEmail(),
@@ -60,15 +62,46 @@ public class AuthenticationService {
         var user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new ResourceNotFoundException("User", "email", request.getEmail()));
 
-        var jwtToken = jwtService.generateToken(
-                org.springframework.security.core.userdetails.User.builder()
-                        .username(user.getEmail())
-                        .password(user.getPasswordHash())
-                        .roles("USER")
-                        .build());
+        return issueTokens(user);
+    }
+
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        var refreshToken = jwtService.verifyRefreshToken(request.getRefreshToken());
+
+        // Refresh tokens are used once, a second use means the token was copied
+        if (!tokenRevocationService.revoke(refreshToken.tokenId(), refreshToken.expiresAt())) {
+            throw new JwtException("JWT token has been revoked");
+        }
+
+        var user = userRepository.findById(refreshToken.userId())
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", refreshToken.userId()));
+
+        return issueTokens(user);
+    }
+
+    public void logout(String accessToken, String refreshToken) {
+        // Tokens that are already invalid need no revoking
+        revokeQuietly(accessToken, jwtService::verify);
+        revokeQuietly(refreshToken, jwtService::verifyRefreshToken);
+    }
+
+    private void revokeQuietly(String token, Function<String, JwtService.VerifiedToken> verifier) {
+        if (token == null || token.isBlank()) {
+            return;
+        }
+        try {
+            var verified = verifier.apply(token);
+            tokenRevocationService.revoke(verified.tokenId(), verified.expiresAt());
+        } catch (JwtException e) {
+            // Expired, malformed or revoked before
+        }
+    }
 
+    private AuthResponse issueTokens(User user) {
         return AuthResponse.builder()
-                .token(jwtToken)
+                .token(jwtService.generateToken(user))
+                .refreshToken(jwtService.generateRefreshToken(user))
+                .expiresIn(jwtService.getAccessTokenExpirationMs() / 1000)
                 .build();
     }
 }
\ No newline at end of file
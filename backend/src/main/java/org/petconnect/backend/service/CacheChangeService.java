@@ -0,0 +1,113 @@
+package org.petconnect.backend.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.petconnect.backend.model.CacheChange;
+import org.petconnect.backend.repository.CacheChangeRepository;
+import org.petconnect.backend.repository.PetSearchRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the in-memory caches of every node in step with writes made on the others.
+ * A write saves what it changed to the cache_change table in its own transaction,
+ * and each node polls the table for rows changed since the last poll. Changed pets are
+ * read again from pet_search into the location index and a reference data change reloads
+ * the lists. The writing node also reads its own rows, which only repeats what its
+ * after-commit update already did.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CacheChangeService {
+
+    private static final long POLL_INTERVAL_MS = 1000;
+
+    // A change committed late can carry an older changed_at than rows already read
+    private static final Duration FEED_OVERLAP = Duration.ofSeconds(10);
+
+    // A node that was down longer loads its caches from scratch when it starts
+    private static final Duration RETENTION = Duration.ofHours(1);
+
+    private final CacheChangeRepository cacheChangeRepository;
+    private final PetSearchRepository petSearchRepository;
+    private final PetLocationIndex petLocationIndex;
+    private final ReferenceDataService referenceDataService;
+
+    private Instant lastChangedAt = Instant.EPOCH;
+
+    // Rows read inside the overlap, so they are not applied twice
+    private final Map<Long, Instant> applied = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        // Earlier changes are in the caches loaded at startup
+        Instant last = cacheChangeRepository.findLastChangedAt();
+        lastChangedAt = last != null ? last : Instant.EPOCH;
+    }
+
+    @Scheduled(fixedDelay = POLL_INTERVAL_MS)
+    public synchronized void pollChanges() {
+        try {
+            Set<UUID> petIds = new HashSet<>();
+            boolean allPets = false;
+            boolean referenceData = false;
+            List<CacheChange> read = new ArrayList<>();
+            for (CacheChange change : cacheChangeRepository.findChangedSince(lastChangedAt.minus(FEED_OVERLAP))) {
+                if (applied.containsKey(change.getId())) {
+                    continue;
+                }
+                if (change.getCache() == CacheChange.Cache.REFERENCE_DATA) {
+                    referenceData = true;
+                } else if (change.getPetId() == null) {
+                    allPets = true;
+                } else {
+                    petIds.add(change.getPetId());
+                }
+                read.add(change);
+            }
+
+            // Several changes read at once cost a single refresh
+            if (allPets) {
+                petLocationIndex.replaceAll(petSearchRepository.findAllLocations());
+            } else if (!petIds.isEmpty()) {
+                petLocationIndex.update(petIds, petSearchRepository.findLocationsByPetIds(petIds));
+            }
+            if (referenceData) {
+                referenceDataService.load();
+            }
+
+            // Only once applied, a failed refresh is retried on the next poll
+            for (CacheChange change : read) {
+                applied.put(change.getId(), change.getChangedAt());
+                if (change.getChangedAt().isAfter(lastChangedAt)) {
+                    lastChangedAt = change.getChangedAt();
+                }
+            }
+            Instant horizon = lastChangedAt.minus(FEED_OVERLAP);
+            applied.values().removeIf(changedAt -> !changedAt.isAfter(horizon));
+        } catch (RuntimeException e) {
+            log.warn("Reading cache changes failed, retrying on the next poll", e);
+        }
+    }
+
+    @Scheduled(cron = "0 45 * * * *")
+    public void purgeOldChanges() {
+        int purged = cacheChangeRepository.deleteChangedBefore(Instant.now().minus(RETENTION));
+        if (purged > 0) {
+            log.debug("Purged {} cache changes", purged);
+        }
+    }
+}
@@ -1,19 +1,17 @@
 package org.petconnect.backend.service;
 
-import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.petconnect.backend.dto.favorite.FavoritesResponse;
 import org.petconnect.backend.dto.pet.PetDTO;
-import org.petconnect.backend.dto.user.UserDTO;
 import org.petconnect.backend.exception.ResourceNotFoundException;
 import org.petconnect.backend.model.Favorite;
 import org.petconnect.backend.repository.FavoriteRepository;
 import org.petconnect.backend.repository.PetRepository;
+import org.petconnect.backend.util.PageCursor;
 import org.petconnect.backend.util.PaginationUtil;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,57 +22,45 @@ import lombok.RequiredArgsConstructor;
 public class FavoriteService {
     private final FavoriteRepository favoriteRepository;
     private final PetRepository petRepository;
-    private final UserService userService;
-
-    @SuppressWarnings("UseSpecificCatch")
-    public FavoritesResponse getFavoritePets(String cursor, Integer limit) {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserDTO currentUser = userService.getUser(userEmail);
 
+    public FavoritesResponse getFavoritePets(UUID userId, String cursor, Integer limit, boolean includeTotal) {
         // Default limit if not provided
         if (limit == null) {
             limit = 12;
         }
 
-        // Calculate offset from cursor if provided
-        int offset = 0;
-        if (cursor != null) {
-            try {
-                offset = Integer.parseInt(new String(Base64.getDecoder().decode(cursor)));
-            } catch (Exception e) {
-                // Invalid cursor format, start from beginning
-                offset = 0;
-            }
-        }
+        // Decode the keyset cursor if provided
+        PageCursor pageCursor = PageCursor.decode(cursor, "newest");
 
         // Process limit - if limit is 0, return all data
         limit = PaginationUtil.processLimit(limit);
 
-        // Get total count of favorites
-        long totalCount = favoriteRepository.countByUserId(currentUser.getId());
+        // Get total count of favorites only when the caller wants it
+        Long totalCount = includeTotal ? favoriteRepository.countByUserId(userId) : null;
 
         // Get the limit to use for the query
         int queryLimit = PaginationUtil.getQueryLimit(limit);
 
         // Get paginated favorites
         List<Favorite> favorites = favoriteRepository.findByUserIdWithPagination(
-                currentUser.getId(),
-                offset,
+                userId,
+                PageCursor.keyOf(pageCursor),
+                PageCursor.idOf(pageCursor),
                 queryLimit);
 
         // Process results
         PaginationUtil.PaginationResult<Favorite> result = PaginationUtil.processResults(favorites, limit);
 
-        // Convert to DTOs
-        List<PetDTO> petDTOs = result.getResults().stream()
-                .map(favorite -> PetDTO.fromEntity(favorite.getPet()))
+        // Load the favorited pets with their details at once and convert to DTOs
+        List<PetDTO> petDTOs = petRepository.findAllWithDetails(result.getResults().stream()
+                .map(Favorite::getPetId)
+                .collect(Collectors.toList())).stream()
+                .map(PetDTO::fromEntity)
                 .collect(Collectors.toList());
 
-        // Create next cursor if we have more results
-        String nextCursor = null;
-        if (result.hasMore()) {
-            nextCursor = Base64.getEncoder().encodeToString(String.valueOf(offset + limit).getBytes());
-        }
+        // Create next cursor from the last row if we have more results
+        String nextCursor = PageCursor.nextCursor(result, "newest",
+                favorite -> PageCursor.timestampKey(favorite.getCreatedAt()), Favorite::getPetId);
 
         return FavoritesResponse.builder()
                 .pets(petDTOs)
@@ -85,23 +71,20 @@ public class FavoriteService {
     }
 
     @Transactional
-    public void addFavorite(UUID petId) {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserDTO currentUser = userService.getUser(userEmail);
-
+    public void addFavorite(UUID userId, UUID petId) {
         // Check if pet exists
         petRepository.findById(petId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pet", "id", petId));
 
         // Check if already favorited
-        Favorite.FavoriteId favoriteId = new Favorite.FavoriteId(currentUser.getId(), petId);
+        Favorite.FavoriteId favoriteId = new Favorite.FavoriteId(userId, petId);
         if (favoriteRepository.existsById(favoriteId)) {
             throw new IllegalArgumentException("Pet is already favorited");
         }
 
         // Create new favorite
         Favorite favorite = Favorite.builder()
-                .userId(currentUser.getId())
+                .userId(userId)
                 .petId(petId)
                 .build();
 
@@ -109,11 +92,8 @@ public class FavoriteService {
     }
 
     @Transactional
-    public void removeFavorite(UUID petId) {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserDTO currentUser = userService.getUser(userEmail);
-
-        Favorite.FavoriteId favoriteId = new Favorite.FavoriteId(currentUser.getId(), petId);
+    public void removeFavorite(UUID userId, UUID petId) {
+        Favorite.FavoriteId favoriteId = new Favorite.FavoriteId(userId, petId);
         if (!favoriteRepository.existsById(favoriteId)) {
             throw new IllegalArgumentException("Pet is not favorited");
         }
@@ -121,16 +101,13 @@ public class FavoriteService {
         favoriteRepository.deleteById(favoriteId);
     }
 
-    public boolean isPetFavorited(UUID petId) {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserDTO currentUser = userService.getUser(userEmail);
-
+    public boolean isPetFavorited(UUID userId, UUID petId) {
         // Check if pet exists
         if (!petRepository.existsById(petId)) {
             throw new ResourceNotFoundException("Pet", "id", petId);
         }
 
-        Favorite.FavoriteId favoriteId = new Favorite.FavoriteId(currentUser.getId(), petId);
+        Favorite.FavoriteId favoriteId = new Favorite.FavoriteId(userId, petId);
         return favoriteRepository.existsById(favoriteId);
     }
 }
\ No newline at end of file
@@ -1,78 +1,205 @@
 package org.petconnect.backend.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.petconnect.backend.config.helper.YamlConfig;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.petconnect.backend.model.User;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Issues and verifies the JWTs that authenticate requests. The signing key and
+ * parser are built once, and a token is verified with a single parse that yields
+ * a {@link VerifiedToken}. Verified access tokens are remembered by their SHA-256
+ * hash until they expire, so a client repeating its token is not verified again.
+ * The cache is a concurrent map that expired tokens are purged from. Tokens
+ * carry the user id and roles, so a request is authenticated without loading the user.
+ * Access tokens are short lived and renewed with a refresh token. Every token has
+ * an id, which is checked against the revoked ones on each use.
+ */
 @Service
 public class JwtService {
+
+    private static final int MAX_VERIFIED_TOKENS = 10_000;
+    private static final long PURGE_INTERVAL_MS = 60_000;
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String TYPE_CLAIM = "typ";
+    private static final String ACCESS_TOKEN = "access";
+    private static final String REFRESH_TOKEN = "refresh";
+
+    // Every account has the same role for now
+    private static final List<String> USER_ROLES = List.of("USER");
+
     private final YamlConfig yamlConfig;
+    private final TokenRevocationService tokenRevocationService;
+    private final Key signingKey;
+    private final JwtParser parser;
+
+    // Lookups take no lock, a full cache takes no new tokens until expired ones are purged
+    private final Map<ByteBuffer, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    public record VerifiedToken(UUID tokenId, String type, String subject, UUID userId, List<String> roles,
+            Instant expiresAt) {
+
+        boolean isExpired() {
+            return isExpired(Instant.now());
+        }
+
+        boolean isExpired(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
 
-    public JwtService(YamlConfig yamlConfig) {
+    public JwtService(YamlConfig yamlConfig, TokenRevocationService tokenRevocationService) {
         this.yamlConfig = yamlConfig;
+        this.tokenRevocationService = tokenRevocationService;
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(yamlConfig.getJwt().getSecret()));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    // Checks the signature, expiry and revocation, throwing the parser's ExpiredJwtException or JwtException
+    public VerifiedToken verify(String token) {
+        return verify(token, ACCESS_TOKEN);
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public VerifiedToken verifyRefreshToken(String token) {
+        return verify(token, REFRESH_TOKEN);
     }
 
-    public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+    public String generateToken(User user) {
+        return generateToken(new HashMap<>(), user);
     }
 
-    public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-        return Jwts.builder()
-                .setClaims(extraClaims)
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + yamlConfig.getJwt().getExpirationMs()))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+    public String generateToken(Map<String, Object> extraClaims, User user) {
+        return generate(extraClaims, user, ACCESS_TOKEN, yamlConfig.getJwt().getAccessTokenExpirationMs());
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+    public String generateRefreshToken(User user) {
+        return generate(Map.of(), user, REFRESH_TOKEN, yamlConfig.getJwt().getRefreshTokenExpirationMs());
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public long getAccessTokenExpirationMs() {
+        return yamlConfig.getJwt().getAccessTokenExpirationMs();
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public String getCookieName() {
+        return yamlConfig.getJwt().getCookieName();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    @Scheduled(fixedRate = PURGE_INTERVAL_MS)
+    public void purgeExpiredTokens() {
+        purgeExpiredTokens(Instant.now());
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(yamlConfig.getJwt().getSecret());
-        return Keys.hmacShaKeyFor(keyBytes);
+    void purgeExpiredTokens(Instant now) {
+        verifiedTokens.values().removeIf(verified -> verified.isExpired(now));
     }
 
-    public String getCookieName() {
-        return yamlConfig.getJwt().getCookieName();
+    private VerifiedToken verify(String token, String type) {
+        ByteBuffer key = hash(token);
+        VerifiedToken verified = verifiedTokens.get(key);
+        if (verified != null && verified.isExpired()) {
+            // An expired token is never valid again, parsing it below throws the ExpiredJwtException
+            verifiedTokens.remove(key, verified);
+            verified = null;
+        }
+        if (verified == null) {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            verified = new VerifiedToken(tokenId(claims), claims.get(TYPE_CLAIM, String.class), claims.getSubject(),
+                    userId(claims), roles(claims), claims.getExpiration().toInstant());
+            // Refresh tokens are used once and would hold their entry for days
+            if (ACCESS_TOKEN.equals(verified.type()) && verifiedTokens.size() < MAX_VERIFIED_TOKENS) {
+                verifiedTokens.put(key, verified);
+            }
+        }
+
+        // A refresh token is not accepted in place of an access token, nor the other way round
+        if (!type.equals(verified.type())) {
+            throw new JwtException("JWT token has the wrong type");
+        }
+        // Revocation is checked on every use, a cached token may have been revoked since
+        if (tokenRevocationService.isRevoked(verified.tokenId())) {
+            throw new JwtException("JWT token has been revoked");
+        }
+        return verified;
+    }
+
+    private String generate(Map<String, Object> extraClaims, User user, String type, long expirationMs) {
+        Map<String, Object> claims = new HashMap<>(extraClaims);
+        claims.put(USER_ID_CLAIM, user.getId().toString());
+        claims.put(ROLES_CLAIM, USER_ROLES);
+        claims.put(TYPE_CLAIM, type);
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
+                .setSubject(user.getEmail())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expirationMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private static UUID tokenId(Claims claims) {
+        // Without an id a token could not be revoked, older tokens are refused like those without a user id
+        if (claims.getId() == null) {
+            throw new MalformedJwtException("JWT token has no id");
+        }
+        try {
+            return UUID.fromString(claims.getId());
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("JWT token has an invalid id", e);
+        }
+    }
+
+    private static UUID userId(Claims claims) {
+        // Tokens issued before the claim existed are refused, their users sign in again
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        if (userId == null) {
+            throw new MalformedJwtException("JWT token has no user id");
+        }
+        try {
+            return UUID.fromString(userId);
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("JWT token has an invalid user id", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> roles(Claims claims) {
+        List<String> roles = claims.get(ROLES_CLAIM, List.class);
+        return roles == null ? List.of() : List.copyOf(roles);
+    }
+
+    private static ByteBuffer hash(String token) {
+        // The cache holds digests, not tokens that could be replayed from a heap dump
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package org.petconnect.backend.service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.petconnect.backend.config.helper.YamlConfig;
+import org.petconnect.backend.exception.TooManyRequestsException;
+import org.petconnect.backend.util.TokenBucket;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Admits sign-in attempts before any password is hashed. Every client address and
+ * every account has a token bucket, an address for all the accounts it tries and
+ * an account for all the addresses it is tried from, so neither a single client
+ * nor many clients guessing one account can keep the hashing pool busy. A refused
+ * attempt costs no hash and is answered with 429 and the seconds until a retry.
+ */
+@Service
+public class LoginRateLimiter {
+
+    private static final long PURGE_INTERVAL_MS = 60_000;
+
+    private final YamlConfig.Auth config;
+    private final Map<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+    private final Counter ipRejected;
+    private final Counter accountRejected;
+
+    public LoginRateLimiter(YamlConfig yamlConfig, MeterRegistry meterRegistry) {
+        this.config = yamlConfig.getAuth();
+        this.ipRejected = Counter.builder("auth.login.rejected")
+                .description("Sign-in attempts refused by the rate limit")
+                .tag("limit", "ip")
+                .register(meterRegistry);
+        this.accountRejected = Counter.builder("auth.login.rejected")
+                .description("Sign-in attempts refused by the rate limit")
+                .tag("limit", "account")
+                .register(meterRegistry);
+    }
+
+    public void acquireLogin(String clientIp, String email) {
+        acquireIp(clientIp);
+        TokenBucket account = accountBuckets.computeIfAbsent(email.toLowerCase(Locale.ROOT),
+                key -> new TokenBucket(config.getAccountLoginBurst(), config.getAccountLoginRefillMs(),
+                        TimeUnit.MILLISECONDS));
+        if (!account.tryAcquire()) {
+            accountRejected.increment();
+            throw new TooManyRequestsException("Too many sign-in attempts for this account, try again later",
+                    account.secondsUntilToken());
+        }
+    }
+
+    // Registering hashes a password too, it takes from the same address bucket
+    public void acquireIp(String clientIp) {
+        TokenBucket ip = ipBuckets.computeIfAbsent(clientIp,
+                key -> new TokenBucket(config.getIpLoginBurst(), config.getIpLoginRefillMs(), TimeUnit.MILLISECONDS));
+        if (!ip.tryAcquire()) {
+            ipRejected.increment();
+            throw new TooManyRequestsException("Too many sign-in attempts, try again later", ip.secondsUntilToken());
+        }
+    }
+
+    @Scheduled(fixedRate = PURGE_INTERVAL_MS)
+    public void purgeIdleBuckets() {
+        // Buckets that refilled completely limit nothing, a new one is created on the next attempt
+        ipBuckets.values().removeIf(TokenBucket::isFull);
+        accountBuckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    int bucketCount() {
+        return ipBuckets.size() + accountBuckets.size();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,350 @@
+package org.petconnect.backend.service;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.petconnect.backend.dto.message.MessageDTO;
+import org.petconnect.backend.dto.message.SendMessageRequest;
+import org.petconnect.backend.dto.message.WebSocketMessage;
+import org.petconnect.backend.exception.ResourceNotFoundException;
+import org.petconnect.backend.exception.TooManyRequestsException;
+import org.petconnect.backend.model.Message;
+import org.petconnect.backend.repository.ConversationRepository;
+import org.petconnect.backend.repository.ConversationRepository.UnreadCount;
+import org.petconnect.backend.repository.MessageRepository;
+import org.petconnect.backend.repository.PetRepository;
+import org.petconnect.backend.repository.ShelterRepository;
+import org.petconnect.backend.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes chat messages in batches. A message is validated on the sender's thread,
+ * against ids already known to exist where possible, and queued. A single writer
+ * takes what is queued, waiting a few milliseconds for more, and inserts up to a
+ * batch of messages with their conversation and unread count updates and receiver
+ * events in one transaction. Senders are answered and acknowledged once that
+ * commits. When a batch fails its messages are written one at a time, so only the
+ * faulty ones fail. Whatever goes wrong, every sender of a batch is answered and
+ * the writer goes on with the next one.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MessageIngestionService {
+
+    // Matches hibernate.jdbc.batch_size, so a batch is sent as one JDBC batch
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final long BATCH_WINDOW_MS = 5;
+    private static final int MAX_QUEUED_MESSAGES = 10_000;
+    private static final long QUEUE_TIMEOUT_MS = 1000;
+    private static final int MAX_KNOWN_IDS = 10_000;
+    private static final ZoneId UTC = ZoneId.of("UTC");
+
+    private final MessageRepository messageRepository;
+    private final ConversationRepository conversationRepository;
+    private final UserRepository userRepository;
+    private final PetRepository petRepository;
+    private final ShelterRepository shelterRepository;
+    private final UserEventService userEventService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<PendingMessage> queue = new LinkedBlockingQueue<>(MAX_QUEUED_MESSAGES);
+    private final KnownIds knownUsers = new KnownIds();
+    private final KnownIds knownPets = new KnownIds();
+    private final KnownIds knownShelters = new KnownIds();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    private record PendingMessage(Message message, CompletableFuture<MessageDTO> result) {
+    }
+
+    // Ids that were found before, least recently used first. Deleted ones are caught by the foreign keys
+    private static final class KnownIds {
+
+        private final Map<UUID, Boolean> ids = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+                return size() > MAX_KNOWN_IDS;
+            }
+        };
+
+        boolean exists(UUID id, Predicate<UUID> lookup) {
+            synchronized (ids) {
+                if (ids.get(id) != null) {
+                    return true;
+                }
+            }
+            if (!lookup.test(id)) {
+                return false;
+            }
+            synchronized (ids) {
+                ids.put(id, Boolean.TRUE);
+            }
+            return true;
+        }
+
+        void forget(UUID id) {
+            synchronized (ids) {
+                ids.remove(id);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::writeQueued, "message-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+
+        // Queued after the writer's last look at the queue, or left when it did not finish in time
+        List<PendingMessage> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        leftover.forEach(pending -> pending.result().completeExceptionally(stopped()));
+    }
+
+    public CompletableFuture<MessageDTO> submit(UUID senderId, SendMessageRequest request) {
+        // Validate that pet ID is provided
+        if (request.getPetId() == null) {
+            throw new IllegalArgumentException("Pet ID is required for all messages");
+        }
+        validate(request.getReceiverId(), request.getPetId(), request.getShelterId());
+        if (!running) {
+            throw stopped();
+        }
+
+        // Make sure sentAt is in UTC
+        ZonedDateTime sentAtUTC = request.getSentAt();
+        if (sentAtUTC == null) {
+            sentAtUTC = ZonedDateTime.now(UTC);
+        } else if (!UTC.equals(sentAtUTC.getZone())) {
+            sentAtUTC = sentAtUTC.withZoneSameInstant(UTC);
+        }
+
+        Message message = Message.builder()
+                .senderId(senderId)
+                .receiverId(request.getReceiverId())
+                .content(request.getContent())
+                .petId(request.getPetId())
+                .shelterId(request.getShelterId())
+                .isRead(false)
+                .sentAt(sentAtUTC)
+                .build();
+
+        PendingMessage pending = new PendingMessage(message, new CompletableFuture<>());
+        try {
+            // Senders wait a little when the writer falls this far behind, then are refused
+            if (!queue.offer(pending, QUEUE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new TooManyRequestsException("Too many messages are waiting to be written, try again shortly", 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing the message", e);
+        }
+
+        // Stopped since the check above. Whoever takes the message from the queue answers it: the
+        // writer writes it, stop() fails it, and one still in the queue is failed here
+        if (!running && queue.remove(pending)) {
+            pending.result().completeExceptionally(stopped());
+        }
+        return pending.result();
+    }
+
+    private static IllegalStateException stopped() {
+        return new IllegalStateException("Messages are no longer accepted, the application is stopping");
+    }
+
+    private void validate(UUID receiverId, UUID petId, UUID shelterId) {
+        // Verify recipient exists
+        if (!knownUsers.exists(receiverId, userRepository::existsById)) {
+            throw new ResourceNotFoundException("User", "id", receiverId);
+        }
+
+        // Verify pet exists
+        if (!knownPets.exists(petId, petRepository::existsById)) {
+            throw new ResourceNotFoundException("Pet", "id", petId);
+        }
+
+        // Verify shelter if provided
+        if (shelterId != null && !knownShelters.exists(shelterId, shelterRepository::existsById)) {
+            throw new ResourceNotFoundException("Shelter", "id", shelterId);
+        }
+    }
+
+    private void writeQueued() {
+        List<PendingMessage> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BATCH_WINDOW_MS);
+                while (batch.size() < MAX_BATCH_SIZE) {
+                    PendingMessage next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Stopping, whatever was already taken is still written below
+                running = false;
+            }
+            writeOrFail(batch);
+            batch.clear();
+        }
+
+        // Messages queued before the application stopped accepting them
+        while (queue.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+            writeOrFail(batch);
+            batch.clear();
+        }
+    }
+
+    // The writer is the only one, nothing may end it while the application runs
+    private void writeOrFail(List<PendingMessage> batch) {
+        try {
+            write(batch);
+        } catch (Throwable e) {
+            log.error("Writing a batch of {} messages failed unexpectedly", batch.size(), e);
+            // Senders whose message was already answered are left alone
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private void write(List<PendingMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        AtomicBoolean committed = new AtomicBoolean();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Registered first, so it runs before any other callback that could throw
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        committed.set(true);
+                    }
+                });
+                insert(batch);
+            });
+        } catch (RuntimeException e) {
+            if (committed.get()) {
+                // The batch is written, writing it again would store every message twice
+                log.error("A callback failed after a batch of {} messages was written", batch.size(), e);
+            } else {
+                retry(batch, e);
+                return;
+            }
+        }
+
+        for (PendingMessage pending : batch) {
+            MessageDTO messageDTO = MessageDTO.fromEntity(pending.message());
+            pending.result().complete(messageDTO);
+
+            // Lets the sender's clients replace their optimistic copy. The message is written,
+            // an acknowledgement that cannot be delivered leaves the rest of the batch to go on
+            try {
+                messagingTemplate.convertAndSendToUser(
+                        messageDTO.getSenderId().toString(),
+                        "/queue/messages",
+                        WebSocketMessage.builder()
+                                .type(WebSocketMessage.MessageType.MESSAGE_SENT)
+                                .payload(messageDTO)
+                                .build());
+            } catch (RuntimeException e) {
+                log.warn("Acknowledging message {} to its sender failed", messageDTO.getId(), e);
+            }
+        }
+    }
+
+    private void retry(List<PendingMessage> batch, RuntimeException e) {
+        if (batch.size() == 1) {
+            fail(batch.get(0), e);
+            return;
+        }
+        log.warn("Writing a batch of {} messages failed, writing them one at a time", batch.size(), e);
+        for (PendingMessage pending : batch) {
+            // The rolled back insert left its generated id behind
+            pending.message().setId(null);
+            write(List.of(pending));
+        }
+    }
+
+    private void insert(List<PendingMessage> batch) {
+        // Ids are generated in memory, so the inserts are sent together on the next flush
+        List<Message> messages = batch.stream().map(PendingMessage::message).collect(Collectors.toList());
+        messageRepository.saveAll(messages);
+        List<UUID> messageIds = messages.stream().map(Message::getId).collect(Collectors.toList());
+        conversationRepository.addMessages(messageIds);
+        List<UnreadCount> unreadCounts = conversationRepository.addUnreadMessages(messageIds);
+
+        // One event statement per receiver. Sorted, so concurrent batches take the sequence rows in the same order
+        Map<UUID, List<WebSocketMessage>> events = new TreeMap<>();
+        for (Message message : messages) {
+            events.computeIfAbsent(message.getReceiverId(), id -> new ArrayList<>()).add(WebSocketMessage.builder()
+                    .type(WebSocketMessage.MessageType.NEW_MESSAGE)
+                    .payload(MessageDTO.fromEntity(message))
+                    .build());
+        }
+        for (UnreadCount unread : unreadCounts) {
+            events.get(unread.getUserId()).add(WebSocketMessage.unreadCount(unread.getUnreadCount(), unread.getDelta()));
+        }
+        events.forEach(userEventService::sendAll);
+    }
+
+    private void fail(PendingMessage pending, RuntimeException e) {
+        RuntimeException cause = e;
+        if (e instanceof DataIntegrityViolationException) {
+            // A known id may have been deleted since, looking them up again tells which one
+            Message message = pending.message();
+            knownUsers.forget(message.getReceiverId());
+            knownPets.forget(message.getPetId());
+            if (message.getShelterId() != null) {
+                knownShelters.forget(message.getShelterId());
+            }
+            try {
+                validate(message.getReceiverId(), message.getPetId(), message.getShelterId());
+            } catch (ResourceNotFoundException notFound) {
+                cause = notFound;
+            } catch (RuntimeException lookupFailed) {
+                // The sender is answered with the write failure
+                e.addSuppressed(lookupFailed);
+            }
+        }
+        if (cause == e) {
+            log.error("Writing a message from {} failed", pending.message().getSenderId(), e);
+        }
+        pending.result().completeExceptionally(cause);
+    }
+}
\ No newline at end of file
@@ -1,27 +1,36 @@
 package org.petconnect.backend.service;
 
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import org.petconnect.backend.dto.message.ConversationDTO;
 import org.petconnect.backend.dto.message.MessageDTO;
+import org.petconnect.backend.dto.message.MessagesResponse;
 import org.petconnect.backend.dto.message.SendMessageRequest;
 import org.petconnect.backend.dto.message.WebSocketMessage;
 import org.petconnect.backend.dto.user.UserDTO;
 import org.petconnect.backend.exception.ResourceNotFoundException;
-import org.petconnect.backend.exception.UnauthorizedException;
 import org.petconnect.backend.model.Message;
 import org.petconnect.backend.model.Pet;
-import org.petconnect.backend.model.PetStatus;
 import org.petconnect.backend.model.Shelter;
+import org.petconnect.backend.repository.ConversationRepository;
+import org.petconnect.backend.repository.ConversationRepository.ConversationSummary;
+import org.petconnect.backend.repository.ConversationRepository.UnreadCount;
 import org.petconnect.backend.repository.MessageRepository;
 import org.petconnect.backend.repository.PetRepository;
 import org.petconnect.backend.repository.ShelterRepository;
 import org.petconnect.backend.repository.UserRepository;
+import org.petconnect.backend.util.PageCursor;
+import org.petconnect.backend.util.PaginationUtil;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,90 +42,104 @@ import lombok.RequiredArgsConstructor;
 public class MessageService {
 
     private final MessageRepository messageRepository;
+    private final ConversationRepository conversationRepository;
     private final UserRepository userRepository;
     private final PetRepository petRepository;
     private final ShelterRepository shelterRepository;
+    private final PresenceService presenceService;
+    private final UserEventService userEventService;
+    private final MessageIngestionService messageIngestionService;
     private final SimpMessagingTemplate messagingTemplate;
-    private static final ZoneId UTC = ZoneId.of("UTC");
 
-    @Transactional
-    public MessageDTO sendMessage(UUID senderId, SendMessageRequest request) {
-        // Validate that pet ID is provided
-        if (request.getPetId() == null) {
-            throw new IllegalArgumentException("Pet ID is required for all messages");
-        }
-
-        // Verify recipient exists
-        userRepository.findById(request.getReceiverId())
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", request.getReceiverId()));
+    // History cursors carry this sort name, a cursor works as both before and after
+    private static final String HISTORY_CURSOR = "messages";
+    // Without a cursor the history is read from past the newest possible message
+    private static final String NEWEST_TIME = "infinity";
+    private static final String NEWEST_ID = "ffffffff-ffff-ffff-ffff-ffffffffffff";
+    // A request thread gives up on its batch after this long instead of waiting for good
+    private static final long SEND_TIMEOUT_SECONDS = 30;
 
-        // Verify pet exists
-        petRepository.findById(request.getPetId())
-                .orElseThrow(() -> new ResourceNotFoundException("Pet", "id", request.getPetId()));
-
-        // Verify shelter if provided
-        if (request.getShelterId() != null) {
-            shelterRepository.findById(request.getShelterId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Shelter", "id", request.getShelterId()));
+    public MessageDTO sendMessage(UUID senderId, SendMessageRequest request) {
+        // Waits for the batch the message is written in, see MessageIngestionService
+        try {
+            return messageIngestionService.submit(senderId, request)
+                    .orTimeout(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new IllegalStateException("Sending the message timed out, it may still be delivered", e);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
+    }
 
-        // Make sure sentAt is in UTC
-        ZonedDateTime sentAtUTC = request.getSentAt();
-        if (sentAtUTC == null) {
-            sentAtUTC = ZonedDateTime.now(UTC);
-        } else if (!UTC.equals(sentAtUTC.getZone())) {
-            sentAtUTC = sentAtUTC.withZoneSameInstant(UTC);
+    public void queueMessage(UUID senderId, SendMessageRequest request) {
+        // The sender is acknowledged with MESSAGE_SENT once the message is written, or told it failed
+        try {
+            messageIngestionService.submit(senderId, request).whenComplete((message, error) -> {
+                if (error != null) {
+                    sendFailure(senderId, request,
+                            error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                }
+            });
+        } catch (RuntimeException e) {
+            sendFailure(senderId, request, e);
         }
+    }
 
-        // Create and save the message
-        Message message = Message.builder()
-                .senderId(senderId)
-                .receiverId(request.getReceiverId())
-                .content(request.getContent())
-                .petId(request.getPetId())
-                .shelterId(request.getShelterId())
-                .isRead(false)
-                .sentAt(sentAtUTC)
-                .build();
-
-        message = messageRepository.save(message);
-
-        // Convert to DTO
-        MessageDTO messageDTO = MessageDTO.fromEntity(message);
-
-        // Send the message via WebSocket
-        WebSocketMessage wsMessage = WebSocketMessage.builder()
-                .type(WebSocketMessage.MessageType.NEW_MESSAGE)
-                .payload(messageDTO)
-                .build();
-
-        messagingTemplate.convertAndSendToUser(
-                request.getReceiverId().toString(),
-                "/queue/messages",
-                wsMessage);
-
-        return messageDTO;
+    private void sendFailure(UUID senderId, SendMessageRequest request, Throwable error) {
+        // The client reference is optional, so the payload may carry nulls
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("clientMessageId", request.getClientMessageId());
+        payload.put("receiverId", request.getReceiverId());
+        payload.put("petId", request.getPetId());
+        payload.put("message", error.getMessage());
+
+        // Only the sender's open clients hold the optimistic copy, the failure is not kept for resuming
+        messagingTemplate.convertAndSendToUser(senderId.toString(), "/queue/messages",
+                WebSocketMessage.builder()
+                        .type(WebSocketMessage.MessageType.MESSAGE_FAILED)
+                        .payload(payload)
+                        .build());
     }
 
     public List<ConversationDTO> getUserConversations(UUID userId) {
-        List<Message> latestMessages = messageRepository.findUserConversations(userId);
-
-        return latestMessages.stream()
-                .map(message -> ConversationDTO.fromLatestMessage(message, userId))
-                .filter(conversation -> conversation != null && conversation.getPet() != null)
-                .collect(Collectors.toList());
+        return toConversations(conversationRepository.findUserConversations(userId), userId);
     }
 
     public List<ConversationDTO> getUnreadConversations(UUID userId) {
-        List<Message> latestMessages = messageRepository.findUnreadConversations(userId);
+        return toConversations(conversationRepository.findUnreadConversations(userId), userId);
+    }
+
+    private List<ConversationDTO> toConversations(List<ConversationSummary> summaries, UUID userId) {
+        Map<UUID, Integer> unreadCounts = summaries.stream()
+                .collect(Collectors.toMap(ConversationSummary::getLastMessageId, ConversationSummary::getUnreadCount));
+        List<Message> latestMessages = findAllWithDetails(summaries.stream()
+                .map(ConversationSummary::getLastMessageId)
+                .collect(Collectors.toList()));
 
-        return latestMessages.stream()
-                .map(message -> ConversationDTO.fromLatestMessage(message, userId))
+        List<ConversationDTO> conversations = latestMessages.stream()
+                .map(message -> ConversationDTO.fromLatestMessage(message, userId, unreadCounts.get(message.getId())))
                 .filter(conversation -> conversation != null && conversation.getPet() != null)
                 .collect(Collectors.toList());
+        conversations.forEach(conversation -> conversation.setOnline(
+                presenceService.isOnline(conversation.getOtherUserId())));
+        return conversations;
+    }
+
+    private List<Message> findAllWithDetails(List<UUID> messageIds) {
+        return PaginationUtil.loadInOrder(messageIds, messageRepository::findAllWithDetailsByIdIn, Message::getId);
     }
 
-    public List<MessageDTO> getConversationAboutPet(UUID userId, UUID otherUserId, UUID petId) {
+    public MessagesResponse getConversationAboutPet(UUID userId, UUID otherUserId, UUID petId, String before,
+            String after, Integer limit) {
+        if (before != null && after != null) {
+            throw new IllegalArgumentException("Only one of before and after can be given");
+        }
+
         // Verify that the other user exists
         userRepository.findById(otherUserId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", otherUserId));
@@ -125,14 +148,56 @@ public class MessageService {
         petRepository.findById(petId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pet", "id", petId));
 
-        List<Message> messages = messageRepository.findConversationAboutPet(userId, otherUserId, petId);
-
-        // Mark messages as read
-        markMessagesAboutPetAsRead(userId, otherUserId, petId);
+        int pageSize = PaginationUtil.processLimit(limit);
+        int queryLimit = PaginationUtil.getQueryLimit(pageSize);
+
+        // Pages are read from the cursor outwards, an after page towards newer messages
+        // and every other page towards older ones
+        PageCursor afterCursor = PageCursor.decode(after, HISTORY_CURSOR);
+        List<UUID> messageIds;
+        boolean hasOlder;
+        boolean hasNewer;
+        if (afterCursor != null) {
+            PaginationUtil.PaginationResult<UUID> result = PaginationUtil.processResults(
+                    messageRepository.findConversationIdsAfter(userId, otherUserId, petId,
+                            afterCursor.key(), afterCursor.id().toString(), queryLimit),
+                    pageSize);
+            messageIds = result.getResults();
+            hasOlder = true;
+            hasNewer = result.hasMore();
+        } else {
+            PageCursor beforeCursor = PageCursor.decode(before, HISTORY_CURSOR);
+            PaginationUtil.PaginationResult<UUID> result = PaginationUtil.processResults(
+                    messageRepository.findConversationIdsBefore(userId, otherUserId, petId,
+                            beforeCursor != null ? beforeCursor.key() : NEWEST_TIME,
+                            beforeCursor != null ? beforeCursor.id().toString() : NEWEST_ID,
+                            queryLimit),
+                    pageSize);
+            messageIds = new ArrayList<>(result.getResults());
+            Collections.reverse(messageIds);
+            hasOlder = result.hasMore();
+            hasNewer = beforeCursor != null;
+        }
 
-        return messages.stream()
+        // Fetching a page does not mark anything as read, clients mark what they have shown
+        List<MessageDTO> messages = findAllWithDetails(messageIds).stream()
                 .map(MessageDTO::fromEntity)
                 .collect(Collectors.toList());
+
+        // An empty page keeps the cursor it was read from, so it can be polled again
+        MessageDTO oldest = messages.isEmpty() ? null : messages.get(0);
+        MessageDTO newest = messages.isEmpty() ? null : messages.get(messages.size() - 1);
+        return MessagesResponse.builder()
+                .messages(messages)
+                .olderCursor(!hasOlder ? null : oldest != null ? historyCursor(oldest) : after)
+                .newerCursor(newest != null ? historyCursor(newest) : after)
+                .hasOlder(hasOlder)
+                .hasNewer(hasNewer)
+                .build();
+    }
+
+    private static String historyCursor(MessageDTO message) {
+        return PageCursor.encode(HISTORY_CURSOR, PageCursor.timestampKey(message.getSentAt()), message.getId());
     }
 
     @Transactional
@@ -141,6 +206,8 @@ public class MessageService {
         userRepository.findById(otherUserId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", otherUserId));
 
+        // The conversation row is locked first, see ConversationRepository.markAsRead
+        UnreadCount unread = conversationRepository.markAsRead(userId, otherUserId);
         messageRepository.markConversationAsRead(userId, otherUserId);
 
         // Send read receipt via WebSocket
@@ -149,10 +216,9 @@ public class MessageService {
                 .payload(Map.of("userId", otherUserId))
                 .build();
 
-        messagingTemplate.convertAndSendToUser(
-                otherUserId.toString(),
-                "/queue/messages",
-                wsMessage);
+        Map<UUID, List<WebSocketMessage>> events = new TreeMap<>();
+        events.computeIfAbsent(otherUserId, id -> new ArrayList<>()).add(wsMessage);
+        sendReadEvents(events, unread);
     }
 
     @Transactional
@@ -165,6 +231,7 @@ public class MessageService {
         petRepository.findById(petId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pet", "id", petId));
 
+        UnreadCount unread = conversationRepository.markAboutPetAsRead(userId, otherUserId, petId);
         messageRepository.markConversationAboutPetAsRead(userId, otherUserId, petId);
 
         // Send read receipt via WebSocket
@@ -173,88 +240,26 @@ public class MessageService {
                 .payload(Map.of("userId", otherUserId, "petId", petId))
                 .build();
 
-        messagingTemplate.convertAndSendToUser(
-                otherUserId.toString(),
-                "/queue/messages",
-                wsMessage);
-
-        messagingTemplate.convertAndSendToUser(
-                userId.toString(),
-                "/queue/messages",
-                wsMessage);
-    }
-
-    public long getUnreadMessageCount(UUID userId) {
-        return messageRepository.countUnreadMessages(userId);
+        Map<UUID, List<WebSocketMessage>> events = new TreeMap<>();
+        events.computeIfAbsent(otherUserId, id -> new ArrayList<>()).add(wsMessage);
+        events.computeIfAbsent(userId, id -> new ArrayList<>()).add(wsMessage);
+        sendReadEvents(events, unread);
     }
 
-    @Transactional
-    public void updatePetStatus(UUID petId, PetStatus newStatus, UUID userId) {
-        Pet pet = petRepository.findById(petId)
-                .orElseThrow(() -> new ResourceNotFoundException("Pet", "id", petId));
-
-        // Only the pet owner can update the status
-        if (!pet.getCreatedByUserId().equals(userId) &&
-                !(pet.getShelterId() != null &&
-                        pet.getShelter().getOwnerId().equals(userId))) {
-            throw new UnauthorizedException("You are not authorized to update this pet's status");
-        }
-
-        // Cannot change status if already adopted
-        if (pet.getStatus() == PetStatus.ADOPTED) {
-            throw new IllegalArgumentException("Cannot change status of an adopted pet");
+    private void sendReadEvents(Map<UUID, List<WebSocketMessage>> events, UnreadCount unread) {
+        // Reading what was already read leaves the reader's badge alone
+        if (unread.getDelta() != 0) {
+            events.computeIfAbsent(unread.getUserId(), id -> new ArrayList<>())
+                    .add(WebSocketMessage.unreadCount(unread.getUnreadCount(), unread.getDelta()));
         }
 
-        pet.setStatus(newStatus);
-        petRepository.save(pet);
-
-        // Notify all users who have messaged about this pet
-        notifyPetStatusUpdate(pet);
+        // Events take each user's sequence row, in the same order as batched messages do
+        events.forEach(userEventService::sendAll);
     }
 
-    @Transactional
-    public void markPetAsAdopted(UUID petId, UUID userId) {
-        Pet pet = petRepository.findById(petId)
-                .orElseThrow(() -> new ResourceNotFoundException("Pet", "id", petId));
-
-        // Anyone who has messaged about the pet can mark it as adopted
-        boolean hasMessagedAboutPet = messageRepository
-                .findConversationAboutPet(userId, pet.getCreatedByUserId(), petId)
-                .stream()
-                .anyMatch(m -> m.getSenderId().equals(userId) || m.getReceiverId().equals(userId));
-
-        if (!hasMessagedAboutPet) {
-            throw new UnauthorizedException("You are not authorized to mark this pet as adopted");
-        }
-
-        pet.setStatus(PetStatus.ADOPTED);
-        petRepository.save(pet);
-
-        // Notify all users who have messaged about this pet
-        notifyPetStatusUpdate(pet);
-    }
-
-    private void notifyPetStatusUpdate(Pet pet) {
-        WebSocketMessage wsMessage = WebSocketMessage.builder()
-                .type(WebSocketMessage.MessageType.PET_STATUS_UPDATE)
-                .payload(Map.of(
-                        "petId", pet.getId(),
-                        "status", pet.getStatus()))
-                .build();
-
-        // Get all users who have messaged about this pet
-        List<UUID> userIds = messageRepository.findAll().stream()
-                .filter(m -> pet.getId().equals(m.getPetId()))
-                .map(m -> List.of(m.getSenderId(), m.getReceiverId()))
-                .flatMap(List::stream)
-                .distinct()
-                .collect(Collectors.toList());
-
-        // Send notification to all these users
-        userIds.forEach(userId -> messagingTemplate.convertAndSendToUser(
-                userId.toString(),
-                "/queue/messages",
-                wsMessage));
+    // A primary key lookup, the total is kept up to date by the statements that change it
+    public long getUnreadMessageCount(UUID userId) {
+        return conversationRepository.countUnreadMessages(userId);
     }
 
     public UserDTO getPetOwnerForMessaging(UUID petId) {
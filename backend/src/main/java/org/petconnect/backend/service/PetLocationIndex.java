@@ -0,0 +1,80 @@
+package org.petconnect.backend.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.petconnect.backend.repository.PetSearchRepository;
+import org.petconnect.backend.repository.PetSearchRepository.PetLocation;
+import org.petconnect.backend.util.GeoIndex;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory spatial index over the locations of AVAILABLE pets, resolved from
+ * the pet or shelter address. Nearest-first and radius lookups are answered here
+ * so Postgres only has to filter and load the returned ids. Writes on other nodes
+ * reach the index through {@link CacheChangeService}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PetLocationIndex {
+
+    // Half a degree is roughly 55 km of latitude per cell
+    private static final double CELL_SIZE_DEGREES = 0.5;
+
+    private final PetSearchRepository petSearchRepository;
+
+    private volatile GeoIndex index = new GeoIndex(CELL_SIZE_DEGREES);
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        replaceAll(petSearchRepository.findAllLocations());
+        log.info("Loaded {} pet locations into the location index", index.size());
+    }
+
+    public void replaceAll(List<PetLocation> locations) {
+        // Build the new index on the side so lookups never see a partial one
+        GeoIndex rebuilt = new GeoIndex(CELL_SIZE_DEGREES);
+        for (PetLocation location : locations) {
+            if (location.getLat() != null && location.getLng() != null) {
+                rebuilt.put(location.getPetId(), location.getLat(), location.getLng());
+            }
+        }
+        index = rebuilt;
+    }
+
+    public void update(Collection<UUID> petIds, List<PetLocation> locations) {
+        GeoIndex current = index;
+        Set<UUID> located = new HashSet<>();
+        for (PetLocation location : locations) {
+            if (location.getLat() != null && location.getLng() != null) {
+                current.put(location.getPetId(), location.getLat(), location.getLng());
+                located.add(location.getPetId());
+            }
+        }
+
+        // The remaining pets were deleted, are no longer AVAILABLE or have no address
+        petIds.stream()
+                .filter(petId -> !located.contains(petId))
+                .forEach(current::remove);
+    }
+
+    public Iterator<GeoIndex.Neighbor> nearest(double lat, double lng, Double radiusKm) {
+        return index.nearest(lat, lng, radiusKm);
+    }
+
+    public List<GeoIndex.Neighbor> withinRadius(double lat, double lng, double radiusKm) {
+        return index.withinRadius(lat, lng, radiusKm);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package org.petconnect.backend.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.petconnect.backend.model.CacheChange;
+import org.petconnect.backend.repository.CacheChangeRepository;
+import org.petconnect.backend.repository.PetSearchRepository;
+import org.petconnect.backend.repository.PetSearchRepository.PetLocation;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps the pet_search read model and the pet location index in sync with pet,
+ * shelter, address and image writes. The changed pets are recorded in cache_change
+ * so the location index of the other nodes follows.
+ * Callers run inside their own write transaction so the read model commits atomically
+ * with the change that caused it.
+ */
+@Service
+@RequiredArgsConstructor
+public class PetSearchService {
+
+    private final PetSearchRepository petSearchRepository;
+    private final PetLocationIndex petLocationIndex;
+    private final CacheChangeRepository cacheChangeRepository;
+
+    @Transactional
+    public void syncPet(UUID petId) {
+        petSearchRepository.deleteUnavailablePets(petId.toString(), null);
+        petSearchRepository.upsertAvailablePets(petId.toString(), null);
+
+        List<PetLocation> locations = petSearchRepository.findLocationsByPetId(petId);
+        afterCommit(() -> petLocationIndex.update(List.of(petId), locations));
+        petsChanged(List.of(petId));
+    }
+
+    @Transactional
+    public void syncShelterPets(UUID shelterId) {
+        // Remember the shelter's current pets so deleted ones leave the location index
+        Set<UUID> petIds = petSearchRepository.findLocationsByShelterId(shelterId).stream()
+                .map(PetLocation::getPetId)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        petSearchRepository.deleteUnavailablePets(null, shelterId.toString());
+        petSearchRepository.upsertAvailablePets(null, shelterId.toString());
+
+        List<PetLocation> locations = petSearchRepository.findLocationsByShelterId(shelterId);
+        locations.forEach(location -> petIds.add(location.getPetId()));
+        afterCommit(() -> petLocationIndex.update(petIds, locations));
+        petsChanged(petIds);
+    }
+
+    @Transactional
+    public void rebuild() {
+        petSearchRepository.deleteUnavailablePets(null, null);
+        petSearchRepository.upsertAvailablePets(null, null);
+
+        List<PetLocation> locations = petSearchRepository.findAllLocations();
+        afterCommit(() -> petLocationIndex.replaceAll(locations));
+        cacheChangeRepository.save(CacheChange.builder().cache(CacheChange.Cache.PET_LOCATION).build());
+    }
+
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (petSearchRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    private void petsChanged(Collection<UUID> petIds) {
+        // Other nodes refresh these pets from pet_search, see CacheChangeService
+        cacheChangeRepository.saveAll(petIds.stream()
+                .map(petId -> CacheChange.builder().cache(CacheChange.Cache.PET_LOCATION).petId(petId).build())
+                .toList());
+    }
+
+    private void afterCommit(Runnable action) {
+        // The location index must not see changes that are later rolled back
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
\ No newline at end of file
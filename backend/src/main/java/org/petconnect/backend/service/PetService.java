@@ -1,18 +1,24 @@
 package org.petconnect.backend.service;
 
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.petconnect.backend.config.WebSocketConfig;
 import org.petconnect.backend.dto.address.AddressDTO;
 import org.petconnect.backend.dto.file.FileResponse;
 import org.petconnect.backend.dto.message.WebSocketMessage;
 import org.petconnect.backend.dto.pet.CreatePetRequest;
 import org.petconnect.backend.dto.pet.PetDTO;
+import org.petconnect.backend.dto.pet.PetFacetsResponse;
 import org.petconnect.backend.dto.pet.PetFilters;
 import org.petconnect.backend.dto.pet.PetsResponse;
 import org.petconnect.backend.dto.user.UserDTO;
@@ -26,16 +32,20 @@ import org.petconnect.backend.model.PetImage;
 import org.petconnect.backend.model.PetStatus;
 import org.petconnect.backend.model.Shelter;
 import org.petconnect.backend.repository.AddressRepository;
+import org.petconnect.backend.repository.ConversationRepository;
+import org.petconnect.backend.repository.ConversationRepository.UnreadCount;
 import org.petconnect.backend.repository.ImageRepository;
-import org.petconnect.backend.repository.MessageRepository;
 import org.petconnect.backend.repository.PetAddressRepository;
+import org.petconnect.backend.repository.PetFacetCount;
 import org.petconnect.backend.repository.PetImageRepository;
 import org.petconnect.backend.repository.PetRepository;
+import org.petconnect.backend.repository.PetSearchCriteria;
 import org.petconnect.backend.repository.ShelterRepository;
 import org.petconnect.backend.util.DateTimeUtil;
+import org.petconnect.backend.util.GeoIndex;
+import org.petconnect.backend.util.PageCursor;
 import org.petconnect.backend.util.PaginationUtil;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -48,14 +58,28 @@ public class PetService {
 
     private final PetRepository petRepository;
     private final ShelterRepository shelterRepository;
-    private final UserService userService;
     private final ImageService imageService;
     private final PetImageRepository petImageRepository;
     private final ImageRepository imageRepository;
     private final AddressRepository addressRepository;
     private final PetAddressRepository petAddressRepository;
-    private final MessageRepository messageRepository;
+    private final ConversationRepository conversationRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final PetSearchService petSearchService;
+    private final PetLocationIndex petLocationIndex;
+    private final ResultCountService resultCountService;
+    private final ReferenceDataService referenceDataService;
+    private final UserEventService userEventService;
+
+    private static final Set<String> PET_SORT_OPTIONS = Set.of(
+            "newest", "oldest", "youngest", "eldest", "name_asc", "name_desc", "distance", "relevance");
+
+    // Bounds for how many nearest pets are filtered per query when sorting by distance
+    private static final int MIN_NEAREST_BATCH = 50;
+    private static final int MAX_NEAREST_BATCH = 1000;
+
+    // Upper bounds of the age facet buckets in months, the eldest bucket has none
+    private static final List<Integer> AGE_BUCKET_MONTHS = List.of(6, 12, 36, 96);
 
     public PetDTO getPetById(UUID id) {
         Pet pet = petRepository.findById(id)
@@ -63,66 +87,41 @@ public class PetService {
         return PetDTO.fromEntity(pet);
     }
 
-    @SuppressWarnings("UseSpecificCatch")
-    public PetsResponse getPets(String cursor, PetFilters filters, int limit) {
-        // Calculate offset from cursor if provided
-        int offset = 0;
-        if (cursor != null) {
-            try {
-                offset = Integer.parseInt(new String(Base64.getDecoder().decode(cursor)));
-            } catch (Exception e) {
-                // Invalid cursor format, start from beginning
-                offset = 0;
-            }
-        }
+    public PetsResponse getPets(String cursor, PetFilters filters, int limit, boolean includeTotal) {
+        Double lat = filters.getLocation() != null ? filters.getLocation().getLat() : null;
+        Double lng = filters.getLocation() != null ? filters.getLocation().getLng() : null;
+        boolean hasLocation = lat != null && lng != null;
+        boolean hasSearchQuery = filters.getSearchQuery() != null && !filters.getSearchQuery().isBlank();
+        String sortBy = normalizeSortBy(filters.getSortBy(), hasLocation, hasSearchQuery);
+        Double radiusKm = radiusKm(filters);
+
+        // Decode the keyset cursor, it is only valid for the sort it was issued for
+        PageCursor pageCursor = PageCursor.decode(cursor, sortBy);
 
         // Process limit - if limit is 0, return all data
         limit = PaginationUtil.processLimit(limit);
 
-        // Convert age range to dates
-        ZonedDateTime minDate = null;
-        ZonedDateTime maxDate = null;
-        if (filters.getAgeRange() != null) {
-            ZonedDateTime now = DateTimeUtil.nowUTC();
-            if (filters.getAgeRange().getMin() != null) {
-                // For minimum age, we need the latest possible birth date
-                minDate = now.minusMonths(filters.getAgeRange().getMin());
-            }
-            if (filters.getAgeRange().getMax() != null) {
-                // For maximum age, we need the earliest possible birth date
-                maxDate = now.minusMonths(filters.getAgeRange().getMax());
-            }
-        }
+        PetSearchCriteria criteria = toCriteria(filters, radiusKm);
 
-        // Get total count of pets matching filters
-        long totalCount = petRepository.countPetsByFilters(
-                filters.getSpecies(),
-                filters.getBreed(),
-                filters.getGender(),
-                minDate,
-                maxDate,
-                filters.getSearchQuery(),
-                filters.getCity(),
-                filters.getCountry());
+        // Count the pets matching the filters only when the caller wants the total
+        ResultCountService.ResultCount totalCount = includeTotal
+                ? resultCountService.count(countKey(criteria, lat, lng, radiusKm),
+                        () -> petRepository.estimatePets(criteria),
+                        () -> petRepository.countPets(criteria))
+                : null;
 
         // Get the limit to use for the query
         int queryLimit = PaginationUtil.getQueryLimit(limit);
 
-        // Execute query with filters
-        List<Pet> pets = petRepository.findPetsByFilters(
-                filters.getSpecies(),
-                filters.getBreed(),
-                filters.getGender(),
-                minDate,
-                maxDate,
-                filters.getSearchQuery(),
-                filters.getSortBy(),
-                filters.getLocation() != null ? filters.getLocation().getLat() : null,
-                filters.getLocation() != null ? filters.getLocation().getLng() : null,
-                filters.getCity(),
-                filters.getCountry(),
-                queryLimit,
-                offset);
+        // Execute query with filters, seeking past the last row of the previous page
+        Map<UUID, Double> distances = new HashMap<>();
+        List<Pet> pets = sortBy.equals("distance")
+                ? findNearestPets(criteria, lat, lng, radiusKm, pageCursor, queryLimit, distances)
+                : petRepository.findPets(criteria.toBuilder()
+                        .sortBy(sortBy)
+                        .cursor(pageCursor)
+                        .limit(queryLimit)
+                        .build());
 
         // Process results
         PaginationUtil.PaginationResult<Pet> result = PaginationUtil.processResults(pets, limit);
@@ -132,43 +131,241 @@ public class PetService {
                 .map(PetDTO::fromEntity)
                 .collect(Collectors.toList());
 
-        // Create next cursor if we have more results
-        String nextCursor = null;
-        if (result.hasMore()) {
-            nextCursor = Base64.getEncoder().encodeToString(String.valueOf(offset + limit).getBytes());
-        }
+        // Create next cursor from the last row if we have more results
+        String nextCursor = PageCursor.nextCursor(result, sortBy,
+                pet -> getSortKey(pet, sortBy, filters.getSearchQuery(), distances), Pet::getId);
 
         return PetsResponse.builder()
                 .pets(petDTOs)
                 .nextCursor(nextCursor)
                 .hasMore(result.hasMore())
-                .totalCount(totalCount)
+                .totalCount(totalCount != null ? totalCount.value() : null)
+                .totalCountEstimated(totalCount != null && totalCount.estimated())
+                .build();
+    }
+
+    public PetFacetsResponse getPetFacets(PetFilters filters) {
+        PetSearchCriteria criteria = toCriteria(filters, radiusKm(filters));
+
+        // Same month arithmetic as the age range filter, so a bucket's bounds select exactly its pets
+        ZonedDateTime now = DateTimeUtil.nowUTC();
+        List<LocalDate> ageBounds = AGE_BUCKET_MONTHS.stream()
+                .map(months -> now.minusMonths(months).toLocalDate())
+                .collect(Collectors.toList());
+
+        Map<String, List<PetFacetsResponse.FacetCount>> values = new HashMap<>();
+        long[] ageCounts = new long[AGE_BUCKET_MONTHS.size() + 1];
+        for (PetFacetCount row : petRepository.findPetFacets(criteria, ageBounds)) {
+            if (row.facet().equals("age")) {
+                ageCounts[Integer.parseInt(row.value())] = row.count();
+            } else {
+                values.computeIfAbsent(row.facet(), facet -> new ArrayList<>())
+                        .add(PetFacetsResponse.FacetCount.builder()
+                                .value(row.value())
+                                .count(row.count())
+                                .build());
+            }
+        }
+        values.values().forEach(counts -> counts.sort(
+                Comparator.comparingLong(PetFacetsResponse.FacetCount::getCount).reversed()
+                        .thenComparing(PetFacetsResponse.FacetCount::getValue)));
+
+        List<PetFacetsResponse.AgeBucketCount> ages = new ArrayList<>();
+        for (int i = 0; i < ageCounts.length; i++) {
+            int minAge = i > 0 ? AGE_BUCKET_MONTHS.get(i - 1) : 0;
+            Integer maxAge = i < AGE_BUCKET_MONTHS.size() ? AGE_BUCKET_MONTHS.get(i) : null;
+            ages.add(PetFacetsResponse.AgeBucketCount.builder()
+                    .label(maxAge != null ? minAge + "-" + maxAge + " months" : minAge + "+ months")
+                    .minAge(minAge)
+                    .maxAge(maxAge)
+                    .count(ageCounts[i])
+                    .build());
+        }
+
+        return PetFacetsResponse.builder()
+                .species(values.getOrDefault("species", List.of()))
+                .breeds(values.getOrDefault("breed", List.of()))
+                .genders(values.getOrDefault("gender", List.of()))
+                .countries(values.getOrDefault("country", List.of()))
+                .cities(values.getOrDefault("city", List.of()))
+                .ages(ages)
                 .build();
     }
 
-    public List<String> getAllSpecies() {
-        return petRepository.findAllSpecies();
+    private static Double radiusKm(PetFilters filters) {
+        // A radius only applies when there is a location to measure from
+        boolean hasLocation = filters.getLocation() != null
+                && filters.getLocation().getLat() != null && filters.getLocation().getLng() != null;
+        Double radiusKm = hasLocation ? filters.getRadiusKm() : null;
+        if (radiusKm != null && radiusKm <= 0) {
+            throw new IllegalArgumentException("Radius must be greater than zero");
+        }
+        return radiusKm;
     }
 
-    public List<String> getBreedsBySpecies(String species) {
-        return petRepository.findBreedsBySpecies(species);
+    private PetSearchCriteria toCriteria(PetFilters filters, Double radiusKm) {
+        // Convert age range to birth date bounds
+        LocalDate bornOnOrBefore = null;
+        LocalDate bornAfter = null;
+        if (filters.getAgeRange() != null) {
+            ZonedDateTime now = DateTimeUtil.nowUTC();
+            if (filters.getAgeRange().getMin() != null) {
+                // For minimum age, we need the latest possible birth date
+                bornOnOrBefore = now.minusMonths(filters.getAgeRange().getMin()).toLocalDate();
+            }
+            if (filters.getAgeRange().getMax() != null) {
+                // For maximum age, we need the earliest possible birth date
+                bornAfter = now.minusMonths(filters.getAgeRange().getMax()).toLocalDate();
+            }
+        }
+
+        PetSearchCriteria criteria = PetSearchCriteria.builder()
+                .species(filters.getSpecies())
+                .breed(filters.getBreed())
+                .gender(filters.getGender())
+                .bornOnOrBefore(bornOnOrBefore)
+                .bornAfter(bornAfter)
+                .searchQuery(filters.getSearchQuery())
+                .city(filters.getCity())
+                .country(filters.getCountry())
+                .build();
+
+        // Pets within the radius come from the location index
+        if (radiusKm != null) {
+            criteria.setCandidateIds(petLocationIndex.withinRadius(
+                    filters.getLocation().getLat(), filters.getLocation().getLng(), radiusKm).stream()
+                    .map(GeoIndex.Neighbor::id)
+                    .collect(Collectors.toList()));
+        }
+        return criteria;
     }
 
-    public List<String> getAllGenders() {
-        return petRepository.findAllGenders();
+    private static String countKey(PetSearchCriteria criteria, Double lat, Double lng, Double radiusKm) {
+        // Text filters match case-insensitively, and the radius stands in for its candidate ids
+        return String.join("|", "pets",
+                normalize(criteria.getSpecies()),
+                normalize(criteria.getBreed()),
+                normalize(criteria.getGender()),
+                String.valueOf(criteria.getBornOnOrBefore()),
+                String.valueOf(criteria.getBornAfter()),
+                normalize(criteria.getSearchQuery()),
+                normalize(criteria.getCity()),
+                normalize(criteria.getCountry()),
+                radiusKm != null ? lat + "," + lng + "," + radiusKm : "");
     }
 
-    @Transactional
-    public PetDTO createPet(CreatePetRequest request) {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserDTO currentUser = userService.getUser(userEmail);
+    private static String normalize(String filter) {
+        return filter != null ? filter.trim().toLowerCase() : "";
+    }
 
+    private List<Pet> findNearestPets(PetSearchCriteria criteria, double lat, double lng, Double radiusKm, PageCursor pageCursor, int limit, Map<UUID, Double> distances) {
+        List<Pet> pets = new ArrayList<>();
+
+        // A cursor without a distance points into the pets that have no location
+        boolean pastLocatedPets = pageCursor != null && pageCursor.key() == null;
+        if (!pastLocatedPets) {
+            GeoIndex.Neighbor after = pageCursor != null
+                    ? new GeoIndex.Neighbor(pageCursor.id(), Double.parseDouble(pageCursor.key()))
+                    : null;
+            int batchSize = (int) Math.min(Math.max(2L * limit, MIN_NEAREST_BATCH), MAX_NEAREST_BATCH);
+
+            // Walk outwards from the location and let Postgres apply the other
+            // filters to each batch of nearest pets
+            Iterator<GeoIndex.Neighbor> nearest = petLocationIndex.nearest(lat, lng, radiusKm);
+            while (pets.size() < limit && nearest.hasNext()) {
+                List<GeoIndex.Neighbor> batch = new ArrayList<>();
+                while (batch.size() < batchSize && nearest.hasNext()) {
+                    GeoIndex.Neighbor neighbor = nearest.next();
+                    if (after == null || GeoIndex.ORDER.compare(neighbor, after) > 0) {
+                        batch.add(neighbor);
+                    }
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+
+                // The batch is reordered by distance below, so the query needs no ORDER BY
+                Map<UUID, Pet> matches = petRepository.findPets(criteria.toBuilder()
+                        .candidateIds(batch.stream().map(GeoIndex.Neighbor::id).collect(Collectors.toList()))
+                        .limit(batch.size())
+                        .build()).stream()
+                        .collect(Collectors.toMap(Pet::getId, pet -> pet));
+                for (GeoIndex.Neighbor neighbor : batch) {
+                    Pet pet = matches.get(neighbor.id());
+                    if (pet != null && pets.size() < limit) {
+                        pets.add(pet);
+                        distances.put(pet.getId(), neighbor.distanceKm());
+                    }
+                }
+            }
+
+            // Pets without a location are never within a radius
+            if (pets.size() >= limit || radiusKm != null) {
+                return pets;
+            }
+        }
+
+        // Pets without a location are listed after every located pet
+        pets.addAll(petRepository.findPets(criteria.toBuilder()
+                .withoutLocation(true)
+                .sortBy("distance")
+                .cursor(pastLocatedPets ? pageCursor : null)
+                .limit(limit - pets.size())
+                .build()));
+        return pets;
+    }
+
+    private String normalizeSortBy(String sortBy, boolean hasLocation, boolean hasSearchQuery) {
+        if (sortBy == null || !PET_SORT_OPTIONS.contains(sortBy)) {
+            return "newest";
+        }
+        // Distance sorting needs a location to measure from
+        if (sortBy.equals("distance") && !hasLocation) {
+            return "newest";
+        }
+        // Relevance sorting needs a search query to rank against
+        if (sortBy.equals("relevance") && !hasSearchQuery) {
+            return "newest";
+        }
+        return sortBy;
+    }
+
+    private String getSortKey(Pet pet, String sortBy, String searchQuery, Map<UUID, Double> distances) {
+        return switch (sortBy) {
+            case "youngest", "eldest" -> pet.getBirthDate().toString();
+            case "name_asc", "name_desc" -> pet.getName();
+            case "distance" -> {
+                Double distance = distances.get(pet.getId());
+                yield distance != null ? distance.toString() : null;
+            }
+            case "relevance" -> {
+                Double relevance = petRepository.findRelevance(pet.getId(), searchQuery);
+                yield relevance != null ? relevance.toString() : null;
+            }
+            default -> PageCursor.timestampKey(pet.getCreatedAt());
+        };
+    }
+
+    public ReferenceDataService.ReferenceList getAllSpecies() {
+        return referenceDataService.getSpecies();
+    }
+
+    public ReferenceDataService.ReferenceList getBreedsBySpecies(String species) {
+        return referenceDataService.getBreeds(species);
+    }
+
+    public ReferenceDataService.ReferenceList getAllGenders() {
+        return referenceDataService.getGenders();
+    }
+
+    @Transactional
+    public PetDTO createPet(CreatePetRequest request, UUID userId) {
         // If shelterId is provided, verify user is a member or owner of the shelter
         if (request.getShelterId() != null) {
             Shelter shelter = shelterRepository.findById(request.getShelterId())
                     .orElseThrow(() -> new ResourceNotFoundException("Shelter", "id", request.getShelterId()));
 
-            boolean isOwner = shelter.getOwnerId().equals(currentUser.getId());
+            boolean isOwner = shelter.getOwnerId().equals(userId);
 
             if (!isOwner) {
                 throw new UnauthorizedException("User is not authorized to create pets for this shelter");
@@ -193,7 +390,7 @@ public class PetService {
                 .gender(request.getGender())
                 .birthDate(request.getBirthDate())
                 .status(PetStatus.AVAILABLE)
-                .createdByUserId(currentUser.getId())
+                .createdByUserId(userId)
                 .shelterId(request.getShelterId())
                 .build();
 
@@ -230,23 +427,24 @@ public class PetService {
 
             petAddress = petAddressRepository.save(petAddress);
             pet.setPetAddress(petAddress);
+            referenceDataService.addressAdded(address.getCountry(), address.getCity());
         }
 
+        petSearchService.syncPet(pet.getId());
+        referenceDataService.petAdded(pet.getSpecies(), pet.getBreed(), pet.getGender());
+
         return PetDTO.fromEntity(pet);
     }
 
     @Transactional
-    public PetDTO uploadPetImages(UUID petId, List<MultipartFile> files) {
+    public PetDTO uploadPetImages(UUID petId, List<MultipartFile> files, UUID userId) {
         // Get the pet and verify it exists
         Pet pet = petRepository.findById(petId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pet", "id", petId));
 
         // Verify the current user has permission to modify this pet
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserDTO currentUser = userService.getUser(userEmail);
-
-        boolean isAuthorized = pet.getCreatedByUserId().equals(currentUser.getId()) ||
-                (pet.getShelterId() != null && pet.getShelter().getOwnerId().equals(currentUser.getId()));
+        boolean isAuthorized = pet.getCreatedByUserId().equals(userId) ||
+                (pet.getShelterId() != null && pet.getShelter().getOwnerId().equals(userId));
 
         if (!isAuthorized) {
             throw new UnauthorizedException("User is not authorized to modify this pet");
@@ -279,6 +477,7 @@ public class PetService {
 
         // Save all new pet images
         petImageRepository.saveAll(newPetImages);
+        petSearchService.syncPet(petId);
 
         // Refresh the pet to get the updated image list
         pet = petRepository.findById(petId).orElseThrow();
@@ -300,21 +499,25 @@ public class PetService {
     }
 
     @Transactional
-    public void deletePet(UUID petId) {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserDTO currentUser = userService.getUser(userEmail);
-
+    public void deletePet(UUID petId, UUID userId) {
         Pet pet = petRepository.findById(petId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pet", "id", petId));
 
         // Verify user has permission to delete the pet
-        boolean isAuthorized = pet.getCreatedByUserId().equals(currentUser.getId()) ||
-                (pet.getShelterId() != null && pet.getShelter().getOwnerId().equals(currentUser.getId()));
+        boolean isAuthorized = pet.getCreatedByUserId().equals(userId) ||
+                (pet.getShelterId() != null && pet.getShelter().getOwnerId().equals(userId));
 
         if (!isAuthorized) {
             throw new UnauthorizedException("User is not authorized to delete this pet");
         }
 
+        removePet(pet);
+        petSearchService.syncPet(petId);
+    }
+
+    // Deletes a pet with its images, conversations and messages. Callers check permission and sync pet_search
+    @Transactional
+    public void removePet(Pet pet) {
         // Store image keys for deletion after PetImage records are removed
         List<String> imageKeys = pet.getPetImages().stream()
                 .map(petImage -> petImage.getImage().getKey())
@@ -327,8 +530,16 @@ public class PetService {
         // Now that the foreign key constraints are removed, delete the actual images
         imageKeys.forEach(key -> imageService.deleteImage(key));
 
+        // Conversations about the pet point at it and at its messages, they go first and
+        // their unread messages stop counting towards each participant's badge
+        for (UnreadCount unread : conversationRepository.deleteByPetId(pet.getId())) {
+            userEventService.send(unread.getUserId(),
+                    WebSocketMessage.unreadCount(unread.getUnreadCount(), unread.getDelta()));
+        }
+
         // Delete the pet record
         petRepository.delete(pet);
+        referenceDataService.petRemoved(pet.getSpecies(), pet.getBreed(), pet.getGender());
     }
 
     public AddressDTO getPetAddress(UUID petId) {
@@ -381,16 +592,13 @@ public class PetService {
     }
 
     @Transactional
-    public PetDTO updatePetStatus(UUID petId, PetStatus newStatus) {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserDTO currentUser = userService.getUser(userEmail);
-
+    public PetDTO updatePetStatus(UUID petId, PetStatus newStatus, UUID userId) {
         Pet pet = petRepository.findById(petId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pet", "id", petId));
 
         // Verify user has permission to update the status
-        boolean isAuthorized = pet.getCreatedByUserId().equals(currentUser.getId()) ||
-                (pet.getShelterId() != null && pet.getShelter().getOwnerId().equals(currentUser.getId()));
+        boolean isAuthorized = pet.getCreatedByUserId().equals(userId) ||
+                (pet.getShelterId() != null && pet.getShelter().getOwnerId().equals(userId));
 
         if (!isAuthorized) {
             throw new UnauthorizedException("User is not authorized to update this pet's status");
@@ -403,6 +611,7 @@ public class PetService {
 
         pet.setStatus(newStatus);
         pet = petRepository.save(pet);
+        petSearchService.syncPet(pet.getId());
 
         // Send WebSocket notification about status change
         notifyPetStatusUpdate(pet);
@@ -410,10 +619,6 @@ public class PetService {
         return PetDTO.fromEntity(pet);
     }
 
-    public UserDTO getUserByEmail(String email) {
-        return userService.getUser(email);
-    }
-
     @Transactional
     public PetDTO markPetAsAdopted(UUID petId, UUID userId) {
         Pet pet = petRepository.findById(petId)
@@ -430,10 +635,7 @@ public class PetService {
 
         if (!isOwner) {
             // Check if user has messaged about the pet
-            final UUID finalPetId = pet.getId();
-            boolean hasMessagedAboutPet = messageRepository.findAll().stream()
-                    .filter(m -> finalPetId.equals(m.getPetId()))
-                    .anyMatch(m -> m.getSenderId().equals(userId) || m.getReceiverId().equals(userId));
+            boolean hasMessagedAboutPet = conversationRepository.existsByPetIdAndParticipant(pet.getId(), userId);
 
             if (!hasMessagedAboutPet) {
                 throw new UnauthorizedException("User is not authorized to mark this pet as adopted");
@@ -442,6 +644,7 @@ public class PetService {
 
         pet.setStatus(PetStatus.ADOPTED);
         pet = petRepository.save(pet);
+        petSearchService.syncPet(pet.getId());
 
         // Send WebSocket notification about adoption
         notifyPetStatusUpdate(pet);
@@ -457,26 +660,7 @@ public class PetService {
                         "status", pet.getStatus()))
                 .build();
 
-        // Get all users who have messaged about this pet
-        List<UUID> userIds = messageRepository.findAll().stream()
-                .filter(m -> pet.getId().equals(m.getPetId()))
-                .map(m -> List.of(m.getSenderId(), m.getReceiverId()))
-                .flatMap(List::stream)
-                .distinct()
-                .collect(Collectors.toList());
-
-        // Also include the pet owner
-        userIds.add(pet.getCreatedByUserId());
-
-        // If the pet belongs to a shelter, include the shelter owner too
-        if (pet.getShelterId() != null && pet.getShelter() != null && pet.getShelter().getOwnerId() != null) {
-            userIds.add(pet.getShelter().getOwnerId());
-        }
-
-        // Send notification to all these users
-        userIds.forEach(userId -> messagingTemplate.convertAndSendToUser(
-                userId.toString(),
-                "/queue/messages",
-                wsMessage));
+        // One frame on the pet's topic reaches every viewer, the broker does the fan-out
+        messagingTemplate.convertAndSend(WebSocketConfig.petStatusTopic(pet.getId()), wsMessage);
     }
 }
\ No newline at end of file
@@ -0,0 +1,222 @@
+package org.petconnect.backend.service;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.petconnect.backend.dto.message.WebSocketMessage;
+import org.petconnect.backend.repository.ConversationRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Who is connected and who is typing, kept in memory per WebSocket session.
+ * The user id of a session is resolved once when it connects, so typing frames
+ * never reach the database. Typing events are coalesced per sender, receiver and
+ * pet: the first one is forwarded straight away, repeats only refresh the state,
+ * and the stop is sent on the next flush, which also expires typing states that
+ * were never stopped. With the broker relay a user can be connected to several
+ * instances, so online and offline are only announced when the user registry
+ * holds no session of the user on another instance.
+ */
+@Service
+@RequiredArgsConstructor
+public class PresenceService {
+
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    private static final Duration TYPING_EXPIRY = Duration.ofSeconds(10);
+
+    // Longer than other instances take to broadcast a closed session, see UserRegistryMessageHandler
+    private static final Duration OFFLINE_RECHECK = Duration.ofSeconds(30);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry userRegistry;
+    private final ConversationRepository conversationRepository;
+
+    private final Map<String, UUID> sessionUsers = new ConcurrentHashMap<>();
+    private final Map<UUID, AtomicInteger> sessionCounts = new ConcurrentHashMap<>();
+    private final Map<TypingKey, TypingState> typing = new ConcurrentHashMap<>();
+    // Users whose last session here closed while the registry still listed one elsewhere
+    private final Map<UUID, Instant> pendingOffline = new ConcurrentHashMap<>();
+
+    private record TypingKey(UUID senderId, UUID receiverId, UUID petId) {
+    }
+
+    private static final class TypingState {
+        private volatile Instant lastSeen = Instant.now();
+        private volatile boolean stopRequested;
+    }
+
+    // Runs after the user registry has added the session, see WebSocketConfig
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onConnected(SessionConnectedEvent event) {
+        UUID userId = userId(event.getUser());
+        String sessionId = (String) event.getMessage().getHeaders().get("simpSessionId");
+        if (userId == null || sessionId == null) {
+            return;
+        }
+
+        sessionUsers.put(sessionId, userId);
+        if (sessionCounts.computeIfAbsent(userId, id -> new AtomicInteger()).incrementAndGet() == 1) {
+            // Partners were never told the user went offline, or heard it is online from another instance
+            if (pendingOffline.remove(userId) == null && !connectedElsewhere(userId, sessionId)) {
+                notifyPartners(userId, WebSocketMessage.MessageType.USER_ONLINE);
+            }
+        }
+    }
+
+    // Runs before the user registry removes the session, see WebSocketConfig
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDisconnected(SessionDisconnectEvent event) {
+        UUID userId = sessionUsers.remove(event.getSessionId());
+        if (userId == null) {
+            return;
+        }
+
+        AtomicInteger count = sessionCounts.get(userId);
+        if (count != null && count.decrementAndGet() <= 0) {
+            sessionCounts.remove(userId, count);
+            // Whatever the user was typing is abandoned with the last session
+            typing.forEach((key, state) -> {
+                if (key.senderId().equals(userId)) {
+                    state.stopRequested = true;
+                }
+            });
+            if (connectedElsewhere(userId, event.getSessionId())) {
+                // The registry can still list a session the other instance already closed
+                pendingOffline.put(userId, Instant.now());
+            } else {
+                notifyPartners(userId, WebSocketMessage.MessageType.USER_OFFLINE);
+            }
+        }
+    }
+
+    public UUID getUserId(String sessionId) {
+        return sessionId != null ? sessionUsers.get(sessionId) : null;
+    }
+
+    public boolean isOnline(UUID userId) {
+        // The registry also knows the users of other instances when the broker relay is used
+        return sessionCounts.containsKey(userId) || userRegistry.getUser(userId.toString()) != null;
+    }
+
+    public void typing(String sessionId, UUID receiverId, UUID petId) {
+        UUID senderId = getUserId(sessionId);
+        if (senderId == null || receiverId == null) {
+            return;
+        }
+
+        TypingState created = new TypingState();
+        TypingState state = typing.putIfAbsent(new TypingKey(senderId, receiverId, petId), created);
+        if (state == null) {
+            send(receiverId, WebSocketMessage.MessageType.USER_TYPING, senderId, petId);
+        } else {
+            state.lastSeen = Instant.now();
+            state.stopRequested = false;
+        }
+    }
+
+    public void stoppedTyping(String sessionId, UUID receiverId, UUID petId) {
+        UUID senderId = getUserId(sessionId);
+        if (senderId == null || receiverId == null) {
+            return;
+        }
+
+        TypingState state = typing.get(new TypingKey(senderId, receiverId, petId));
+        if (state != null) {
+            state.stopRequested = true;
+        }
+    }
+
+    @Scheduled(fixedRate = FLUSH_INTERVAL_MS)
+    public void flushTyping() {
+        flushTyping(Instant.now());
+    }
+
+    void flushTyping(Instant now) {
+        Instant expiry = now.minus(TYPING_EXPIRY);
+        typing.forEach((key, state) -> {
+            if ((state.stopRequested || state.lastSeen.isBefore(expiry)) && typing.remove(key, state)) {
+                send(key.receiverId(), WebSocketMessage.MessageType.USER_STOPPED_TYPING, key.senderId(), key.petId());
+            }
+        });
+    }
+
+    @Scheduled(fixedRate = FLUSH_INTERVAL_MS)
+    public void flushOffline() {
+        flushOffline(Instant.now());
+    }
+
+    void flushOffline(Instant now) {
+        Instant giveUp = now.minus(OFFLINE_RECHECK);
+        pendingOffline.forEach((userId, since) -> {
+            if (userRegistry.getUser(userId.toString()) == null) {
+                if (pendingOffline.remove(userId, since)) {
+                    notifyPartners(userId, WebSocketMessage.MessageType.USER_OFFLINE);
+                }
+            } else if (since.isBefore(giveUp)) {
+                // Still connected elsewhere, that instance announces when the user leaves
+                pendingOffline.remove(userId, since);
+            }
+        });
+    }
+
+    private boolean connectedElsewhere(UUID userId, String sessionId) {
+        // The registry answers from other instances before this one, and this instance's
+        // own entry holds the session while it is being connected or disconnected
+        SimpUser user = userRegistry.getUser(userId.toString());
+        return user != null && user.getSession(sessionId) == null;
+    }
+
+    private void notifyPartners(UUID userId, WebSocketMessage.MessageType type) {
+        WebSocketMessage wsMessage = WebSocketMessage.builder()
+                .type(type)
+                .payload(Map.of("userId", userId))
+                .build();
+
+        // Partners without a session are dropped by the broker, or tried on the other instances with the relay
+        conversationRepository.findPartnerIds(userId).forEach(partnerId -> messagingTemplate.convertAndSendToUser(
+                partnerId.toString(),
+                "/queue/messages",
+                wsMessage));
+    }
+
+    private void send(UUID receiverId, WebSocketMessage.MessageType type, UUID senderId, UUID petId) {
+        WebSocketMessage wsMessage = WebSocketMessage.builder()
+                .type(type)
+                .payload(petId != null
+                        ? Map.of("senderId", senderId, "petId", petId)
+                        : Map.of("senderId", senderId))
+                .build();
+
+        messagingTemplate.convertAndSendToUser(receiverId.toString(), "/queue/messages", wsMessage);
+    }
+
+    private static UUID userId(Principal principal) {
+        // WebSocket principals are named by user id, see WebSocketAuthChannelInterceptor
+        if (principal == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(principal.getName());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
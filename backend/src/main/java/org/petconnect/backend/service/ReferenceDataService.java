@@ -0,0 +1,197 @@
+package org.petconnect.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.petconnect.backend.model.CacheChange;
+import org.petconnect.backend.repository.AddressRepository;
+import org.petconnect.backend.repository.CacheChangeRepository;
+import org.petconnect.backend.repository.PetRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory copy of the distinct species, breeds, genders, countries and cities
+ * offered as filters. The lists are loaded once and then only changed by the pet
+ * and address writes that add or remove a value, and every list carries an ETag
+ * so clients can revalidate without downloading it again. Those writes are recorded
+ * in cache_change, and the other nodes reload their lists from it through
+ * {@link CacheChangeService}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReferenceDataService {
+
+    // Close to the database ordering, which does not put upper case before lower case
+    private static final Comparator<String> ORDER = String.CASE_INSENSITIVE_ORDER
+            .thenComparing(Comparator.naturalOrder());
+
+    private final PetRepository petRepository;
+    private final AddressRepository addressRepository;
+    private final CacheChangeRepository cacheChangeRepository;
+
+    private volatile ReferenceList species = ReferenceList.of(List.of());
+    private volatile ReferenceList genders = ReferenceList.of(List.of());
+    private volatile ReferenceList countries = ReferenceList.of(List.of());
+    private final Map<String, ReferenceList> breedsBySpecies = new ConcurrentHashMap<>();
+    private final Map<String, ReferenceList> citiesByCountry = new ConcurrentHashMap<>();
+
+    public record ReferenceList(List<String> values, String etag) {
+
+        static ReferenceList of(Collection<String> values) {
+            TreeSet<String> sorted = new TreeSet<>(ORDER);
+            sorted.addAll(values);
+            List<String> list = List.copyOf(sorted);
+            String etag = "\"" + DigestUtils.md5DigestAsHex(
+                    String.join("\n", list).getBytes(StandardCharsets.UTF_8)) + "\"";
+            return new ReferenceList(list, etag);
+        }
+
+        ReferenceList with(String value) {
+            if (values.contains(value)) {
+                return this;
+            }
+            List<String> changed = new ArrayList<>(values);
+            changed.add(value);
+            return of(changed);
+        }
+
+        ReferenceList without(String value) {
+            if (!values.contains(value)) {
+                return this;
+            }
+            List<String> changed = new ArrayList<>(values);
+            changed.remove(value);
+            return of(changed);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void load() {
+        species = ReferenceList.of(petRepository.findAllSpecies());
+        genders = ReferenceList.of(petRepository.findAllGenders());
+        countries = ReferenceList.of(addressRepository.findDistinctCountries());
+
+        breedsBySpecies.clear();
+        for (String value : species.values()) {
+            breedsBySpecies.put(value, ReferenceList.of(petRepository.findBreedsBySpecies(value)));
+        }
+        citiesByCountry.clear();
+        for (String value : countries.values()) {
+            citiesByCountry.merge(value.toLowerCase(),
+                    ReferenceList.of(addressRepository.findDistinctCitiesByCountry(value)),
+                    (existing, added) -> existing);
+        }
+        log.info("Loaded {} species and {} countries into the reference data cache",
+                species.values().size(), countries.values().size());
+    }
+
+    public ReferenceList getSpecies() {
+        return species;
+    }
+
+    public ReferenceList getBreeds(String species) {
+        return breedsBySpecies.getOrDefault(species.toLowerCase(), ReferenceList.of(List.of()));
+    }
+
+    public ReferenceList getGenders() {
+        return genders;
+    }
+
+    public ReferenceList getCountries() {
+        return countries;
+    }
+
+    public ReferenceList getCities(String country) {
+        return citiesByCountry.getOrDefault(country.toLowerCase(), ReferenceList.of(List.of()));
+    }
+
+    public void petAdded(String species, String breed, String gender) {
+        // Species, breeds and genders are offered lowercase, like the queries return them
+        String speciesKey = species.toLowerCase();
+        afterCommit(() -> {
+            this.species = this.species.with(speciesKey);
+            breedsBySpecies.merge(speciesKey, ReferenceList.of(List.of(breed.toLowerCase())),
+                    (existing, added) -> existing.with(breed.toLowerCase()));
+            genders = genders.with(gender.toLowerCase());
+        });
+    }
+
+    public void petRemoved(String species, String breed, String gender) {
+        // A value only disappears when no other pet still uses it
+        String speciesKey = species.toLowerCase();
+        afterCommit(() -> {
+            if (!petRepository.existsBySpeciesAndBreed(speciesKey, breed)) {
+                breedsBySpecies.computeIfPresent(speciesKey, (key, breeds) -> breeds.without(breed.toLowerCase()));
+            }
+            if (!petRepository.existsBySpecies(speciesKey)) {
+                this.species = this.species.without(speciesKey);
+                breedsBySpecies.remove(speciesKey);
+            }
+            if (!petRepository.existsByGender(gender)) {
+                genders = genders.without(gender.toLowerCase());
+            }
+        });
+    }
+
+    public void addressAdded(String country, String city) {
+        afterCommit(() -> {
+            countries = countries.with(country);
+            citiesByCountry.merge(country.toLowerCase(), ReferenceList.of(List.of(city)),
+                    (existing, added) -> existing.with(city));
+        });
+    }
+
+    public void addressRemoved(String country, String city) {
+        // Countries are listed as stored while cities are looked up by any spelling of the country
+        afterCommit(() -> {
+            if (!addressRepository.existsByCountryAndCity(country, city)) {
+                citiesByCountry.computeIfPresent(country.toLowerCase(), (key, cities) -> cities.without(city));
+            }
+            if (!addressRepository.existsByCountry(country)) {
+                countries = countries.without(country);
+                if (countries.values().stream().noneMatch(value -> value.equalsIgnoreCase(country))) {
+                    citiesByCountry.remove(country.toLowerCase());
+                }
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        // Saved with the write, so other nodes reload only once it commits
+        cacheChangeRepository.save(CacheChange.builder().cache(CacheChange.Cache.REFERENCE_DATA).build());
+
+        // The cache must not see changes that are later rolled back
+        Runnable update = () -> {
+            synchronized (this) {
+                action.run();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package org.petconnect.backend.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Total counts for list pages. Counts are kept for a short time per normalized
+ * filter set, so paging through the same results does not count them again, and
+ * result sets the planner expects to be large get its estimate instead of an
+ * exact scan.
+ */
+@Service
+public class ResultCountService {
+
+    // Result sets estimated above this size are not counted exactly
+    private static final long EXACT_COUNT_LIMIT = 10_000;
+    private static final long TTL_MILLIS = 30_000;
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    public record ResultCount(long value, boolean estimated) {
+    }
+
+    private record CachedCount(ResultCount count, long expiresAt) {
+    }
+
+    public ResultCount count(String key, LongSupplier estimate, LongSupplier exact) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = counts.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.count();
+        }
+
+        long estimated = estimate.getAsLong();
+        ResultCount count = estimated > EXACT_COUNT_LIMIT
+                ? new ResultCount(estimated, true)
+                : new ResultCount(exact.getAsLong(), false);
+
+        // Drop expired entries once the cache is full, and everything if that is not enough
+        if (counts.size() >= MAX_ENTRIES) {
+            counts.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (counts.size() >= MAX_ENTRIES) {
+                counts.clear();
+            }
+        }
+        counts.put(key, new CachedCount(count, now + TTL_MILLIS));
+        return count;
+    }
+}
\ No newline at end of file
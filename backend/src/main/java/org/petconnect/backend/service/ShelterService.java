@@ -1,7 +1,7 @@
 package org.petconnect.backend.service;
 
-import java.util.Base64;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -27,8 +27,9 @@ import org.petconnect.backend.repository.ImageRepository;
 import org.petconnect.backend.repository.PetRepository;
 import org.petconnect.backend.repository.ShelterAddressRepository;
 import org.petconnect.backend.repository.ShelterRepository;
+import org.petconnect.backend.repository.ShelterSearchCriteria;
+import org.petconnect.backend.util.PageCursor;
 import org.petconnect.backend.util.PaginationUtil;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -46,42 +47,50 @@ public class ShelterService {
     private final ImageService imageService;
     private final ImageRepository imageRepository;
     private final AvatarImageRepository avatarImageRepository;
+    private final PetSearchService petSearchService;
+    private final ResultCountService resultCountService;
+    private final ReferenceDataService referenceDataService;
+    private final PetService petService;
 
-    @SuppressWarnings("UseSpecificCatch")
-    public SheltersResponse getShelters(String cursor, ShelterFilters filters, int limit) {
-        // Calculate offset from cursor if provided
-        int offset = 0;
-        if (cursor != null) {
-            try {
-                offset = Integer.parseInt(new String(Base64.getDecoder().decode(cursor)));
-            } catch (Exception e) {
-                // Invalid cursor format, start from beginning
-                offset = 0;
-            }
-        }
+    private static final Set<String> SHELTER_SORT_OPTIONS = Set.of(
+            "newest", "oldest", "name_asc", "name_desc", "distance", "relevance");
+
+    public SheltersResponse getShelters(String cursor, ShelterFilters filters, int limit, boolean includeTotal) {
+        Double lat = filters.getLocation() != null ? filters.getLocation().getLat() : null;
+        Double lng = filters.getLocation() != null ? filters.getLocation().getLng() : null;
+        boolean hasSearchQuery = filters.getSearchQuery() != null && !filters.getSearchQuery().isBlank();
+        String sortBy = normalizeSortBy(filters.getSortBy(), lat != null && lng != null, hasSearchQuery);
+
+        // Decode the keyset cursor, it is only valid for the sort it was issued for
+        PageCursor pageCursor = PageCursor.decode(cursor, sortBy);
 
         // Process limit - if limit is 0, return all data
         limit = PaginationUtil.processLimit(limit);
 
-        // Get total count of shelters matching filters
-        long totalCount = shelterRepository.countSheltersByFilters(
-                filters.getSearchQuery(),
-                filters.getCity(),
-                filters.getCountry());
+        ShelterSearchCriteria criteria = ShelterSearchCriteria.builder()
+                .searchQuery(filters.getSearchQuery())
+                .city(filters.getCity())
+                .country(filters.getCountry())
+                .build();
+
+        // Count the shelters matching the filters only when the caller wants the total
+        ResultCountService.ResultCount totalCount = includeTotal
+                ? resultCountService.count(countKey(criteria),
+                        () -> shelterRepository.estimateShelters(criteria),
+                        () -> shelterRepository.countShelters(criteria))
+                : null;
 
         // Get the limit to use for the query
         int queryLimit = PaginationUtil.getQueryLimit(limit);
 
-        // Execute query with filters
-        List<Shelter> shelters = shelterRepository.findSheltersByFilters(
-                filters.getSearchQuery(),
-                filters.getSortBy(),
-                filters.getLocation() != null ? filters.getLocation().getLat() : null,
-                filters.getLocation() != null ? filters.getLocation().getLng() : null,
-                filters.getCity(),
-                filters.getCountry(),
-                queryLimit,
-                offset);
+        // Execute query with filters, seeking past the last row of the previous page
+        List<Shelter> shelters = shelterRepository.findShelters(criteria.toBuilder()
+                .lat(lat)
+                .lng(lng)
+                .sortBy(sortBy)
+                .cursor(pageCursor)
+                .limit(queryLimit)
+                .build());
 
         // Process results
         PaginationUtil.PaginationResult<Shelter> result = PaginationUtil.processResults(shelters, limit);
@@ -91,20 +100,61 @@ public class ShelterService {
                 .map(ShelterDTO::fromEntity)
                 .collect(Collectors.toList());
 
-        // Create next cursor if we have more results
-        String nextCursor = null;
-        if (result.hasMore()) {
-            nextCursor = Base64.getEncoder().encodeToString(String.valueOf(offset + limit).getBytes());
-        }
+        // Create next cursor from the last row if we have more results
+        String nextCursor = PageCursor.nextCursor(result, sortBy,
+                shelter -> getSortKey(shelter, sortBy, lat, lng, filters.getSearchQuery()), Shelter::getId);
 
         return SheltersResponse.builder()
                 .shelters(shelterDTOs)
                 .nextCursor(nextCursor)
                 .hasMore(result.hasMore())
-                .totalCount(totalCount)
+                .totalCount(totalCount != null ? totalCount.value() : null)
+                .totalCountEstimated(totalCount != null && totalCount.estimated())
                 .build();
     }
 
+    private static String countKey(ShelterSearchCriteria criteria) {
+        // Text filters match case-insensitively, so differently cased requests share a count
+        return String.join("|", "shelters",
+                normalize(criteria.getSearchQuery()),
+                normalize(criteria.getCity()),
+                normalize(criteria.getCountry()));
+    }
+
+    private static String normalize(String filter) {
+        return filter != null ? filter.trim().toLowerCase() : "";
+    }
+
+    private String normalizeSortBy(String sortBy, boolean hasLocation, boolean hasSearchQuery) {
+        if (sortBy == null || !SHELTER_SORT_OPTIONS.contains(sortBy)) {
+            return "newest";
+        }
+        // Distance sorting needs a location to measure from
+        if (sortBy.equals("distance") && !hasLocation) {
+            return "newest";
+        }
+        // Relevance sorting needs a search query to rank against
+        if (sortBy.equals("relevance") && !hasSearchQuery) {
+            return "newest";
+        }
+        return sortBy;
+    }
+
+    private String getSortKey(Shelter shelter, String sortBy, Double lat, Double lng, String searchQuery) {
+        return switch (sortBy) {
+            case "name_asc", "name_desc" -> shelter.getName();
+            case "distance" -> {
+                Double distance = shelterRepository.findDistanceMiles(shelter.getId(), lat, lng);
+                yield distance != null ? distance.toString() : null;
+            }
+            case "relevance" -> {
+                Double relevance = shelterRepository.findRelevance(shelter.getId(), searchQuery);
+                yield relevance != null ? relevance.toString() : null;
+            }
+            default -> PageCursor.timestampKey(shelter.getCreatedAt());
+        };
+    }
+
     public List<ShelterDTO> getAllShelters() {
         return shelterRepository.findAll().stream()
                 .map(ShelterDTO::fromEntity)
@@ -124,18 +174,9 @@ public class ShelterService {
                 .collect(Collectors.toList());
     }
 
-    @SuppressWarnings("UseSpecificCatch")
     public PetsResponse getShelterPets(UUID shelterId, String cursor, int limit) {
-        // Calculate offset from cursor if provided
-        int offset = 0;
-        if (cursor != null) {
-            try {
-                offset = Integer.parseInt(new String(Base64.getDecoder().decode(cursor)));
-            } catch (Exception e) {
-                // Invalid cursor format, start from beginning
-                offset = 0;
-            }
-        }
+        // Decode the keyset cursor if provided
+        PageCursor pageCursor = PageCursor.decode(cursor, "newest");
 
         // Process limit - if limit is 0, return all data
         limit = PaginationUtil.processLimit(limit);
@@ -150,8 +191,12 @@ public class ShelterService {
         // Get the limit to use for the query
         int queryLimit = PaginationUtil.getQueryLimit(limit);
 
-        // Get paginated pets using the repository method
-        List<Pet> pets = petRepository.findByShelterIdWithPagination(shelterId, queryLimit, offset);
+        // Get the ids of the page, then load the pets with their details at once
+        List<Pet> pets = petRepository.findAllWithDetails(petRepository.findIdsByShelterIdWithPagination(
+                shelterId,
+                PageCursor.keyOf(pageCursor),
+                PageCursor.idOf(pageCursor),
+                queryLimit));
 
         // Process results
         PaginationUtil.PaginationResult<Pet> result = PaginationUtil.processResults(pets, limit);
@@ -161,11 +206,9 @@ public class ShelterService {
                 .map(PetDTO::fromEntity)
                 .collect(Collectors.toList());
 
-        // Create next cursor if we have more results
-        String nextCursor = null;
-        if (result.hasMore()) {
-            nextCursor = Base64.getEncoder().encodeToString(String.valueOf(offset + limit).getBytes());
-        }
+        // Create next cursor from the last row if we have more results
+        String nextCursor = PageCursor.nextCursor(result, "newest",
+                pet -> PageCursor.timestampKey(pet.getCreatedAt()), Pet::getId);
 
         return PetsResponse.builder()
                 .pets(petDTOs)
@@ -176,10 +219,7 @@ public class ShelterService {
     }
 
     @Transactional
-    public ShelterDTO createShelter(CreateShelterRequest request) {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserDTO currentUser = userService.getUser(userEmail);
-
+    public ShelterDTO createShelter(CreateShelterRequest request, UUID userId) {
         // Create and save the shelter
         Shelter shelter = Shelter.builder()
                 .name(request.getName())
@@ -187,7 +227,7 @@ public class ShelterService {
                 .phone(request.getPhone())
                 .email(request.getEmail())
                 .website(request.getWebsite())
-                .ownerId(currentUser.getId())
+                .ownerId(userId)
                 .build();
         shelter = shelterRepository.save(shelter);
 
@@ -222,21 +262,19 @@ public class ShelterService {
 
             shelterAddress = shelterAddressRepository.save(shelterAddress);
             shelter.setShelterAddress(shelterAddress);
+            referenceDataService.addressAdded(address.getCountry(), address.getCity());
         }
 
         return ShelterDTO.fromEntity(shelter);
     }
 
     @Transactional
-    public ShelterDTO updateShelter(UUID id, CreateShelterRequest request) {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserDTO currentUser = userService.getUser(userEmail);
-
+    public ShelterDTO updateShelter(UUID id, CreateShelterRequest request, UUID userId) {
         Shelter shelter = shelterRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Shelter", "id", id));
 
         // Verify user is the owner
-        if (!shelter.getOwnerId().equals(currentUser.getId())) {
+        if (!shelter.getOwnerId().equals(userId)) {
             throw new UnauthorizedException("Only the shelter owner can update the shelter");
         }
 
@@ -256,6 +294,7 @@ public class ShelterService {
             if (shelterAddress != null) {
                 // Update existing address
                 address = shelterAddress.getAddress();
+                referenceDataService.addressRemoved(address.getCountry(), address.getCity());
             } else {
                 // Create new address and relationship
                 address = new Address();
@@ -286,21 +325,22 @@ public class ShelterService {
                 shelterAddress = shelterAddressRepository.save(shelterAddress);
                 shelter.setShelterAddress(shelterAddress);
             }
+            referenceDataService.addressAdded(address.getCountry(), address.getCity());
         }
 
+        // Shelter pets carry the shelter name and location in the search read model
+        petSearchService.syncShelterPets(shelter.getId());
+
         return ShelterDTO.fromEntity(shelter);
     }
 
     @Transactional
-    public ShelterDTO uploadShelterAvatar(UUID shelterId, MultipartFile file) {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserDTO currentUser = userService.getUser(userEmail);
-
+    public ShelterDTO uploadShelterAvatar(UUID shelterId, MultipartFile file, UUID userId) {
         Shelter shelter = shelterRepository.findById(shelterId)
                 .orElseThrow(() -> new ResourceNotFoundException("Shelter", "id", shelterId));
 
         // Verify user is the owner
-        if (!shelter.getOwnerId().equals(currentUser.getId())) {
+        if (!shelter.getOwnerId().equals(userId)) {
             throw new UnauthorizedException("Only the shelter owner can update this shelter");
         }
 
@@ -345,36 +385,21 @@ public class ShelterService {
     }
 
     @Transactional
-    public void deleteShelter(UUID shelterId) {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserDTO currentUser = userService.getUser(userEmail);
-
+    public void deleteShelter(UUID shelterId, UUID userId) {
         Shelter shelter = shelterRepository.findById(shelterId)
                 .orElseThrow(() -> new ResourceNotFoundException("Shelter", "id", shelterId));
 
         // Verify user is the owner
-        if (!shelter.getOwnerId().equals(currentUser.getId())) {
+        if (!shelter.getOwnerId().equals(userId)) {
             throw new UnauthorizedException("Only the shelter owner can delete this shelter");
         }
 
         // Find and delete all pets associated with the shelter
         List<Pet> shelterPets = petRepository.findByShelterIdOrderByCreatedAtDesc(shelterId);
         for (Pet pet : shelterPets) {
-            // Store image keys for deletion after PetImage records are removed
-            List<String> imageKeys = pet.getPetImages().stream()
-                    .map(petImage -> petImage.getImage().getKey())
-                    .collect(Collectors.toList());
-
-            // Clear the pet's image collection to remove the PetImage records
-            pet.getPetImages().clear();
-            petRepository.save(pet);
-
-            // Delete the actual image files
-            imageKeys.forEach(key -> imageService.deleteImage(key));
-
-            // Delete the pet
-            petRepository.delete(pet);
+            petService.removePet(pet);
         }
+        petSearchService.syncShelterPets(shelterId);
 
         // Delete shelter's avatar if exists
         if (shelter.getAvatarImageId() != null) {
@@ -397,6 +422,7 @@ public class ShelterService {
 
             shelterAddressRepository.delete(shelterAddress);
             addressRepository.delete(address);
+            referenceDataService.addressRemoved(address.getCountry(), address.getCity());
         }
 
         // Delete the shelter
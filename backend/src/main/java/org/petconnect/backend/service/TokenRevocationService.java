@@ -0,0 +1,102 @@
+package org.petconnect.backend.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.petconnect.backend.repository.RevokedTokenRepository;
+import org.petconnect.backend.repository.RevokedTokenRepository.Revocation;
+import org.petconnect.backend.util.BloomFilter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the ids of revoked tokens. The revoked_token table is the list every node
+ * shares, and each node holds it in a Bloom filter, so a token that was never
+ * revoked is let through without a query. A possible match is confirmed against
+ * the table. Nodes follow each other's revocations by polling the table for rows
+ * revoked since the last poll. Expired rows are purged from the table, and the
+ * filter is rebuilt from what is left once it holds more distinct ids than it was
+ * sized for.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    private static final int MIN_CAPACITY = 100_000;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final long POLL_INTERVAL_MS = 1000;
+
+    // A revocation committed late can carry an older revoked_at than rows already read
+    private static final Duration FEED_OVERLAP = Duration.ofSeconds(10);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private volatile BloomFilter revoked = new BloomFilter(MIN_CAPACITY, FALSE_POSITIVE_PROBABILITY);
+    private volatile int capacity = MIN_CAPACITY;
+    private Instant lastRevokedAt = Instant.EPOCH;
+
+    @PostConstruct
+    public void load() {
+        rebuild();
+    }
+
+    public boolean isRevoked(UUID tokenId) {
+        return revoked.mightContain(tokenId) && revokedTokenRepository.existsById(tokenId);
+    }
+
+    // Returns false when the token was already revoked
+    public boolean revoke(UUID tokenId, Instant expiresAt) {
+        boolean inserted = revokedTokenRepository.revoke(tokenId, expiresAt) > 0;
+        // Other nodes see the row on their next poll
+        revoked.add(tokenId);
+        return inserted;
+    }
+
+    @Scheduled(fixedDelay = POLL_INTERVAL_MS)
+    public synchronized void pollRevocations() {
+        // Ids read again in the overlap are already in the filter and not counted again
+        if (revoked.size() > capacity) {
+            rebuild();
+            return;
+        }
+        try {
+            BloomFilter filter = revoked;
+            for (Revocation revocation : revokedTokenRepository.findRevokedSince(lastRevokedAt.minus(FEED_OVERLAP))) {
+                filter.add(revocation.getTokenId());
+                lastRevokedAt = revocation.getRevokedAt();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Reading revoked tokens failed, retrying on the next poll", e);
+        }
+    }
+
+    // Purged ids stay in the filter until it is next rebuilt. Their tokens have expired and
+    // fail verification before revocation is checked, so they cost no lookup meanwhile
+    @Scheduled(cron = "0 30 * * * *")
+    public void purgeExpiredTokens() {
+        int purged = revokedTokenRepository.deleteExpired();
+        if (purged > 0) {
+            log.info("Purged {} expired revoked tokens", purged);
+        }
+    }
+
+    private synchronized void rebuild() {
+        // Read before the ids, tokens revoked here while the table is read are read again by the next poll
+        Instant last = revokedTokenRepository.findLastRevokedAt();
+        List<UUID> tokenIds = revokedTokenRepository.findAllTokenIds();
+        int rebuiltCapacity = Math.max(MIN_CAPACITY, tokenIds.size() * 2);
+        BloomFilter filter = new BloomFilter(rebuiltCapacity, FALSE_POSITIVE_PROBABILITY);
+        tokenIds.forEach(filter::add);
+        revoked = filter;
+        capacity = rebuiltCapacity;
+        lastRevokedAt = last != null ? last : Instant.EPOCH;
+        log.debug("Loaded {} revoked tokens", tokenIds.size());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,283 @@
+package org.petconnect.backend.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.petconnect.backend.dto.message.WebSocketMessage;
+import org.petconnect.backend.model.UserEvent;
+import org.petconnect.backend.repository.UserEventRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Numbers the events pushed to a user's queue so a reconnecting client can be sent
+ * only what it missed. Every event is recorded with the user's next sequence in the
+ * transaction that causes it and pushed once that commits. The latest events of
+ * recently active users are also kept in memory, and a client that connects with a
+ * last-sequence header is sent the events after it when it subscribes to its queue,
+ * from memory when they are all there and from the database otherwise. When the gap
+ * is too large or already purged it is told to reload instead.
+ */
+@Service
+@Slf4j
+public class UserEventService {
+
+    public static final String LAST_SEQUENCE_HEADER = "last-sequence";
+
+    private static final String USER_QUEUE = "/queue/messages";
+    private static final String USER_QUEUE_SUBSCRIPTION = "/user" + USER_QUEUE;
+    private static final int BUFFERED_EVENTS_PER_USER = 100;
+    private static final int MAX_BUFFERED_USERS = 10_000;
+    private static final int MAX_REPLAYED_EVENTS = 200;
+    private static final int RETENTION_DAYS = 7;
+
+    private final UserEventRepository userEventRepository;
+    private final PresenceService presenceService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpMessagingTemplate sessionTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Least recently used users are dropped first, their events are still in the database
+    private final Map<UUID, Deque<WebSocketMessage>> recentEvents = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Deque<WebSocketMessage>> eldest) {
+            return size() > MAX_BUFFERED_USERS;
+        }
+    };
+    private final Map<String, Long> pendingResumes = new ConcurrentHashMap<>();
+
+    public UserEventService(UserEventRepository userEventRepository, PresenceService presenceService,
+            SimpMessagingTemplate messagingTemplate,
+            @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+            ObjectMapper objectMapper) {
+        this.userEventRepository = userEventRepository;
+        this.presenceService = presenceService;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+
+        // Replays go straight to the subscribing session, they must not wait for the broker to see the subscription
+        this.sessionTemplate = new SimpMessagingTemplate(clientOutboundChannel);
+        this.sessionTemplate.setMessageConverter(messagingTemplate.getMessageConverter());
+    }
+
+    public void send(UUID userId, WebSocketMessage message) {
+        sendAll(userId, List.of(message));
+    }
+
+    public void sendAll(UUID userId, List<WebSocketMessage> messages) {
+        List<Map<String, Object>> records = new ArrayList<>(messages.size());
+        for (WebSocketMessage message : messages) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("type", message.getType().name());
+            record.put("payload", message.getPayload());
+            records.add(record);
+        }
+
+        // The sequences come back unordered but were handed out in the order of the messages
+        List<Long> sequences = new ArrayList<>(userEventRepository.appendAll(userId, toJson(records)));
+        sequences.sort(Comparator.naturalOrder());
+        List<WebSocketMessage> events = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            events.add(WebSocketMessage.builder()
+                    .type(messages.get(i).getType())
+                    .payload(messages.get(i).getPayload())
+                    .sequence(sequences.get(i))
+                    .build());
+        }
+
+        // A rolled back event must not be seen, its sequence is handed out again
+        afterCommit(() -> events.forEach(event -> {
+            remember(userId, event);
+            push(userId, event);
+        }));
+    }
+
+    // Runs after the commit, so a failure must not reach the caller as a failed transaction.
+    // The event is recorded, the client is sent it when it reconnects with its last sequence
+    private void push(UUID userId, WebSocketMessage event) {
+        try {
+            messagingTemplate.convertAndSendToUser(userId.toString(), USER_QUEUE, event);
+        } catch (RuntimeException e) {
+            log.warn("Pushing event {} to user {} failed", event.getSequence(), userId, e);
+        }
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String lastSequence = accessor.getFirstNativeHeader(LAST_SEQUENCE_HEADER);
+        if (lastSequence == null || accessor.getSessionId() == null) {
+            return;
+        }
+        try {
+            pendingResumes.put(accessor.getSessionId(), Long.parseLong(lastSequence));
+        } catch (NumberFormatException e) {
+            // Treated like a client that has nothing to resume
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        if (!USER_QUEUE_SUBSCRIPTION.equals(accessor.getDestination()) || accessor.getSessionId() == null) {
+            return;
+        }
+
+        Long after = pendingResumes.remove(accessor.getSessionId());
+        UUID userId = presenceService.getUserId(accessor.getSessionId());
+        if (after == null || userId == null) {
+            return;
+        }
+
+        // One frame keeps the events in order, the outbound channel does not
+        List<WebSocketMessage> missed = missedEvents(userId, after);
+        WebSocketMessage reply = missed != null
+                ? WebSocketMessage.builder().type(WebSocketMessage.MessageType.MISSED_EVENTS).payload(missed).build()
+                : WebSocketMessage.builder().type(WebSocketMessage.MessageType.RESYNC_REQUIRED).build();
+
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(accessor.getSessionId());
+        headers.setSubscriptionId(accessor.getSubscriptionId());
+        headers.setLeaveMutable(true);
+        sessionTemplate.convertAndSend(USER_QUEUE_SUBSCRIPTION, reply, headers.getMessageHeaders());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        pendingResumes.remove(event.getSessionId());
+    }
+
+    @Scheduled(cron = "0 0 * * * *")
+    public void purgeExpiredEvents() {
+        int purged = userEventRepository.deleteOlderThanDays(RETENTION_DAYS);
+        if (purged > 0) {
+            log.info("Purged {} user events older than {} days", purged, RETENTION_DAYS);
+        }
+    }
+
+    private List<WebSocketMessage> missedEvents(UUID userId, long after) {
+        long last = userEventRepository.findLastSequence(userId).orElse(0L);
+        if (after == last) {
+            return List.of();
+        }
+        // Ahead of the log means the client knows a different history, too far behind is cheaper to reload
+        if (after > last || last - after > MAX_REPLAYED_EVENTS) {
+            return null;
+        }
+
+        List<WebSocketMessage> buffered = bufferedEvents(userId, after, last);
+        if (buffered != null) {
+            return buffered;
+        }
+
+        List<UserEvent> events = userEventRepository.findAfter(userId, after, MAX_REPLAYED_EVENTS);
+        if (events.isEmpty() || events.get(0).getSequence() != after + 1) {
+            return null;
+        }
+        List<WebSocketMessage> missed = new ArrayList<>(events.size());
+        for (UserEvent event : events) {
+            missed.add(WebSocketMessage.builder()
+                    .type(WebSocketMessage.MessageType.valueOf(event.getType()))
+                    .payload(fromJson(event.getPayload()))
+                    .sequence(event.getSequence())
+                    .build());
+        }
+        return missed;
+    }
+
+    private List<WebSocketMessage> bufferedEvents(UUID userId, long after, long last) {
+        // Only usable when memory holds every event up to the last one, another instance may have sent some
+        synchronized (recentEvents) {
+            Deque<WebSocketMessage> events = recentEvents.get(userId);
+            if (events == null || events.isEmpty() || events.peekFirst().getSequence() > after + 1) {
+                return null;
+            }
+
+            List<WebSocketMessage> missed = new ArrayList<>();
+            long expected = after + 1;
+            for (WebSocketMessage event : events) {
+                if (event.getSequence() <= after) {
+                    continue;
+                }
+                if (event.getSequence() != expected) {
+                    return null;
+                }
+                missed.add(event);
+                expected++;
+            }
+            return expected - 1 == last ? missed : null;
+        }
+    }
+
+    private void remember(UUID userId, WebSocketMessage event) {
+        synchronized (recentEvents) {
+            Deque<WebSocketMessage> events = recentEvents.computeIfAbsent(userId, id -> new ArrayDeque<>());
+            if (events.isEmpty() || events.peekLast().getSequence() < event.getSequence()) {
+                events.addLast(event);
+            } else {
+                // Transactions of the same user can commit their callbacks out of order
+                List<WebSocketMessage> sorted = new ArrayList<>(events);
+                sorted.add(event);
+                sorted.sort(Comparator.comparing(WebSocketMessage::getSequence));
+                events.clear();
+                events.addAll(sorted);
+            }
+            while (events.size() > BUFFERED_EVENTS_PER_USER) {
+                events.removeFirst();
+            }
+        }
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize event payload", e);
+        }
+    }
+
+    private Object fromJson(String payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read event payload", e);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
\ No newline at end of file
@@ -21,6 +21,7 @@ import org.petconnect.backend.repository.ImageRepository;
 import org.petconnect.backend.repository.PetRepository;
 import org.petconnect.backend.repository.ShelterRepository;
 import org.petconnect.backend.repository.UserRepository;
+import org.petconnect.backend.util.PageCursor;
 import org.petconnect.backend.util.PaginationUtil;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -39,19 +40,6 @@ public class UserService {
     private final PetRepository petRepository;
     private final ShelterRepository shelterRepository;
 
-    public UserDTO getUser(String identifier) {
-        // Try to parse the identifier as a UUID first
-        try {
-            UUID userId = UUID.fromString(identifier);
-            return getUserById(userId);
-        } catch (IllegalArgumentException e) {
-            // If it's not a valid UUID, assume it's an email
-            User user = userRepository.findByEmail(identifier)
-                    .orElseThrow(() -> new ResourceNotFoundException("User", "email", identifier));
-            return UserDTO.fromEntity(user);
-        }
-    }
-
     public UserDTO getUserById(UUID id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
@@ -59,9 +47,9 @@ public class UserService {
     }
 
     @Transactional
-    public UserDTO updateUser(String email, UpdateUserRequest request) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
+    public UserDTO updateUser(UUID id, UpdateUserRequest request) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
 
         // Validate unique constraints if email or username is being updated
         if (request.getEmail() != null && !request.getEmail().equals(user.getEmail())) {
@@ -91,9 +79,9 @@ public class UserService {
     }
 
     @Transactional
-    public UserDTO updateAvatar(String email, MultipartFile file) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
+    public UserDTO updateAvatar(UUID id, MultipartFile file) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
 
         // Upload the new avatar image first
         FileResponse response = imageService.uploadImage(file,
@@ -136,9 +124,9 @@ public class UserService {
     }
 
     @Transactional
-    public void removeAvatar(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
+    public void removeAvatar(UUID id) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
 
         UUID avatarId = user.getAvatarImageId();
         if (avatarId == null) {
@@ -159,15 +147,9 @@ public class UserService {
         avatarImageRepository.delete(avatar);
     }
 
-    public PetsResponse getUserPets(String email, String cursor, Integer limit) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        // Parse cursor if provided
-        int offset = 0;
-        if (cursor != null && !cursor.isEmpty()) {
-            offset = Integer.parseInt(cursor);
-        }
+    public PetsResponse getUserPets(UUID userId, String cursor, Integer limit) {
+        // Decode the keyset cursor if provided
+        PageCursor pageCursor = PageCursor.decode(cursor, "newest");
 
         // Process limit - if limit is 0, return all data
         int processedLimit = PaginationUtil.processLimit(limit);
@@ -175,11 +157,15 @@ public class UserService {
         // Get the limit to use for the query
         int queryLimit = PaginationUtil.getQueryLimit(processedLimit);
 
-        // Get paginated pets
-        List<Pet> pets = petRepository.findByOwnerIdWithPagination(user.getId(), queryLimit, offset);
+        // Get the ids of the page, then load the pets with their details at once
+        List<Pet> pets = petRepository.findAllWithDetails(petRepository.findIdsByOwnerIdWithPagination(
+                userId,
+                PageCursor.keyOf(pageCursor),
+                PageCursor.idOf(pageCursor),
+                queryLimit));
 
         // Get total count for pagination
-        long totalCount = petRepository.countByOwnerId(user.getId());
+        long totalCount = petRepository.countByOwnerId(userId);
 
         // Process results
         PaginationUtil.PaginationResult<Pet> result = PaginationUtil.processResults(pets, processedLimit);
@@ -189,11 +175,9 @@ public class UserService {
                 .map(PetDTO::fromEntity)
                 .toList();
 
-        // Calculate next cursor
-        String nextCursor = null;
-        if (result.hasMore()) {
-            nextCursor = String.valueOf(offset + processedLimit);
-        }
+        // Calculate next cursor from the last row
+        String nextCursor = PageCursor.nextCursor(result, "newest",
+                pet -> PageCursor.timestampKey(pet.getCreatedAt()), Pet::getId);
 
         return PetsResponse.builder()
                 .pets(petDTOs)
@@ -203,15 +187,9 @@ public class UserService {
                 .build();
     }
 
-    public SheltersResponse getUserShelters(String email, String cursor, Integer limit) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        // Parse cursor if provided
-        int offset = 0;
-        if (cursor != null && !cursor.isEmpty()) {
-            offset = Integer.parseInt(cursor);
-        }
+    public SheltersResponse getUserShelters(UUID userId, String cursor, Integer limit) {
+        // Decode the keyset cursor if provided
+        PageCursor pageCursor = PageCursor.decode(cursor, "newest");
 
         // Process limit - if limit is 0, return all data
         int processedLimit = PaginationUtil.processLimit(limit);
@@ -219,10 +197,14 @@ public class UserService {
         // Get the limit to use for the query
         int queryLimit = PaginationUtil.getQueryLimit(processedLimit);
 
-        // Get paginated shelters owned by user
-        List<Shelter> shelters = shelterRepository.findByOwnerIdOrderByCreatedAtDesc(user.getId(), queryLimit, offset);
+        // Get the ids of the page, then load the shelters owned by user with their details at once
+        List<Shelter> shelters = shelterRepository.findAllWithDetails(shelterRepository.findIdsByOwnerIdWithPagination(
+                userId,
+                PageCursor.keyOf(pageCursor),
+                PageCursor.idOf(pageCursor),
+                queryLimit));
 
-        long totalCount = shelterRepository.countByOwnerId(user.getId());
+        long totalCount = shelterRepository.countByOwnerId(userId);
 
         // Process results
         PaginationUtil.PaginationResult<Shelter> result = PaginationUtil.processResults(shelters, processedLimit);
@@ -232,11 +214,9 @@ public class UserService {
                 .map(ShelterDTO::fromEntity)
                 .toList();
 
-        // Calculate next cursor
-        String nextCursor = null;
-        if (result.hasMore()) {
-            nextCursor = String.valueOf(offset + processedLimit);
-        }
+        // Calculate next cursor from the last row
+        String nextCursor = PageCursor.nextCursor(result, "newest",
+                shelter -> PageCursor.timestampKey(shelter.getCreatedAt()), Shelter::getId);
 
         return SheltersResponse.builder()
                 .shelters(shelterDTOs)
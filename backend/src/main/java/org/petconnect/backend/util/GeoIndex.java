@@ -0,0 +1,205 @@
+package org.petconnect.backend.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe in-memory spatial index over lat/lng points.
+ * Points are bucketed into a fixed grid of latitude/longitude cells. Nearest
+ * neighbour queries visit cells in order of their minimum possible distance, so
+ * the closest points can be streamed without measuring every point in the index.
+ */
+public class GeoIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final double cellSizeDegrees;
+    private final Map<UUID, Point> points = new ConcurrentHashMap<>();
+    private final Map<Long, Set<UUID>> cells = new ConcurrentHashMap<>();
+
+    public record Point(UUID id, double lat, double lng) {
+    }
+
+    public record Neighbor(UUID id, double distanceKm) {
+    }
+
+    // Nearest first, ties broken by id so the order is stable across pages
+    public static final Comparator<Neighbor> ORDER = Comparator.comparingDouble(Neighbor::distanceKm)
+            .thenComparing(Neighbor::id, Comparator.reverseOrder());
+
+    public GeoIndex(double cellSizeDegrees) {
+        this.cellSizeDegrees = cellSizeDegrees;
+    }
+
+    public void put(UUID id, double lat, double lng) {
+        Point point = new Point(id, lat, lng);
+        Point previous = points.put(id, point);
+        if (previous != null) {
+            removeFromCell(previous);
+        }
+        cells.computeIfAbsent(cellKey(lat, lng), key -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    public void remove(UUID id) {
+        Point previous = points.remove(id);
+        if (previous != null) {
+            removeFromCell(previous);
+        }
+    }
+
+    public void clear() {
+        points.clear();
+        cells.clear();
+    }
+
+    public boolean contains(UUID id) {
+        return points.containsKey(id);
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * Streams the points within radiusKm of the given location, nearest first.
+     * A null radius streams every point in the index.
+     */
+    public Iterator<Neighbor> nearest(double lat, double lng, Double radiusKm) {
+        return new NearestIterator(lat, lng, radiusKm != null ? radiusKm : Double.MAX_VALUE);
+    }
+
+    public List<Neighbor> withinRadius(double lat, double lng, double radiusKm) {
+        List<Neighbor> neighbors = new ArrayList<>();
+        nearest(lat, lng, radiusKm).forEachRemaining(neighbors::add);
+        return neighbors;
+    }
+
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        // Haversine formula on a spherical earth
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private void removeFromCell(Point point) {
+        cells.computeIfPresent(cellKey(point.lat(), point.lng()), (key, ids) -> {
+            ids.remove(point.id());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private long cellKey(double lat, double lng) {
+        long row = (long) Math.floor((lat + 90.0) / cellSizeDegrees);
+        long col = (long) Math.floor((lng + 180.0) / cellSizeDegrees);
+        return (row << 32) | col;
+    }
+
+    private double minDistanceKm(long cellKey, double lat, double lng) {
+        // Lower bound from the latitude gap: no point in the cell can be closer
+        // than the nearest parallel bounding it
+        double minLat = (cellKey >>> 32) * cellSizeDegrees - 90.0;
+        double maxLat = minLat + cellSizeDegrees;
+        double latGap = lat < minLat ? minLat - lat : lat > maxLat ? lat - maxLat : 0.0;
+        double latBound = Math.toRadians(latGap) * EARTH_RADIUS_KM;
+
+        // Lower bound from the longitude gap: the distance to the great circle of
+        // the nearest bounding meridian, which holds for gaps up to 90 degrees
+        double minLng = (cellKey & 0xFFFFFFFFL) * cellSizeDegrees - 180.0;
+        double maxLng = minLng + cellSizeDegrees;
+        double lngGap = 0.0;
+        if (lng < minLng || lng > maxLng) {
+            double toMin = Math.abs(lng - minLng) % 360.0;
+            double toMax = Math.abs(lng - maxLng) % 360.0;
+            lngGap = Math.min(Math.min(toMin, 360.0 - toMin), Math.min(toMax, 360.0 - toMax));
+        }
+        double lngBound = lngGap <= 90.0
+                ? Math.asin(Math.cos(Math.toRadians(lat)) * Math.sin(Math.toRadians(lngGap))) * EARTH_RADIUS_KM
+                : 0.0;
+
+        return Math.max(latBound, lngBound);
+    }
+
+    private record CellBound(long key, double minDistanceKm) {
+    }
+
+    private class NearestIterator implements Iterator<Neighbor> {
+
+        private final double lat;
+        private final double lng;
+        private final double radiusKm;
+        private final PriorityQueue<CellBound> pendingCells = new PriorityQueue<>(
+                Comparator.comparingDouble(CellBound::minDistanceKm));
+        private final PriorityQueue<Neighbor> candidates = new PriorityQueue<>(ORDER);
+        private Neighbor next;
+
+        NearestIterator(double lat, double lng, double radiusKm) {
+            this.lat = lat;
+            this.lng = lng;
+            this.radiusKm = radiusKm;
+            for (Long key : cells.keySet()) {
+                double bound = minDistanceKm(key, lat, lng);
+                if (bound <= radiusKm) {
+                    pendingCells.add(new CellBound(key, bound));
+                }
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (true) {
+                // A candidate is final once no unvisited cell can hold anything closer
+                Neighbor head = candidates.peek();
+                CellBound cell = pendingCells.peek();
+                if (head != null && (cell == null || head.distanceKm() <= cell.minDistanceKm())) {
+                    candidates.poll();
+                    if (head.distanceKm() <= radiusKm) {
+                        next = head;
+                    }
+                    return;
+                }
+                if (cell == null) {
+                    return;
+                }
+
+                pendingCells.poll();
+                Set<UUID> ids = cells.get(cell.key());
+                if (ids == null) {
+                    continue;
+                }
+                for (UUID id : ids) {
+                    Point point = points.get(id);
+                    if (point != null) {
+                        candidates.add(new Neighbor(id, distanceKm(lat, lng, point.lat(), point.lng())));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Neighbor next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Neighbor current = next;
+            advance();
+            return current;
+        }
+    }
+}
\ No newline at end of file
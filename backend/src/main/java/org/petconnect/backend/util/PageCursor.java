@@ -0,0 +1,67 @@
+package org.petconnect.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Opaque keyset pagination cursor.
+ * Carries the sort mode, the sort key of the last returned row and its id, so
+ * the next page can seek directly past that row instead of skipping an offset.
+ */
+public record PageCursor(String sort, String key, UUID id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static String encode(String sort, String key, UUID id) {
+        // The key goes last because it is free text (e.g. a pet name) and may
+        // contain the separator
+        String raw = sort + SEPARATOR + id + SEPARATOR + (key != null ? key : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("UseSpecificCatch")
+    public static PageCursor decode(String cursor, String expectedSort) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 3);
+            if (parts.length != 3 || !parts[0].equals(expectedSort)) {
+                // Cursor was issued for a different sort order, start from beginning
+                return null;
+            }
+            return new PageCursor(parts[0], parts[2].isEmpty() ? null : parts[2], UUID.fromString(parts[1]));
+        } catch (Exception e) {
+            // Invalid cursor format, start from beginning
+            return null;
+        }
+    }
+
+    public static <T> String nextCursor(PaginationUtil.PaginationResult<T> result, String sort,
+            Function<T, String> keyExtractor, Function<T, UUID> idExtractor) {
+        if (!result.hasMore() || result.getResults().isEmpty()) {
+            return null;
+        }
+
+        T last = result.getResults().get(result.getResults().size() - 1);
+        return encode(sort, keyExtractor.apply(last), idExtractor.apply(last));
+    }
+
+    public static String timestampKey(ZonedDateTime dateTime) {
+        // An instant with its offset, compared as timestamptz, so neither the JVM nor the session zone matters
+        return dateTime != null ? dateTime.toInstant().toString() : null;
+    }
+
+    public static String keyOf(PageCursor cursor) {
+        return cursor != null ? cursor.key() : null;
+    }
+
+    public static String idOf(PageCursor cursor) {
+        return cursor != null ? cursor.id().toString() : null;
+    }
+}
\ No newline at end of file
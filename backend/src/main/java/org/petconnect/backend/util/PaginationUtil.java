@@ -1,9 +1,18 @@
 package org.petconnect.backend.util;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class PaginationUtil {
 
+    // Keeps IN lists well below the bind parameter limit when every row is requested
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private PaginationUtil() {
     }
 
@@ -46,6 +55,22 @@ public class PaginationUtil {
         return new PaginationResult<>(results, hasMore);
     }
 
+    public static <T> List<T> loadInOrder(List<UUID> ids, Function<List<UUID>, List<T>> loader,
+            Function<T, UUID> idOf) {
+        // Rows come back in whatever order the database returns them, so they are put back in page order
+        Map<UUID, T> rowsById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+            List<UUID> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IDS_PER_QUERY));
+            for (T row : loader.apply(chunk)) {
+                rowsById.put(idOf.apply(row), row);
+            }
+        }
+        return ids.stream()
+                .map(rowsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     public static class PaginationResult<T> {
         private final List<T> results;
         private final boolean hasMore;
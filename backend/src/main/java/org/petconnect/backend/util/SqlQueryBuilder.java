@@ -0,0 +1,105 @@
+package org.petconnect.backend.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+/**
+ * Builds native SQL from only the predicates and ordering a request actually uses.
+ * Filters that are not set never reach the statement, so Postgres can plan each
+ * combination against the matching indexes instead of one generic catch-all plan.
+ */
+public class SqlQueryBuilder {
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    private final List<String> predicates = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private String orderBy;
+    private Integer limit;
+
+    public SqlQueryBuilder where(String predicate) {
+        predicates.add(predicate);
+        return this;
+    }
+
+    public SqlQueryBuilder where(String predicate, String name, Object value) {
+        predicates.add(predicate);
+        parameters.put(name, value);
+        return this;
+    }
+
+    public SqlQueryBuilder parameter(String name, Object value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    public SqlQueryBuilder orderBy(String orderBy) {
+        this.orderBy = orderBy;
+        return this;
+    }
+
+    public SqlQueryBuilder limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public String getOrderBy() {
+        return orderBy;
+    }
+
+    public String toSql(String selectFrom) {
+        StringBuilder sql = new StringBuilder(selectFrom);
+        appendWhere(sql);
+        if (orderBy != null) {
+            sql.append(" ORDER BY ").append(orderBy);
+        }
+        if (limit != null) {
+            sql.append(" LIMIT ").append(limit);
+        }
+        return sql.toString();
+    }
+
+    public String toCountSql(String selectCountFrom) {
+        // Ordering and limits never change a count, so they are left out
+        StringBuilder sql = new StringBuilder(selectCountFrom);
+        appendWhere(sql);
+        return sql.toString();
+    }
+
+    public Query createQuery(EntityManager entityManager, String selectFrom) {
+        return bind(entityManager.createNativeQuery(toSql(selectFrom)));
+    }
+
+    public Query createQuery(EntityManager entityManager, String selectFrom, Class<?> resultClass) {
+        return bind(entityManager.createNativeQuery(toSql(selectFrom), resultClass));
+    }
+
+    public Query createCountQuery(EntityManager entityManager, String selectCountFrom) {
+        return bind(entityManager.createNativeQuery(toCountSql(selectCountFrom)));
+    }
+
+    public long estimateRows(EntityManager entityManager, String selectFrom) {
+        // The top plan node carries the planner's row estimate, no rows are read
+        List<?> plan = bind(entityManager.createNativeQuery("EXPLAIN " + toCountSql(selectFrom))).getResultList();
+        Matcher rows = plan.isEmpty() ? null : PLAN_ROWS.matcher(String.valueOf(plan.get(0)));
+        return rows != null && rows.find() ? Long.parseLong(rows.group(1)) : 0;
+    }
+
+    public Query bind(Query query) {
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    private void appendWhere(StringBuilder sql) {
+        if (!predicates.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package org.petconnect.backend.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limit. A bucket starts full, every acquire takes a token and
+ * tokens come back at a fixed rate up to the capacity, so a client may send a
+ * burst of capacity requests and then one per refill interval.
+ */
+public class TokenBucket {
+
+    private final int capacity;
+    private final long refillNanos;
+    private final LongSupplier nanoTime;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(int capacity, long refillInterval, TimeUnit unit) {
+        this(capacity, refillInterval, unit, System::nanoTime);
+    }
+
+    TokenBucket(int capacity, long refillInterval, TimeUnit unit, LongSupplier nanoTime) {
+        this.capacity = capacity;
+        this.refillNanos = unit.toNanos(refillInterval);
+        this.nanoTime = nanoTime;
+        this.tokens = capacity;
+        this.refilledAt = nanoTime.getAsLong();
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    // Seconds until the next token, rounded up so a client retrying then is let through
+    public synchronized long secondsUntilToken() {
+        refill();
+        if (tokens >= 1) {
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) * refillNanos / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    // A full bucket is the same as a new one, so it can be dropped
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill() {
+        long now = nanoTime.getAsLong();
+        tokens = Math.min(capacity, tokens + (double) (now - refilledAt) / refillNanos);
+        refilledAt = now;
+    }
+}
\ No newline at end of file
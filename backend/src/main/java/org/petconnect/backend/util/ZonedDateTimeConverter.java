@@ -1,6 +1,6 @@
 package org.petconnect.backend.util;
 
-import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
@@ -8,31 +8,27 @@ import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 
 @Converter(autoApply = true)
-public class ZonedDateTimeConverter implements AttributeConverter<ZonedDateTime, Timestamp> {
+public class ZonedDateTimeConverter implements AttributeConverter<ZonedDateTime, Instant> {
 
     private static final ZoneId UTC = ZoneId.of("UTC");
 
     @Override
-    public Timestamp convertToDatabaseColumn(ZonedDateTime attribute) {
+    public Instant convertToDatabaseColumn(ZonedDateTime attribute) {
         if (attribute == null) {
             return null;
         }
 
-        // Make sure the ZonedDateTime is in UTC before converting to timestamp
-        ZonedDateTime utcDateTime = attribute.getZone().equals(UTC)
-                ? attribute
-                : attribute.withZoneSameInstant(UTC);
-
-        return Timestamp.valueOf(utcDateTime.toLocalDateTime());
+        // Stored as an instant in a timestamptz column, so neither the JVM nor the session zone matters
+        return attribute.toInstant();
     }
 
     @Override
-    public ZonedDateTime convertToEntityAttribute(Timestamp dbData) {
+    public ZonedDateTime convertToEntityAttribute(Instant dbData) {
         if (dbData == null) {
             return null;
         }
 
-        // Convert the Timestamp to a ZonedDateTime in UTC
-        return dbData.toLocalDateTime().atZone(UTC);
+        // Convert the instant to a ZonedDateTime in UTC
+        return dbData.atZone(UTC);
     }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+-- V1, V4 and V7 create plain timestamp columns, while the entities map ZonedDateTime
+-- to timestamptz. The stored values are UTC wall-clock times, so they are read as UTC.
+-- Columns that already have a time zone, as ddl-auto created them, are left alone.
+DO $$
+DECLARE
+    col record;
+BEGIN
+    FOR col IN
+        SELECT c.table_name, c.column_name
+        FROM information_schema.columns c
+        WHERE c.table_schema = current_schema()
+          AND c.data_type = 'timestamp without time zone'
+          AND (c.table_name, c.column_name) IN (
+              ('image', 'uploaded_at'), ('avatar_image', 'created_at'), ('user', 'created_at'),
+              ('address', 'created_at'), ('shelter', 'created_at'), ('shelter_address', 'created_at'),
+              ('pet', 'created_at'), ('pet_address', 'created_at'), ('pet_image', 'created_at'),
+              ('favorite', 'created_at'), ('message', 'sent_at'), ('pet_search', 'created_at'),
+              ('conversation', 'last_message_at'), ('user_event', 'created_at'))
+    LOOP
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN %I TYPE timestamp(6) with time zone USING %I AT TIME ZONE ''UTC''',
+            col.table_name, col.column_name, col.column_name);
+    END LOOP;
+END $$;
\ No newline at end of file
@@ -0,0 +1,12 @@
+-- Writes that change a node's in-memory caches, the pet location index and the
+-- reference data lists. The writing node updates its own caches after commit, the
+-- other nodes follow this table by changed_at and refresh what it names. A row
+-- without a pet_id stands for every pet. Rows are purged once every node has read them.
+CREATE TABLE IF NOT EXISTS cache_change (
+    id bigserial PRIMARY KEY,
+    cache varchar(32) NOT NULL,
+    pet_id uuid,
+    changed_at timestamp(6) with time zone NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_cache_change_changed_at ON cache_change (changed_at);
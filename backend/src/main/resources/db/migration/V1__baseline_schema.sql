@@ -0,0 +1,170 @@
+-- Baseline schema, matching what Hibernate used to create with ddl-auto: update.
+-- Every statement is idempotent so databases created before migrations existed
+-- are brought up to date instead of failing on existing objects.
+
+CREATE EXTENSION IF NOT EXISTS cube;
+CREATE EXTENSION IF NOT EXISTS earthdistance;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE TABLE IF NOT EXISTS image (
+    id uuid NOT NULL PRIMARY KEY,
+    key varchar(255) NOT NULL UNIQUE,
+    bucket varchar(100) NOT NULL,
+    file_type varchar(50) NOT NULL,
+    file_size bigint NOT NULL,
+    uploaded_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS avatar_image (
+    id uuid NOT NULL PRIMARY KEY,
+    image_id uuid NOT NULL REFERENCES image,
+    created_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS "user" (
+    id uuid NOT NULL PRIMARY KEY,
+    username varchar(50) NOT NULL UNIQUE,
+    email varchar(100) NOT NULL UNIQUE,
+    first_name varchar(100) NOT NULL,
+    last_name varchar(100) NOT NULL,
+    password_hash varchar(255) NOT NULL,
+    avatar_image_id uuid REFERENCES avatar_image,
+    created_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS address (
+    id uuid NOT NULL PRIMARY KEY,
+    address1 varchar(255) NOT NULL,
+    address2 varchar(255),
+    formatted_address varchar(255) NOT NULL,
+    city varchar(100) NOT NULL,
+    region varchar(100) NOT NULL,
+    postal_code varchar(20) NOT NULL,
+    country varchar(100) NOT NULL,
+    lat float(53) NOT NULL,
+    lng float(53) NOT NULL,
+    created_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS shelter (
+    id uuid NOT NULL PRIMARY KEY,
+    name varchar(100) NOT NULL,
+    description varchar(255),
+    email varchar(255),
+    phone varchar(255),
+    website varchar(255),
+    owner_id uuid NOT NULL REFERENCES "user",
+    avatar_image_id uuid REFERENCES avatar_image,
+    created_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS shelter_address (
+    id uuid NOT NULL PRIMARY KEY,
+    shelter_id uuid NOT NULL REFERENCES shelter,
+    address_id uuid NOT NULL REFERENCES address,
+    created_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS pet (
+    id uuid NOT NULL PRIMARY KEY,
+    name varchar(50) NOT NULL,
+    description varchar(255),
+    species varchar(50) NOT NULL,
+    breed varchar(50) NOT NULL,
+    gender varchar(50) NOT NULL,
+    birth_date date NOT NULL,
+    status varchar(255) NOT NULL CHECK (status IN ('AVAILABLE', 'ADOPTED', 'PENDING')),
+    created_by_user_id uuid REFERENCES "user",
+    shelter_id uuid REFERENCES shelter,
+    created_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS pet_address (
+    id uuid NOT NULL PRIMARY KEY,
+    pet_id uuid NOT NULL REFERENCES pet,
+    address_id uuid NOT NULL REFERENCES address,
+    created_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS pet_image (
+    id uuid NOT NULL PRIMARY KEY,
+    pet_id uuid NOT NULL REFERENCES pet,
+    image_id uuid NOT NULL REFERENCES image,
+    is_primary boolean NOT NULL,
+    created_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS favorite (
+    user_id uuid NOT NULL REFERENCES "user",
+    pet_id uuid NOT NULL REFERENCES pet,
+    created_at timestamp(6) NOT NULL,
+    PRIMARY KEY (pet_id, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS message (
+    id uuid NOT NULL PRIMARY KEY,
+    sender_id uuid NOT NULL REFERENCES "user",
+    receiver_id uuid NOT NULL REFERENCES "user",
+    content varchar(2000) NOT NULL,
+    is_read boolean NOT NULL,
+    shelter_id uuid REFERENCES shelter,
+    pet_id uuid REFERENCES pet,
+    sent_at timestamp(6) NOT NULL
+);
+
+-- Denormalized read model for pet browsing, maintained by PetSearchService
+CREATE TABLE IF NOT EXISTS pet_search (
+    pet_id uuid NOT NULL PRIMARY KEY,
+    name varchar(50) NOT NULL,
+    description varchar(255),
+    species varchar(50) NOT NULL,
+    breed varchar(50) NOT NULL,
+    gender varchar(50) NOT NULL,
+    birth_date date NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    owner_id uuid,
+    shelter_id uuid,
+    shelter_name varchar(100),
+    city varchar(100),
+    country varchar(100),
+    lat float(53),
+    lng float(53),
+    primary_image_key varchar(255)
+);
+
+CREATE INDEX IF NOT EXISTS idx_pet_search_created_at ON pet_search (created_at, pet_id);
+CREATE INDEX IF NOT EXISTS idx_pet_search_birth_date ON pet_search (birth_date, pet_id);
+CREATE INDEX IF NOT EXISTS idx_pet_search_name ON pet_search (name, pet_id);
+CREATE INDEX IF NOT EXISTS idx_pet_search_species_breed ON pet_search (species, breed);
+CREATE INDEX IF NOT EXISTS idx_pet_search_gender ON pet_search (gender);
+CREATE INDEX IF NOT EXISTS idx_pet_search_city ON pet_search (city);
+CREATE INDEX IF NOT EXISTS idx_pet_search_country ON pet_search (country);
+CREATE INDEX IF NOT EXISTS idx_pet_search_shelter_id ON pet_search (shelter_id);
+CREATE INDEX IF NOT EXISTS idx_pet_search_location ON pet_search USING gist (ll_to_earth(lat, lng));
+
+-- Full-text search vectors, names weighted above descriptions
+ALTER TABLE pet_search ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', COALESCE(name, '')), 'A') ||
+        setweight(to_tsvector('english', COALESCE(description, '')), 'B')
+    ) STORED;
+ALTER TABLE shelter ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', COALESCE(name, '')), 'A') ||
+        setweight(to_tsvector('english', COALESCE(description, '')), 'B')
+    ) STORED;
+CREATE INDEX IF NOT EXISTS idx_pet_search_search_vector ON pet_search USING gin (search_vector);
+CREATE INDEX IF NOT EXISTS idx_shelter_search_vector ON shelter USING gin (search_vector);
+
+-- Trigram indexes for typo-tolerant name matching
+CREATE INDEX IF NOT EXISTS idx_pet_search_name_trgm ON pet_search USING gin (LOWER(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_shelter_name_trgm ON shelter USING gin (LOWER(name) gin_trgm_ops);
+
+-- Case-insensitive species, breed and gender lookups on pet
+CREATE INDEX IF NOT EXISTS idx_pet_lower_species_breed ON pet (LOWER(species), LOWER(breed));
+CREATE INDEX IF NOT EXISTS idx_pet_lower_gender ON pet (LOWER(gender));
+CREATE INDEX IF NOT EXISTS idx_pet_birth_date ON pet (birth_date);
+
+-- Keyset indexes for the shelter sorts
+CREATE INDEX IF NOT EXISTS idx_shelter_created_at ON shelter (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_shelter_name ON shelter (name, id);
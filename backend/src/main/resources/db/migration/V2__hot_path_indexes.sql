@@ -0,0 +1,23 @@
+-- Indexes for the foreign keys and filters that the hot read paths look up by
+
+-- Conversations and unread counts
+CREATE INDEX IF NOT EXISTS idx_message_pet_id ON message (pet_id);
+CREATE INDEX IF NOT EXISTS idx_message_receiver_id_is_read ON message (receiver_id, is_read);
+CREATE INDEX IF NOT EXISTS idx_message_sender_id_receiver_id ON message (sender_id, receiver_id);
+
+-- Pet listings per status, owner and shelter
+CREATE INDEX IF NOT EXISTS idx_pet_status_created_at ON pet (status, created_at);
+CREATE INDEX IF NOT EXISTS idx_pet_created_by_user_id ON pet (created_by_user_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_pet_shelter_id ON pet (shelter_id, created_at, id);
+
+-- Addresses and images loaded with every pet and shelter
+CREATE INDEX IF NOT EXISTS idx_pet_address_pet_id ON pet_address (pet_id);
+CREATE INDEX IF NOT EXISTS idx_pet_image_pet_id ON pet_image (pet_id);
+CREATE INDEX IF NOT EXISTS idx_pet_image_image_id ON pet_image (image_id);
+CREATE INDEX IF NOT EXISTS idx_shelter_address_shelter_id ON shelter_address (shelter_id);
+
+-- Favorites pages, newest first
+CREATE INDEX IF NOT EXISTS idx_favorite_user_id_created_at ON favorite (user_id, created_at, pet_id);
+
+-- Shelter city and country filters
+CREATE INDEX IF NOT EXISTS idx_address_lower_country_city ON address (LOWER(country), LOWER(city));
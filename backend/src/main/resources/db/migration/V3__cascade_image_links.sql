@@ -0,0 +1,23 @@
+-- Deleting an image removes its avatar_image or pet_image link in the database,
+-- so the image entity no longer maps both links just to cascade to them.
+-- Databases baselined from Hibernate DDL have generated constraint names, so the
+-- existing keys are looked up instead of dropped by name.
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN
+        SELECT conrelid::regclass AS table_name, conname
+        FROM pg_constraint
+        WHERE contype = 'f'
+          AND confrelid = 'image'::regclass
+          AND conrelid IN ('avatar_image'::regclass, 'pet_image'::regclass)
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.table_name, fk.conname);
+    END LOOP;
+END $$;
+
+ALTER TABLE avatar_image
+    ADD CONSTRAINT avatar_image_image_id_fkey FOREIGN KEY (image_id) REFERENCES image ON DELETE CASCADE;
+ALTER TABLE pet_image
+    ADD CONSTRAINT pet_image_image_id_fkey FOREIGN KEY (image_id) REFERENCES image ON DELETE CASCADE;
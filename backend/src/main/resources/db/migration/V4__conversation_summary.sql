@@ -0,0 +1,36 @@
+-- Conversation read model, one row per pair of users and pet with its latest message
+-- and each participant's unread count, so inboxes no longer search the message table
+-- for the latest message of every conversation. user_a_id is the smaller user id.
+-- Rows are maintained by MessageService in the transaction that sends or reads messages.
+CREATE TABLE IF NOT EXISTS conversation (
+    user_a_id uuid NOT NULL REFERENCES "user",
+    user_b_id uuid NOT NULL REFERENCES "user",
+    pet_id uuid NOT NULL REFERENCES pet,
+    last_message_id uuid NOT NULL REFERENCES message,
+    last_message_at timestamp(6) NOT NULL,
+    user_a_unread integer NOT NULL,
+    user_b_unread integer NOT NULL,
+    PRIMARY KEY (user_a_id, user_b_id, pet_id),
+    CHECK (user_a_id <= user_b_id)
+);
+
+-- A user's inbox is a range scan on each side of the pair, merged by recency
+CREATE INDEX IF NOT EXISTS idx_conversation_user_a ON conversation (user_a_id, last_message_at);
+CREATE INDEX IF NOT EXISTS idx_conversation_user_b ON conversation (user_b_id, last_message_at);
+
+-- Messages sent to oneself count as unread for user_a only
+INSERT INTO conversation (user_a_id, user_b_id, pet_id, last_message_id, last_message_at, user_a_unread,
+    user_b_unread)
+SELECT DISTINCT ON (c.user_a_id, c.user_b_id, c.pet_id)
+    c.user_a_id, c.user_b_id, c.pet_id, c.id, c.sent_at,
+    COUNT(*) FILTER (WHERE NOT c.is_read AND c.receiver_id = c.user_a_id)
+        OVER (PARTITION BY c.user_a_id, c.user_b_id, c.pet_id),
+    COUNT(*) FILTER (WHERE NOT c.is_read AND c.receiver_id = c.user_b_id AND c.user_a_id <> c.user_b_id)
+        OVER (PARTITION BY c.user_a_id, c.user_b_id, c.pet_id)
+FROM (
+    SELECT m.*, LEAST(m.sender_id, m.receiver_id) AS user_a_id, GREATEST(m.sender_id, m.receiver_id) AS user_b_id
+    FROM message m
+    WHERE m.pet_id IS NOT NULL
+) c
+ORDER BY c.user_a_id, c.user_b_id, c.pet_id, c.sent_at DESC, c.id DESC
+ON CONFLICT DO NOTHING;
\ No newline at end of file
@@ -0,0 +1,11 @@
+-- Canonical key of the conversation a message belongs to: both users in a fixed order
+-- and the pet. A conversation's history is then one range of the
+-- (conversation_key, sent_at, id) index, paged by seeking past the last message.
+CREATE OR REPLACE FUNCTION conversation_key(user_id uuid, other_id uuid, pet_id uuid) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+    AS $$ SELECT LEAST(user_id, other_id)::text || '/' || GREATEST(user_id, other_id)::text || '/' || pet_id::text $$;
+
+ALTER TABLE message ADD COLUMN IF NOT EXISTS conversation_key text
+    GENERATED ALWAYS AS (conversation_key(sender_id, receiver_id, pet_id)) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_message_conversation_key ON message (conversation_key, sent_at, id);
\ No newline at end of file
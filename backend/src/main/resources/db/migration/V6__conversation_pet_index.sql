@@ -0,0 +1,2 @@
+-- Adoption checks whether the user has a conversation about the pet
+CREATE INDEX IF NOT EXISTS idx_conversation_pet_id ON conversation (pet_id);
\ No newline at end of file
@@ -0,0 +1,19 @@
+-- Durable log of the events pushed to each user's queue, so a reconnecting client can
+-- be sent what it missed instead of reloading everything. Sequences count up per user
+-- and are handed out by user_event_sequence in the transaction that records the event.
+CREATE TABLE IF NOT EXISTS user_event_sequence (
+    user_id uuid PRIMARY KEY REFERENCES "user" ON DELETE CASCADE,
+    last_sequence bigint NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS user_event (
+    user_id uuid NOT NULL REFERENCES "user" ON DELETE CASCADE,
+    sequence bigint NOT NULL,
+    type varchar(32) NOT NULL,
+    payload jsonb NOT NULL,
+    created_at timestamp(6) NOT NULL DEFAULT now(),
+    PRIMARY KEY (user_id, sequence)
+);
+
+-- Events past the retention period are purged by age
+CREATE INDEX IF NOT EXISTS idx_user_event_created_at ON user_event (created_at);
\ No newline at end of file
@@ -0,0 +1,18 @@
+-- Each user's total unread count, so the unread badge is a primary key lookup instead of
+-- a sum over the user's conversations. Maintained in the same statements that change the
+-- conversation unread counts, see ConversationRepository.
+CREATE TABLE IF NOT EXISTS user_unread_count (
+    user_id uuid PRIMARY KEY REFERENCES "user" ON DELETE CASCADE,
+    unread_count integer NOT NULL
+);
+
+-- A conversation with oneself is counted for user_a only
+INSERT INTO user_unread_count (user_id, unread_count)
+SELECT c.user_id, SUM(c.unread)
+FROM (
+    SELECT user_a_id AS user_id, user_a_unread AS unread FROM conversation
+    UNION ALL
+    SELECT user_b_id AS user_id, user_b_unread AS unread FROM conversation WHERE user_a_id <> user_b_id
+) c
+GROUP BY c.user_id
+ON CONFLICT DO NOTHING;
\ No newline at end of file
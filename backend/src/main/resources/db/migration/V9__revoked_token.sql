@@ -0,0 +1,11 @@
+-- Access and refresh tokens revoked before they expire, by their jti claim. Every node keeps
+-- the ids in an in-memory Bloom filter and follows this table by revoked_at to pick up the
+-- revocations made on other nodes. A row is purged once its token would have expired anyway.
+CREATE TABLE IF NOT EXISTS revoked_token (
+    token_id uuid PRIMARY KEY,
+    expires_at timestamp(6) with time zone NOT NULL,
+    revoked_at timestamp(6) with time zone NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_revoked_token_revoked_at ON revoked_token (revoked_at);
+CREATE INDEX IF NOT EXISTS idx_revoked_token_expires_at ON revoked_token (expires_at);
\ No newline at end of file
@@ -0,0 +1,208 @@
+package org.petconnect.backend.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.petconnect.backend.config.helper.YamlConfig;
+import org.petconnect.backend.repository.PetRepository;
+import org.petconnect.backend.service.JwtService;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs two application nodes in RELAY mode against an embedded Artemis STOMP broker and
+ * checks that a user destination sent on one node reaches the user's session on the other,
+ * first through the unresolved destination broadcast and then through the shared user registry.
+ */
+class BrokerRelayTest {
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    @TempDir
+    static Path brokerDir;
+
+    private static EmbeddedActiveMQ broker;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void start() throws Exception {
+        int stompPort = freePort();
+        ConfigurationImpl configuration = new ConfigurationImpl();
+        configuration.setPersistenceEnabled(false);
+        configuration.setSecurityEnabled(false);
+        configuration.setBrokerInstance(brokerDir.toFile());
+        configuration.addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + stompPort
+                + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+        broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(configuration);
+        broker.start();
+
+        nodeA = startNode(stompPort);
+        nodeB = startNode(stompPort);
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (broker != null) {
+            broker.stop();
+        }
+    }
+
+    @Test
+    void aUserDestinationSentOnOneNodeReachesASessionOnTheOther() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        StompSession session = connect(nodeB, received);
+        try {
+            SimpMessagingTemplate template = nodeA.getBean("brokerMessagingTemplate", SimpMessagingTemplate.class);
+
+            // Node A does not know the user yet, the destination is broadcast until node B resolves it
+            assertThat(sendUntilReceived(template, "before registry sync", received)).isTrue();
+
+            // Once node B's registry broadcast arrives node A resolves the session itself
+            SimpUserRegistry registryA = nodeA.getBean(SimpUserRegistry.class);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (registryA.getUser(USER_ID.toString()) == null && System.nanoTime() < deadline) {
+                Thread.sleep(200);
+            }
+            assertThat(registryA.getUser(USER_ID.toString())).isNotNull();
+            assertThat(sendUntilReceived(template, "after registry sync", received)).isTrue();
+        } finally {
+            session.disconnect();
+        }
+    }
+
+    private static boolean sendUntilReceived(SimpMessagingTemplate template, String payload,
+            BlockingQueue<String> received) throws InterruptedException {
+        // The subscription reaches the broker asynchronously, so the first sends may find nobody
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            template.convertAndSendToUser(USER_ID.toString(), "/queue/messages", payload);
+            String message = received.poll(500, TimeUnit.MILLISECONDS);
+            if (payload.equals(message)) {
+                received.clear();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static StompSession connect(ConfigurableApplicationContext node, BlockingQueue<String> received)
+            throws Exception {
+        WebSocketStompClient client = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        client.setMessageConverter(new StringMessageConverter());
+
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer test-token");
+        String url = "http://localhost:" + node.getEnvironment().getProperty("local.server.port") + "/api/v1/ws";
+        StompSession session = client.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders,
+                new StompSessionHandlerAdapter() {
+                }).get(10, TimeUnit.SECONDS);
+
+        session.subscribe("/user/queue/messages", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return String.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((String) payload);
+            }
+        });
+        return session;
+    }
+
+    private static ConfigurableApplicationContext startNode(int stompPort) {
+        return new SpringApplicationBuilder(RelayNode.class)
+                .properties("server.port=0", "spring.main.banner-mode=off", "broker.relay.port=" + stompPort)
+                .run();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({ ServletWebServerFactoryAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class, WebSocketServletAutoConfiguration.class,
+            JacksonAutoConfiguration.class })
+    @Import(WebSocketConfig.class)
+    static class RelayNode {
+
+        @Bean
+        YamlConfig yamlConfig(org.springframework.core.env.Environment environment) {
+            YamlConfig config = new YamlConfig();
+            config.getBroker().setMode(YamlConfig.Broker.Mode.RELAY);
+            config.getBroker().getRelay().setHost("127.0.0.1");
+            config.getBroker().getRelay().setPort(environment.getRequiredProperty("broker.relay.port", Integer.class));
+            YamlConfig.Cors cors = new YamlConfig.Cors();
+            cors.setAllowedOrigins(List.of("http://localhost"));
+            config.setCors(cors);
+            return config;
+        }
+
+        @Bean
+        WebSocketAuthChannelInterceptor webSocketAuthChannelInterceptor() {
+            JwtService jwtService = mock(JwtService.class);
+            when(jwtService.verify(anyString())).thenReturn(new JwtService.VerifiedToken(UUID.randomUUID(),
+                    "access", "relay@example.com", USER_ID, List.of("USER"), Instant.now().plusSeconds(600)));
+            return new WebSocketAuthChannelInterceptor(jwtService, mock(PetRepository.class));
+        }
+
+        @Bean
+        WebSocketSessionMetrics webSocketSessionMetrics() {
+            return new WebSocketSessionMetrics(new SimpleMeterRegistry());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.petconnect.backend.config;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.petconnect.backend.config.helper.YamlConfig;
+import org.petconnect.backend.model.User;
+import org.petconnect.backend.service.JwtService;
+import org.petconnect.backend.service.TokenRevocationService;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Measures authenticating a request through JwtAuthenticationFilter. The legacy
+ * benchmark repeats what the filter did before tokens were verified once: it
+ * decoded the key and built a parser for each of the three parses it made. The
+ * cold benchmark sends more distinct tokens than JwtService keeps, so every one is
+ * parsed, and the cached one sends the same token each time, also as a cookie
+ * among the others a browser sends. The legacy user
+ * lookup is answered from memory, so only token handling is measured.
+ *
+ * Run from the IDE or with
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=org.petconnect.backend.config.JwtAuthenticationFilterBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "dGhpcy1pcy1hLWJlbmNobWFyay1zZWNyZXQtb2YtYXQtbGVhc3QtMjU2LWJpdHM=";
+    private static final int COLD_TOKENS = 20_000;
+
+    private final User user = User.builder()
+            .id(UUID.randomUUID())
+            .email("benchmark@petconnect.org")
+            .build();
+    private final UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+            user.getEmail(), "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    private final UserDetailsService userDetailsService = username -> userDetails;
+
+    private YamlConfig yamlConfig;
+    private JwtAuthenticationFilter filter;
+    private String token;
+    private String[] coldTokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        YamlConfig.Jwt jwt = new YamlConfig.Jwt();
+        jwt.setSecret(SECRET);
+        jwt.setCookieName("token");
+        yamlConfig = new YamlConfig();
+        yamlConfig.setJwt(jwt);
+
+        // Nothing is revoked, so the empty filter answers and the table is never read
+        JwtService jwtService = new JwtService(yamlConfig, new TokenRevocationService(null));
+        filter = new JwtAuthenticationFilter(jwtService, new ObjectMapper());
+        token = jwtService.generateToken(user);
+
+        coldTokens = new String[COLD_TOKENS];
+        for (int i = 0; i < COLD_TOKENS; i++) {
+            coldTokens[i] = jwtService.generateToken(user);
+        }
+    }
+
+    @Benchmark
+    public Object cachedToken() throws Exception {
+        return authenticate(token);
+    }
+
+    @Benchmark
+    public Object cookieToken() throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/me");
+        request.setServletPath("/api/v1/users/me");
+        request.addHeader("Cookie", "theme=dark; NEXT_LOCALE=en; token=" + token + "; _ga=GA1.1.1234567890");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Object coldToken() throws Exception {
+        next = (next + 1) % COLD_TOKENS;
+        return authenticate(coldTokens[next]);
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        MockHttpServletRequest request = bearer(token);
+        String userEmail = legacyClaims(token).getSubject();
+        UserDetails loaded = userDetailsService.loadUserByUsername(userEmail);
+        // isTokenValid parsed again for the subject and once more for the expiry
+        if (legacyClaims(token).getSubject().equals(loaded.getUsername())
+                && !legacyClaims(token).getExpiration().before(new Date())) {
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    loaded, null, loaded.getAuthorities());
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            blackhole.consume(authToken);
+        }
+    }
+
+    private Object authenticate(String jwt) throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(bearer(jwt), new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static MockHttpServletRequest bearer(String jwt) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/me");
+        request.setServletPath("/api/v1/users/me");
+        request.addHeader("Authorization", "Bearer " + jwt);
+        return request;
+    }
+
+    // The removed JwtService.extractAllClaims, a new key and parser per call
+    private Claims legacyClaims(String jwt) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(yamlConfig.getJwt().getSecret()));
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(jwt)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
\ No newline at end of file
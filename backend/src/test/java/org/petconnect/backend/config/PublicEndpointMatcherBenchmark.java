@@ -0,0 +1,87 @@
+package org.petconnect.backend.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.AntPathMatcher;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Measures deciding whether a request is public, which JwtAuthenticationFilter
+ * does for every request. The legacy benchmarks repeat the stream over
+ * SecurityPaths.PUBLIC_ENDPOINTS with an AntPathMatcher that the filter used
+ * before PublicEndpointMatcher. A public GET matches late in the list, and an
+ * authenticated PUT is compared against every pattern before it is refused.
+ *
+ * Run from the IDE or with
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=org.petconnect.backend.config.PublicEndpointMatcherBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublicEndpointMatcherBenchmark {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final HttpServletRequest publicRequest = request("GET", "/api/v1/shelters/0f8e5a3c-7d3a-4f5e-9a43-1c1f0f3b2d11/pets");
+    private final HttpServletRequest protectedRequest = request("PUT", "/api/v1/pets/0f8e5a3c-7d3a-4f5e-9a43-1c1f0f3b2d11/status/ADOPTED");
+
+    @Benchmark
+    public boolean legacyPublic() {
+        return legacyMatches(publicRequest);
+    }
+
+    @Benchmark
+    public boolean legacyProtected() {
+        return legacyMatches(protectedRequest);
+    }
+
+    @Benchmark
+    public boolean compiledPublic() {
+        return SecurityPaths.PUBLIC_ENDPOINT_MATCHER.matches(publicRequest);
+    }
+
+    @Benchmark
+    public boolean compiledProtected() {
+        return SecurityPaths.PUBLIC_ENDPOINT_MATCHER.matches(protectedRequest);
+    }
+
+    // The removed JwtAuthenticationFilter.shouldNotFilter
+    private boolean legacyMatches(HttpServletRequest request) {
+        return SecurityPaths.PUBLIC_ENDPOINTS.stream()
+                .anyMatch(endpoint -> {
+                    boolean pathMatches = pathMatcher.match(endpoint.path(), request.getServletPath());
+                    boolean methodMatches = endpoint.method() == null ||
+                            endpoint.method().toString().equals(request.getMethod());
+                    return pathMatches && methodMatches;
+                });
+    }
+
+    private static HttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PublicEndpointMatcherBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package org.petconnect.backend.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.petconnect.backend.config.helper.YamlConfig;
+import org.petconnect.backend.exception.GlobalExceptionHandler;
+import org.petconnect.backend.model.User;
+import org.petconnect.backend.repository.RevokedTokenRepository;
+import org.petconnect.backend.repository.UserRepository;
+import org.petconnect.backend.service.AuthenticationService;
+import org.petconnect.backend.service.JwtService;
+import org.petconnect.backend.service.LoginRateLimiter;
+import org.petconnect.backend.service.TokenRevocationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks that a refresh token is exchanged once and that using it again is
+ * answered with 401, through the real token and revocation services over a
+ * revoked token table kept in memory, and that a sign-in refused by the rate
+ * limit is answered with 429 and a Retry-After header.
+ */
+class AuthenticationControllerTest {
+
+    private final User user = User.builder().id(UUID.randomUUID()).email("refresh@example.com").build();
+    private final Set<UUID> revokedIds = ConcurrentHashMap.newKeySet();
+    private final JwtService jwtService;
+    private final MockMvc mockMvc;
+
+    AuthenticationControllerTest() {
+        RevokedTokenRepository revokedTokenRepository = mock(RevokedTokenRepository.class);
+        when(revokedTokenRepository.revoke(any(), any()))
+                .thenAnswer(invocation -> revokedIds.add(invocation.getArgument(0)) ? 1 : 0);
+        when(revokedTokenRepository.existsById(any()))
+                .thenAnswer(invocation -> revokedIds.contains(invocation.<UUID>getArgument(0)));
+        when(revokedTokenRepository.findLastRevokedAt()).thenReturn(Instant.EPOCH);
+        TokenRevocationService tokenRevocationService = new TokenRevocationService(revokedTokenRepository);
+        tokenRevocationService.load();
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+        YamlConfig config = config();
+        jwtService = new JwtService(config, tokenRevocationService);
+        AuthenticationService authenticationService = new AuthenticationService(userRepository,
+                mock(PasswordEncoder.class), jwtService, tokenRevocationService,
+                new LoginRateLimiter(config, new SimpleMeterRegistry()), mock(AuthenticationManager.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(new AuthenticationController(authenticationService))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void aReusedRefreshTokenIsRefused() throws Exception {
+        String body = "{\"refreshToken\":\"" + jwtService.generateRefreshToken(user) + "\"}";
+
+        mockMvc.perform(post("/api/v1/auth/refresh").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.refreshToken").isNotEmpty());
+
+        mockMvc.perform(post("/api/v1/auth/refresh").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void aSignInRefusedByTheRateLimitAsksForARetryLater() throws Exception {
+        String body = "{\"email\":\"" + user.getEmail() + "\",\"password\":\"Password123!\"}";
+
+        mockMvc.perform(post("/api/v1/auth/login").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/auth/login").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "60"))
+                .andExpect(jsonPath("$.status").value(429));
+    }
+
+    private static YamlConfig config() {
+        YamlConfig config = new YamlConfig();
+        YamlConfig.Jwt jwt = new YamlConfig.Jwt();
+        jwt.setSecret(Base64.getEncoder().encodeToString(new byte[32]));
+        config.setJwt(jwt);
+        // One sign-in per account a minute
+        config.getAuth().setAccountLoginBurst(1);
+        config.getAuth().setAccountLoginRefillMs(60_000);
+        return config;
+    }
+}
@@ -0,0 +1,133 @@
+package org.petconnect.backend.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.petconnect.backend.dto.message.ConversationDTO;
+import org.petconnect.backend.dto.pet.PetDTO;
+import org.petconnect.backend.dto.shelter.ShelterDTO;
+import org.petconnect.backend.model.Favorite;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Fails the build when converting a list page to DTOs costs more queries for a
+ * larger page. Each page is loaded the way its service loads it and converted
+ * with the same DTO mapping, once with a few rows and once with many, and both
+ * must send the same number of statements.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "org.petconnect.backend.repository.CapturingStatementInspector")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfig.class)
+@Sql("/db/page-hydration-dataset.sql")
+class PageHydrationQueryCountTest {
+
+    private static final int SMALL_PAGE = 5;
+    private static final int LARGE_PAGE = 50;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private ShelterRepository shelterRepository;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void petPagesUseAFixedNumberOfQueries() {
+        assertFixedQueryCount(limit -> petRepository.findPets(PetSearchCriteria.builder()
+                .species("Hydration")
+                .sortBy("newest")
+                .limit(limit)
+                .build()).stream()
+                .map(PetDTO::fromEntity)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void ownerPetPagesUseAFixedNumberOfQueries() throws Exception {
+        UUID ownerId = seededId("hydration-user", 0);
+        assertFixedQueryCount(limit -> petRepository.findAllWithDetails(
+                petRepository.findIdsByOwnerIdWithPagination(ownerId, null, null, limit)).stream()
+                .map(PetDTO::fromEntity)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void shelterPagesUseAFixedNumberOfQueries() {
+        assertFixedQueryCount(limit -> shelterRepository.findShelters(ShelterSearchCriteria.builder()
+                .city("Hydration City")
+                .sortBy("newest")
+                .limit(limit)
+                .build()).stream()
+                .map(ShelterDTO::fromEntity)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void favoritePagesUseAFixedNumberOfQueries() throws Exception {
+        UUID userId = seededId("hydration-user", 0);
+        assertFixedQueryCount(limit -> petRepository.findAllWithDetails(
+                favoriteRepository.findByUserIdWithPagination(userId, null, null, limit).stream()
+                        .map(Favorite::getPetId)
+                        .collect(Collectors.toList())).stream()
+                .map(PetDTO::fromEntity)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void conversationListsUseAFixedNumberOfQueries() throws Exception {
+        UUID userId = seededId("hydration-user", 0);
+        assertFixedQueryCount(limit -> messageRepository.findAllWithDetailsByIdIn(
+                conversationRepository.findUserConversations(userId).subList(0, limit).stream()
+                        .map(ConversationRepository.ConversationSummary::getLastMessageId)
+                        .collect(Collectors.toList())).stream()
+                .map(message -> ConversationDTO.fromLatestMessage(message, userId, 1))
+                .collect(Collectors.toList()));
+    }
+
+    private void assertFixedQueryCount(IntFunction<List<?>> loadPage) {
+        assertThat(statementsFor(loadPage, SMALL_PAGE)).isEqualTo(statementsFor(loadPage, LARGE_PAGE));
+    }
+
+    private int statementsFor(IntFunction<List<?>> loadPage, int limit) {
+        // Nothing may be served from rows an earlier page already loaded
+        entityManager.clear();
+        CapturingStatementInspector.STATEMENTS.clear();
+
+        assertThat(loadPage.apply(limit)).hasSize(limit);
+        return CapturingStatementInspector.STATEMENTS.size();
+    }
+
+    private static UUID seededId(String prefix, int number) throws NoSuchAlgorithmException {
+        // Mirrors md5(prefix || number)::uuid in the dataset script
+        String hex = HexFormat.of().formatHex(MessageDigest.getInstance("MD5")
+                .digest((prefix + number).getBytes(StandardCharsets.UTF_8)));
+        return UUID.fromString(hex.replaceFirst("(.{8})(.{4})(.{4})(.{4})(.{12})", "$1-$2-$3-$4-$5"));
+    }
+}
\ No newline at end of file
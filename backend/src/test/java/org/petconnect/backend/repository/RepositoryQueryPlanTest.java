@@ -0,0 +1,206 @@
+package org.petconnect.backend.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Fails the build when a PetRepository, MessageRepository, ConversationRepository,
+ * UserEventRepository, FavoriteRepository or RevokedTokenRepository query is planned
+ * as a sequential scan.
+ * Every query the repositories send is captured through a Hibernate statement
+ * inspector and explained as a generic plan against the migrated schema filled
+ * with query-plan-dataset.sql, so the plans do not depend on the sample values.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "org.petconnect.backend.repository.CapturingStatementInspector")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfig.class)
+class RepositoryQueryPlanTest {
+
+    private static final int MIN_SCANNED_ROWS = 1000;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private UserEventRepository userEventRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private EmbeddedPostgres embeddedPostgres;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // The dataset and its statistics are committed so a separate connection can explain against them
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Sql("/db/query-plan-dataset.sql")
+    void repositoryQueriesDoNotScanSequentially() throws Exception {
+        UUID userId = seededId("user", 42);
+        UUID otherUserId = seededId("user", 297);
+        UUID petId = seededId("pet", 1302);
+        UUID shelterId = seededId("shelter", 7);
+        String cursorTime = "2020-01-01T00:00:00Z";
+        String cursorId = seededId("pet", 99).toString();
+
+        CapturingStatementInspector.STATEMENTS.clear();
+
+        // findAllSpecies and findAllGenders read every pet by design and are left out
+
+        petRepository.findPetById(petId);
+        petRepository.findBreedsBySpecies("species 1");
+        petRepository.findByShelterIdOrderByCreatedAtDesc(shelterId);
+        petRepository.findIdsByOwnerIdWithPagination(userId, null, null, 25);
+        petRepository.findIdsByOwnerIdWithPagination(userId, cursorTime, cursorId, 25);
+        petRepository.findIdsByShelterIdWithPagination(shelterId, null, null, 25);
+        petRepository.findIdsByShelterIdWithPagination(shelterId, cursorTime, cursorId, 25);
+        petRepository.countByOwnerId(userId);
+        petRepository.countByShelterIdAndStatusAvailable(shelterId);
+        petRepository.findRelevance(petId, "friendly");
+
+        for (String sortBy : List.of("newest", "oldest", "youngest", "eldest", "name_asc", "name_desc")) {
+            petRepository.findPets(PetSearchCriteria.builder().sortBy(sortBy).limit(25).build());
+        }
+        petRepository.findPets(PetSearchCriteria.builder()
+                .species("Species 1").breed("Breed 7").city("City 3")
+                .sortBy("newest").limit(25).build());
+        petRepository.findPets(PetSearchCriteria.builder()
+                .searchQuery("Pet 12").sortBy("relevance").limit(25).build());
+        petRepository.findPets(PetSearchCriteria.builder()
+                .candidateIds(List.of(petId, seededId("pet", 5), seededId("pet", 8))).limit(3).build());
+        petRepository.findAllWithDetails(List.of(petId, seededId("pet", 5), seededId("pet", 8)));
+        petRepository.countPets(PetSearchCriteria.builder()
+                .species("Species 1").breed("Breed 7").build());
+        petRepository.countPets(PetSearchCriteria.builder()
+                .bornOnOrBefore(LocalDate.of(2015, 3, 1)).bornAfter(LocalDate.of(2015, 2, 1)).build());
+
+        messageRepository.findConversation(userId, otherUserId);
+        messageRepository.findConversationIdsBefore(userId, otherUserId, petId,
+                "infinity", "ffffffff-ffff-ffff-ffff-ffffffffffff", 51);
+        messageRepository.findConversationIdsBefore(userId, otherUserId, petId, cursorTime, cursorId, 51);
+        messageRepository.findConversationIdsAfter(userId, otherUserId, petId, cursorTime, cursorId, 51);
+        messageRepository.findAllWithDetailsByIdIn(List.of(seededId("message", 1), seededId("message", 2)));
+        messageRepository.markConversationAsRead(userId, otherUserId);
+        messageRepository.markConversationAboutPetAsRead(userId, otherUserId, petId);
+
+        conversationRepository.findUserConversations(userId);
+        conversationRepository.findUnreadConversations(userId);
+        conversationRepository.countUnreadMessages(userId);
+        conversationRepository.findPartnerIds(userId);
+        conversationRepository.existsByPetIdAndParticipant(petId, userId);
+        conversationRepository.existsBetween(userId, otherUserId, petId);
+        conversationRepository.addMessages(List.of(seededId("message", 1), seededId("message", 2)));
+        conversationRepository.addUnreadMessages(List.of(seededId("message", 1), seededId("message", 2)));
+        conversationRepository.markAsRead(userId, otherUserId);
+        conversationRepository.markAboutPetAsRead(userId, otherUserId, petId);
+        conversationRepository.deleteByPetId(seededId("pet", 1303));
+
+        userEventRepository.appendAll(userId, "[{\"type\": \"NEW_MESSAGE\", \"payload\": {}}]");
+        userEventRepository.findLastSequence(userId);
+        userEventRepository.findAfter(userId, 0, 200);
+
+        favoriteRepository.findByUserIdOrderByCreatedAtDesc(userId);
+        favoriteRepository.countByUserId(userId);
+        favoriteRepository.findByUserIdWithPagination(userId, null, null, 25);
+        favoriteRepository.findByUserIdWithPagination(userId, cursorTime, cursorId, 25);
+
+        // The full load at startup reads every revoked token by design, the poll only reads the latest
+        revokedTokenRepository.existsById(seededId("revoked_token", 12));
+        revokedTokenRepository.revoke(UUID.randomUUID(), Instant.now().plusSeconds(900));
+        revokedTokenRepository.findRevokedSince(Instant.now().minusSeconds(10));
+        revokedTokenRepository.findLastRevokedAt();
+        revokedTokenRepository.deleteExpired();
+
+        // Lazy and eager association loads are captured too, each distinct statement is explained once
+        Set<String> statements = new LinkedHashSet<>(CapturingStatementInspector.STATEMENTS);
+        assertThat(statements).isNotEmpty();
+
+        // The simple query protocol sends $n through as text instead of binding it
+        JdbcTemplate explain = new JdbcTemplate(
+                embeddedPostgres.getDatabase("postgres", "postgres", Map.of("preferQueryMode", "simple")));
+        List<String> violations = new ArrayList<>();
+        for (String sql : statements) {
+            for (String table : sequentialScans(explain, sql)) {
+                violations.add("Seq Scan on " + table + ": " + sql);
+            }
+        }
+        assertThat(violations).isEmpty();
+    }
+
+    private List<String> sequentialScans(JdbcTemplate explain, String sql) throws Exception {
+        // Number the JDBC placeholders so Postgres can plan the statement generically
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+
+        String plan = explain.queryForObject(
+                "EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + numbered, String.class);
+        List<String> tables = new ArrayList<>();
+        collectSequentialScans(objectMapper.readTree(plan).get(0).get("Plan"), tables);
+
+        // Reading a small table whole is cheaper than an index lookup, so only large ones count
+        tables.removeIf(table -> explain.queryForObject(
+                "SELECT reltuples FROM pg_class WHERE relname = ?", Double.class, table) < MIN_SCANNED_ROWS);
+        return tables;
+    }
+
+    private void collectSequentialScans(JsonNode node, List<String> tables) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            tables.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSequentialScans(child, tables);
+        }
+    }
+
+    private static UUID seededId(String prefix, int number) throws NoSuchAlgorithmException {
+        // Mirrors md5(prefix || number)::uuid in the dataset script
+        String hex = HexFormat.of().formatHex(MessageDigest.getInstance("MD5")
+                .digest((prefix + number).getBytes(StandardCharsets.UTF_8)));
+        return UUID.fromString(hex.replaceFirst("(.{8})(.{4})(.{4})(.{4})(.{12})", "$1-$2-$3-$4-$5"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package org.petconnect.backend.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.petconnect.backend.model.CacheChange;
+import org.petconnect.backend.repository.CacheChangeRepository;
+import org.petconnect.backend.repository.PetSearchRepository;
+
+/**
+ * Checks that a node applies the cache changes written on other nodes once each,
+ * including a change committed late inside the feed overlap, and retries a refresh
+ * that failed.
+ */
+class CacheChangeServiceTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T12:00:00Z");
+
+    private final CacheChangeRepository cacheChangeRepository = mock(CacheChangeRepository.class);
+    private final PetSearchRepository petSearchRepository = mock(PetSearchRepository.class);
+    private final PetLocationIndex petLocationIndex = mock(PetLocationIndex.class);
+    private final ReferenceDataService referenceDataService = mock(ReferenceDataService.class);
+    private final CacheChangeService cacheChangeService = new CacheChangeService(cacheChangeRepository,
+            petSearchRepository, petLocationIndex, referenceDataService);
+
+    @BeforeEach
+    void init() {
+        when(cacheChangeRepository.findLastChangedAt()).thenReturn(START);
+        cacheChangeService.init();
+    }
+
+    @Test
+    void changedPetsAreRefreshedTogetherAndOnlyOnce() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        List<CacheChange> changes = List.of(pet(1, first, START.plusSeconds(1)), pet(2, second, START.plusSeconds(2)),
+                referenceData(3, START.plusSeconds(2)), referenceData(4, START.plusSeconds(3)));
+        when(cacheChangeRepository.findChangedSince(any())).thenReturn(changes);
+
+        cacheChangeService.pollChanges();
+        // The same rows are read again inside the overlap
+        cacheChangeService.pollChanges();
+
+        verify(petSearchRepository).findLocationsByPetIds(Set.of(first, second));
+        verify(petLocationIndex, times(1)).update(any(), any());
+        verify(referenceDataService, times(1)).load();
+    }
+
+    @Test
+    void aChangeCommittedLateInsideTheOverlapIsApplied() {
+        UUID late = UUID.randomUUID();
+        when(cacheChangeRepository.findChangedSince(START.minusSeconds(10)))
+                .thenReturn(List.of(referenceData(1, START.plusSeconds(5))));
+        cacheChangeService.pollChanges();
+
+        // Committed after the first poll with a changed_at before the last row read
+        when(cacheChangeRepository.findChangedSince(START.minusSeconds(5)))
+                .thenReturn(List.of(pet(2, late, START.plusSeconds(1)), referenceData(1, START.plusSeconds(5))));
+        cacheChangeService.pollChanges();
+
+        verify(petSearchRepository).findLocationsByPetIds(Set.of(late));
+        verify(referenceDataService, times(1)).load();
+    }
+
+    @Test
+    void aChangeForEveryPetReplacesTheIndex() {
+        when(cacheChangeRepository.findChangedSince(any())).thenReturn(List.of(
+                pet(1, UUID.randomUUID(), START.plusSeconds(1)), pet(2, null, START.plusSeconds(1))));
+
+        cacheChangeService.pollChanges();
+
+        verify(petLocationIndex).replaceAll(any());
+        verify(petLocationIndex, never()).update(any(), any());
+    }
+
+    @Test
+    void aFailedRefreshIsRetriedOnTheNextPoll() {
+        when(cacheChangeRepository.findChangedSince(any())).thenReturn(List.of(referenceData(1, START.plusSeconds(1))));
+        doThrow(new IllegalStateException("database unavailable")).doNothing().when(referenceDataService).load();
+
+        cacheChangeService.pollChanges();
+        cacheChangeService.pollChanges();
+        cacheChangeService.pollChanges();
+
+        verify(referenceDataService, times(2)).load();
+    }
+
+    private static CacheChange pet(long id, UUID petId, Instant changedAt) {
+        return new CacheChange(id, CacheChange.Cache.PET_LOCATION, petId, changedAt);
+    }
+
+    private static CacheChange referenceData(long id, Instant changedAt) {
+        return new CacheChange(id, CacheChange.Cache.REFERENCE_DATA, null, changedAt);
+    }
+}
@@ -0,0 +1,73 @@
+package org.petconnect.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.petconnect.backend.config.helper.YamlConfig;
+import org.petconnect.backend.model.User;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Checks that a verified access token is answered from the cache, that expired
+ * entries are purged, and that a token is only accepted as its own type.
+ */
+class JwtServiceTest {
+
+    private final User user = User.builder().id(UUID.randomUUID()).email("jwt@example.com").build();
+    private final JwtService jwtService = new JwtService(config(), mock(TokenRevocationService.class));
+
+    @Test
+    void aRepeatedTokenIsAnsweredFromTheCache() {
+        String token = jwtService.generateToken(user);
+
+        JwtService.VerifiedToken first = jwtService.verify(token);
+
+        assertThat(jwtService.verify(token)).isSameAs(first);
+        assertThat(first.userId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void expiredTokensArePurgedFromTheCache() {
+        String token = jwtService.generateToken(user);
+        JwtService.VerifiedToken first = jwtService.verify(token);
+
+        jwtService.purgeExpiredTokens(Instant.now());
+        assertThat(jwtService.verify(token)).isSameAs(first);
+
+        // Purged once past its expiry, the token is parsed again on its next use
+        jwtService.purgeExpiredTokens(first.expiresAt());
+        assertThat(jwtService.verify(token)).isNotSameAs(first).isEqualTo(first);
+    }
+
+    @Test
+    void aTokenIsOnlyAcceptedAsItsOwnType() {
+        String accessToken = jwtService.generateToken(user);
+        String refreshToken = jwtService.generateRefreshToken(user);
+
+        // Also once the access token is cached
+        jwtService.verify(accessToken);
+
+        assertThatThrownBy(() -> jwtService.verifyRefreshToken(accessToken))
+                .isInstanceOf(JwtException.class)
+                .hasMessageContaining("wrong type");
+        assertThatThrownBy(() -> jwtService.verify(refreshToken))
+                .isInstanceOf(JwtException.class)
+                .hasMessageContaining("wrong type");
+        assertThat(jwtService.verifyRefreshToken(refreshToken).type()).isEqualTo("refresh");
+    }
+
+    private static YamlConfig config() {
+        YamlConfig config = new YamlConfig();
+        YamlConfig.Jwt jwt = new YamlConfig.Jwt();
+        jwt.setSecret(Base64.getEncoder().encodeToString(new byte[32]));
+        config.setJwt(jwt);
+        return config;
+    }
+}
@@ -0,0 +1,49 @@
+package org.petconnect.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.petconnect.backend.config.helper.YamlConfig;
+import org.petconnect.backend.exception.TooManyRequestsException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks that the purge drops only the buckets that refilled, so a client that is
+ * still limited stays limited.
+ */
+class LoginRateLimiterTest {
+
+    @Test
+    void purgeKeepsBucketsThatStillLimit() {
+        LoginRateLimiter limiter = limiter(60_000);
+        limiter.acquireLogin("10.0.0.1", "user@example.com");
+
+        limiter.purgeIdleBuckets();
+
+        assertThat(limiter.bucketCount()).isEqualTo(2);
+        assertThatThrownBy(() -> limiter.acquireLogin("10.0.0.1", "user@example.com"))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void purgeDropsBucketsThatRefilled() throws InterruptedException {
+        LoginRateLimiter limiter = limiter(1);
+        limiter.acquireLogin("10.0.0.1", "user@example.com");
+        Thread.sleep(20);
+
+        limiter.purgeIdleBuckets();
+
+        assertThat(limiter.bucketCount()).isZero();
+    }
+
+    private static LoginRateLimiter limiter(long refillMs) {
+        YamlConfig config = new YamlConfig();
+        config.getAuth().setIpLoginBurst(1);
+        config.getAuth().setIpLoginRefillMs(refillMs);
+        config.getAuth().setAccountLoginBurst(1);
+        config.getAuth().setAccountLoginRefillMs(refillMs);
+        return new LoginRateLimiter(config, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,236 @@
+package org.petconnect.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.petconnect.backend.dto.message.MessageDTO;
+import org.petconnect.backend.dto.message.SendMessageRequest;
+import org.petconnect.backend.model.Message;
+import org.petconnect.backend.repository.ConversationRepository;
+import org.petconnect.backend.repository.MessageRepository;
+import org.petconnect.backend.repository.PetRepository;
+import org.petconnect.backend.repository.ShelterRepository;
+import org.petconnect.backend.repository.UserRepository;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the message writer against mocked repositories and a transaction manager
+ * that only runs the synchronization callbacks. The first write of each test is
+ * held until the test releases it, so the messages submitted meanwhile are
+ * queued and written together as the next batch.
+ */
+class MessageIngestionServiceTest {
+
+    private static final UUID SENDER_ID = UUID.randomUUID();
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PetRepository petRepository = mock(PetRepository.class);
+    private final UserEventService userEventService = mock(UserEventService.class);
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile Predicate<List<String>> failing = batch -> false;
+
+    private MessageIngestionService service;
+
+    // Transactions that hold nothing, commit and rollback only run the callbacks
+    private static final class CallbackTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    @BeforeEach
+    void startWriter() {
+        when(userRepository.existsById(any())).thenReturn(true);
+        when(petRepository.existsById(any())).thenReturn(true);
+        doAnswer(invocation -> {
+            List<Message> messages = new ArrayList<>();
+            invocation.<Iterable<Message>>getArgument(0).forEach(messages::add);
+            List<String> contents = messages.stream().map(Message::getContent).toList();
+            batches.add(contents);
+            if (batches.size() == 1) {
+                writing.countDown();
+                awaitRelease();
+            }
+            if (failing.test(contents)) {
+                throw new DataAccessResourceFailureException("Write failed");
+            }
+            return messages;
+        }).when(messageRepository).saveAll(any());
+
+        service = new MessageIngestionService(messageRepository, mock(ConversationRepository.class), userRepository,
+                petRepository, mock(ShelterRepository.class), userEventService, mock(SimpMessagingTemplate.class),
+                new TransactionTemplate(new CallbackTransactionManager()));
+        service.start();
+    }
+
+    @AfterEach
+    void stopWriter() throws InterruptedException {
+        release.countDown();
+        service.stop();
+    }
+
+    @Test
+    void messagesQueuedDuringAWriteAreWrittenAsOneBatch() throws Exception {
+        CompletableFuture<MessageDTO> first = holdWriter();
+        List<CompletableFuture<MessageDTO>> queued = List.of(submit("one"), submit("two"), submit("three"));
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getContent()).isEqualTo("first");
+        for (CompletableFuture<MessageDTO> result : queued) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isNotNull();
+        }
+        assertThat(batches).containsExactly(List.of("first"), List.of("one", "two", "three"));
+    }
+
+    @Test
+    void aFailedBatchIsWrittenOneMessageAtATime() throws Exception {
+        failing = batch -> batch.contains("bad");
+        holdWriter();
+        CompletableFuture<MessageDTO> good = submit("good");
+        CompletableFuture<MessageDTO> bad = submit("bad");
+        CompletableFuture<MessageDTO> alsoGood = submit("also good");
+        release.countDown();
+
+        assertThat(good.get(5, TimeUnit.SECONDS).getContent()).isEqualTo("good");
+        assertThat(alsoGood.get(5, TimeUnit.SECONDS).getContent()).isEqualTo("also good");
+        assertThatThrownBy(() -> bad.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(batches).containsExactly(List.of("first"), List.of("good", "bad", "also good"),
+                List.of("good"), List.of("bad"), List.of("also good"));
+    }
+
+    @Test
+    void aBatchIsNotWrittenAgainWhenACallbackFailsAfterTheCommit() throws Exception {
+        // Like an event push to a broker that is down
+        doAnswer(invocation -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    throw new MessageDeliveryException("Broker unavailable");
+                }
+            });
+            return null;
+        }).when(userEventService).sendAll(any(), any());
+        holdWriter();
+        CompletableFuture<MessageDTO> one = submit("one");
+        CompletableFuture<MessageDTO> two = submit("two");
+        release.countDown();
+
+        assertThat(one.get(5, TimeUnit.SECONDS).getContent()).isEqualTo("one");
+        assertThat(two.get(5, TimeUnit.SECONDS).getContent()).isEqualTo("two");
+        assertThat(batches).containsExactly(List.of("first"), List.of("one", "two"));
+    }
+
+    @Test
+    void theWriterSurvivesAnUnexpectedError() throws Exception {
+        doAnswer(invocation -> {
+            throw new StackOverflowError();
+        }).when(userEventService).sendAll(any(), any());
+        CompletableFuture<MessageDTO> first = holdWriter();
+        release.countDown();
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+
+        doAnswer(invocation -> null).when(userEventService).sendAll(any(), any());
+        assertThat(submit("after").get(5, TimeUnit.SECONDS).getContent()).isEqualTo("after");
+    }
+
+    @Test
+    void stoppingWritesWhatIsQueuedAndRefusesNewMessages() throws Exception {
+        CompletableFuture<MessageDTO> first = holdWriter();
+        CompletableFuture<MessageDTO> queued = submit("queued");
+        Thread stopping = new Thread(() -> {
+            try {
+                service.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stopping.start();
+        // Waiting for the held writer to finish, so no longer accepting messages
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stopping.getState() != Thread.State.TIMED_WAITING && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        assertThatThrownBy(() -> submit("late")).isInstanceOf(IllegalStateException.class);
+        release.countDown();
+        stopping.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(stopping.isAlive()).isFalse();
+        assertThat(first.get(5, TimeUnit.SECONDS).getContent()).isEqualTo("first");
+        assertThat(queued.get(5, TimeUnit.SECONDS).getContent()).isEqualTo("queued");
+        assertThat(batches).containsExactly(List.of("first"), List.of("queued"));
+    }
+
+    private CompletableFuture<MessageDTO> holdWriter() throws InterruptedException {
+        CompletableFuture<MessageDTO> first = submit("first");
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        return first;
+    }
+
+    private CompletableFuture<MessageDTO> submit(String content) {
+        return service.submit(SENDER_ID, SendMessageRequest.builder()
+                .receiverId(UUID.randomUUID())
+                .petId(UUID.randomUUID())
+                .content(content)
+                .build());
+    }
+
+    // stop() interrupts the writer, the held write still waits for the test
+    private void awaitRelease() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                release.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
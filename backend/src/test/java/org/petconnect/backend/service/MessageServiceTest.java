@@ -0,0 +1,83 @@
+package org.petconnect.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.petconnect.backend.dto.message.SendMessageRequest;
+import org.petconnect.backend.dto.message.WebSocketMessage;
+import org.petconnect.backend.exception.ResourceNotFoundException;
+import org.petconnect.backend.exception.TooManyRequestsException;
+import org.petconnect.backend.repository.ConversationRepository;
+import org.petconnect.backend.repository.MessageRepository;
+import org.petconnect.backend.repository.PetRepository;
+import org.petconnect.backend.repository.ShelterRepository;
+import org.petconnect.backend.repository.UserRepository;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+/**
+ * Checks that a message queued from a WebSocket client that cannot be written is
+ * answered with MESSAGE_FAILED carrying the client's reference, both when the
+ * writer fails it and when it is refused before being queued.
+ */
+class MessageServiceTest {
+
+    private static final UUID SENDER_ID = UUID.randomUUID();
+
+    private final MessageIngestionService messageIngestionService = mock(MessageIngestionService.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final MessageService messageService = new MessageService(mock(MessageRepository.class),
+            mock(ConversationRepository.class), mock(UserRepository.class), mock(PetRepository.class),
+            mock(ShelterRepository.class), mock(PresenceService.class), mock(UserEventService.class),
+            messageIngestionService, messagingTemplate);
+
+    @Test
+    void aMessageTheWriterFailsIsReportedToItsSender() {
+        SendMessageRequest request = request();
+        when(messageIngestionService.submit(SENDER_ID, request)).thenReturn(
+                CompletableFuture.failedFuture(new ResourceNotFoundException("Pet", "id", request.getPetId())));
+
+        messageService.queueMessage(SENDER_ID, request);
+
+        assertFailureSent(request);
+    }
+
+    @Test
+    void aMessageRefusedBeforeQueueingIsReportedToItsSender() {
+        SendMessageRequest request = request();
+        when(messageIngestionService.submit(SENDER_ID, request)).thenThrow(
+                new TooManyRequestsException("Too many messages are waiting to be written, try again shortly", 1));
+
+        messageService.queueMessage(SENDER_ID, request);
+
+        assertFailureSent(request);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertFailureSent(SendMessageRequest request) {
+        ArgumentCaptor<WebSocketMessage> sent = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(messagingTemplate).convertAndSendToUser(eq(SENDER_ID.toString()), eq("/queue/messages"), sent.capture());
+        assertThat(sent.getValue().getType()).isEqualTo(WebSocketMessage.MessageType.MESSAGE_FAILED);
+        assertThat((Map<String, Object>) sent.getValue().getPayload())
+                .containsEntry("clientMessageId", request.getClientMessageId())
+                .containsEntry("receiverId", request.getReceiverId())
+                .containsKey("message");
+    }
+
+    private static SendMessageRequest request() {
+        return SendMessageRequest.builder()
+                .receiverId(UUID.randomUUID())
+                .petId(UUID.randomUUID())
+                .content("Hello")
+                .clientMessageId("temp-1")
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package org.petconnect.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.petconnect.backend.dto.message.WebSocketMessage;
+import org.petconnect.backend.repository.ConversationRepository;
+import org.petconnect.backend.repository.EmbeddedPostgresConfig;
+import org.petconnect.backend.repository.MessageRepository;
+import org.petconnect.backend.repository.PetRepository;
+import org.petconnect.backend.repository.ShelterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.jdbc.Sql;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Deletes pets that have been messaged about through PetService.deletePet and
+ * ShelterService.deleteShelter, and checks that their conversations and messages
+ * go with them and the participants' unread totals only lose the pets' messages.
+ * Storage, search and the event queue are mocked, everything else runs against
+ * the migrated schema filled with pet-deletion-dataset.sql.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ EmbeddedPostgresConfig.class, PetService.class, ShelterService.class })
+@Sql("/db/pet-deletion-dataset.sql")
+class PetDeletionTest {
+
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private ShelterService shelterService;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private ShelterRepository shelterRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private UserEventService userEventService;
+
+    @MockitoBean
+    private ImageService imageService;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private PetSearchService petSearchService;
+
+    @MockitoBean
+    private PetLocationIndex petLocationIndex;
+
+    @MockitoBean
+    private ResultCountService resultCountService;
+
+    @MockitoBean
+    private ReferenceDataService referenceDataService;
+
+    @MockitoBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Test
+    void deletingAMessagedPetDeletesItsConversations() throws Exception {
+        UUID ownerId = seededId("deletion-user", 0);
+        UUID senderId = seededId("deletion-user", 1);
+        UUID petId = seededId("deletion-pet", 1);
+
+        petService.deletePet(petId, ownerId);
+        flush();
+
+        assertThat(petRepository.findById(petId)).isEmpty();
+        assertThat(messageRepository.findById(seededId("deletion-message", 1))).isEmpty();
+        assertThat(conversationRepository.existsBetween(ownerId, senderId, petId)).isFalse();
+        assertThat(conversationRepository.existsBetween(ownerId, senderId, seededId("deletion-pet", 3))).isTrue();
+        assertThat(conversationRepository.countUnreadMessages(ownerId)).isEqualTo(2);
+        assertThat(conversationRepository.countUnreadMessages(senderId)).isEqualTo(1);
+        verify(userEventService).send(ownerId, WebSocketMessage.unreadCount(2, -2));
+        verify(userEventService, never()).send(eq(senderId), any());
+    }
+
+    @Test
+    void deletingAShelterDeletesTheConversationsAboutItsPets() throws Exception {
+        UUID ownerId = seededId("deletion-user", 0);
+        UUID senderId = seededId("deletion-user", 1);
+        UUID shelterId = seededId("deletion-shelter", 1);
+        UUID petId = seededId("deletion-pet", 2);
+
+        shelterService.deleteShelter(shelterId, ownerId);
+        flush();
+
+        assertThat(shelterRepository.findById(shelterId)).isEmpty();
+        assertThat(petRepository.findById(petId)).isEmpty();
+        assertThat(conversationRepository.existsBetween(ownerId, senderId, petId)).isFalse();
+        assertThat(conversationRepository.countUnreadMessages(ownerId)).isEqualTo(3);
+        assertThat(conversationRepository.countUnreadMessages(senderId)).isZero();
+        verify(userEventService).send(ownerId, WebSocketMessage.unreadCount(3, -1));
+        verify(userEventService).send(senderId, WebSocketMessage.unreadCount(0, -1));
+    }
+
+    private void flush() {
+        // The deletes are sent at the end of the test transaction otherwise, past the assertions
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static UUID seededId(String prefix, int number) throws NoSuchAlgorithmException {
+        // Mirrors md5(prefix || number)::uuid in the dataset script
+        String hex = HexFormat.of().formatHex(MessageDigest.getInstance("MD5")
+                .digest((prefix + number).getBytes(StandardCharsets.UTF_8)));
+        return UUID.fromString(hex.replaceFirst("(.{8})(.{4})(.{4})(.{4})(.{12})", "$1-$2-$3-$4-$5"));
+    }
+}
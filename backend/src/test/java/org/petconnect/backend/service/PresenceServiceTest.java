@@ -0,0 +1,197 @@
+package org.petconnect.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.petconnect.backend.dto.message.WebSocketMessage;
+import org.petconnect.backend.dto.message.WebSocketMessage.MessageType;
+import org.petconnect.backend.repository.ConversationRepository;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * Checks that online and offline are announced once per user across sessions and
+ * instances, and that typing events are coalesced, stopped and expired.
+ */
+class PresenceServiceTest {
+
+    private static final UUID USER_ID = UUID.randomUUID();
+    private static final UUID PARTNER_ID = UUID.randomUUID();
+    private static final UUID PET_ID = UUID.randomUUID();
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final SimpUserRegistry userRegistry = mock(SimpUserRegistry.class);
+    private final ConversationRepository conversationRepository = mock(ConversationRepository.class);
+    private final PresenceService presenceService = new PresenceService(messagingTemplate, userRegistry,
+            conversationRepository);
+
+    @BeforeEach
+    void partners() {
+        when(conversationRepository.findPartnerIds(USER_ID)).thenReturn(List.of(PARTNER_ID));
+    }
+
+    @Test
+    void onlineAndOfflineAreAnnouncedForTheFirstAndLastSession() {
+        registered("s1");
+        presenceService.onConnected(connected("s1"));
+        registered("s1", "s2");
+        presenceService.onConnected(connected("s2"));
+
+        presenceService.onDisconnected(disconnected("s1"));
+        registered("s2");
+        presenceService.onDisconnected(disconnected("s2"));
+
+        assertThat(sentToPartner()).containsExactly(MessageType.USER_ONLINE, MessageType.USER_OFFLINE);
+    }
+
+    @Test
+    void aUserConnectedToAnotherInstanceIsNotAnnouncedAgain() {
+        // The registry lists the user's session on the other instance before this one
+        registered("remote");
+        presenceService.onConnected(connected("s1"));
+        presenceService.onDisconnected(disconnected("s1"));
+
+        assertThat(sentToPartner()).isEmpty();
+        assertThat(presenceService.isOnline(USER_ID)).isTrue();
+    }
+
+    @Test
+    void offlineWaitsUntilTheOtherInstanceForgetsTheUser() {
+        registered("s1");
+        presenceService.onConnected(connected("s1"));
+        // The other instance's session is already closed but still broadcast
+        registered("remote");
+        presenceService.onDisconnected(disconnected("s1"));
+        presenceService.flushOffline(Instant.now());
+        assertThat(sentToPartner()).containsExactly(MessageType.USER_ONLINE);
+
+        when(userRegistry.getUser(USER_ID.toString())).thenReturn(null);
+        presenceService.flushOffline(Instant.now());
+        presenceService.flushOffline(Instant.now());
+
+        assertThat(sentToPartner()).containsExactly(MessageType.USER_ONLINE, MessageType.USER_OFFLINE);
+    }
+
+    @Test
+    void offlineIsLeftToTheOtherInstanceWhileTheUserStaysThere() {
+        registered("s1");
+        presenceService.onConnected(connected("s1"));
+        registered("remote");
+        presenceService.onDisconnected(disconnected("s1"));
+
+        presenceService.flushOffline(Instant.now().plusSeconds(31));
+        when(userRegistry.getUser(USER_ID.toString())).thenReturn(null);
+        presenceService.flushOffline(Instant.now().plusSeconds(32));
+
+        assertThat(sentToPartner()).containsExactly(MessageType.USER_ONLINE);
+    }
+
+    @Test
+    void repeatedTypingIsForwardedOnceAndStoppedOnTheNextFlush() {
+        connectUser();
+
+        presenceService.typing("s1", PARTNER_ID, PET_ID);
+        presenceService.typing("s1", PARTNER_ID, PET_ID);
+        presenceService.typing("s1", PARTNER_ID, PET_ID);
+        assertThat(sentToPartner()).containsExactly(MessageType.USER_ONLINE, MessageType.USER_TYPING);
+
+        presenceService.stoppedTyping("s1", PARTNER_ID, PET_ID);
+        presenceService.flushTyping(Instant.now());
+        presenceService.flushTyping(Instant.now());
+
+        assertThat(sentToPartner()).containsExactly(MessageType.USER_ONLINE, MessageType.USER_TYPING,
+                MessageType.USER_STOPPED_TYPING);
+    }
+
+    @Test
+    void typingAfterAStopKeepsTheStateAlive() {
+        connectUser();
+
+        presenceService.typing("s1", PARTNER_ID, PET_ID);
+        presenceService.stoppedTyping("s1", PARTNER_ID, PET_ID);
+        presenceService.typing("s1", PARTNER_ID, PET_ID);
+        presenceService.flushTyping(Instant.now());
+
+        assertThat(sentToPartner()).containsExactly(MessageType.USER_ONLINE, MessageType.USER_TYPING);
+    }
+
+    @Test
+    void typingThatIsNeverStoppedExpires() {
+        connectUser();
+
+        presenceService.typing("s1", PARTNER_ID, PET_ID);
+        presenceService.flushTyping(Instant.now().plusSeconds(5));
+        assertThat(sentToPartner()).containsExactly(MessageType.USER_ONLINE, MessageType.USER_TYPING);
+
+        presenceService.flushTyping(Instant.now().plusSeconds(11));
+        assertThat(sentToPartner()).containsExactly(MessageType.USER_ONLINE, MessageType.USER_TYPING,
+                MessageType.USER_STOPPED_TYPING);
+    }
+
+    @Test
+    void typingStopsWithTheLastSession() {
+        connectUser();
+        presenceService.typing("s1", PARTNER_ID, PET_ID);
+
+        presenceService.onDisconnected(disconnected("s1"));
+        presenceService.flushTyping(Instant.now());
+
+        assertThat(sentToPartner()).containsExactly(MessageType.USER_ONLINE, MessageType.USER_TYPING,
+                MessageType.USER_OFFLINE, MessageType.USER_STOPPED_TYPING);
+    }
+
+    private void connectUser() {
+        registered("s1");
+        presenceService.onConnected(connected("s1"));
+    }
+
+    // The user as the registry lists them, by session id
+    private void registered(String... sessionIds) {
+        SimpUser user = mock(SimpUser.class);
+        when(user.getSession(anyString())).thenReturn(null);
+        for (String sessionId : sessionIds) {
+            when(user.getSession(sessionId)).thenReturn(mock(SimpSession.class));
+        }
+        when(userRegistry.getUser(USER_ID.toString())).thenReturn(user);
+    }
+
+    private List<MessageType> sentToPartner() {
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, atLeast(0)).convertAndSendToUser(eq(PARTNER_ID.toString()),
+                eq("/queue/messages"), payloads.capture());
+        return payloads.getAllValues().stream()
+                .map(payload -> ((WebSocketMessage) payload).getType())
+                .toList();
+    }
+
+    private SessionConnectedEvent connected(String sessionId) {
+        Message<byte[]> message = MessageBuilder.withPayload(new byte[0])
+                .setHeader("simpSessionId", sessionId)
+                .build();
+        return new SessionConnectedEvent(this, message, () -> USER_ID.toString());
+    }
+
+    private SessionDisconnectEvent disconnected(String sessionId) {
+        Message<byte[]> message = MessageBuilder.withPayload(new byte[0]).build();
+        return new SessionDisconnectEvent(this, message, sessionId, CloseStatus.NORMAL);
+    }
+}
@@ -0,0 +1,112 @@
+package org.petconnect.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.petconnect.backend.repository.RevokedTokenRepository;
+import org.petconnect.backend.repository.RevokedTokenRepository.Revocation;
+
+/**
+ * Checks that a node follows the revocations made on other nodes, including one
+ * committed late inside the feed overlap, and that the filter is rebuilt once it
+ * holds more ids than it was sized for.
+ */
+class TokenRevocationServiceTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T12:00:00Z");
+
+    private final RevokedTokenRepository revokedTokenRepository = mock(RevokedTokenRepository.class);
+    private final TokenRevocationService tokenRevocationService = new TokenRevocationService(revokedTokenRepository);
+
+    private record Row(UUID tokenId, Instant revokedAt) implements Revocation {
+
+        @Override
+        public UUID getTokenId() {
+            return tokenId;
+        }
+
+        @Override
+        public Instant getRevokedAt() {
+            return revokedAt;
+        }
+    }
+
+    @Test
+    void revocationsOfOtherNodesArePickedUpByThePoll() {
+        UUID loaded = UUID.randomUUID();
+        UUID polled = UUID.randomUUID();
+        UUID unknown = UUID.randomUUID();
+        load(START, List.of(loaded));
+        when(revokedTokenRepository.findRevokedSince(START.minusSeconds(10)))
+                .thenReturn(List.of(new Row(polled, START.plusSeconds(1))));
+        when(revokedTokenRepository.existsById(any())).thenReturn(true);
+
+        tokenRevocationService.pollRevocations();
+
+        assertThat(tokenRevocationService.isRevoked(loaded)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(polled)).isTrue();
+        // An id the filter never saw costs no query
+        assertThat(tokenRevocationService.isRevoked(unknown)).isFalse();
+        verify(revokedTokenRepository, never()).existsById(unknown);
+    }
+
+    @Test
+    void aRevocationCommittedLateInsideTheOverlapIsPickedUp() {
+        UUID first = UUID.randomUUID();
+        UUID late = UUID.randomUUID();
+        load(START, List.of());
+        when(revokedTokenRepository.findRevokedSince(START.minusSeconds(10)))
+                .thenReturn(List.of(new Row(first, START.plusSeconds(5))));
+        tokenRevocationService.pollRevocations();
+
+        // Committed after the first poll with a revoked_at before the last row read
+        when(revokedTokenRepository.findRevokedSince(START.minusSeconds(5)))
+                .thenReturn(List.of(new Row(late, START.plusSeconds(2)), new Row(first, START.plusSeconds(5))));
+        tokenRevocationService.pollRevocations();
+
+        when(revokedTokenRepository.existsById(late)).thenReturn(true);
+        assertThat(tokenRevocationService.isRevoked(late)).isTrue();
+    }
+
+    @Test
+    void theFilterIsRebuiltOnceItHoldsMoreIdsThanItWasSizedFor() {
+        load(START, List.of());
+        List<Revocation> rows = new ArrayList<>();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i <= 110_000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            rows.add(new Row(id, START.plusSeconds(1)));
+        }
+        when(revokedTokenRepository.findRevokedSince(any())).thenReturn(rows);
+        tokenRevocationService.pollRevocations();
+        verify(revokedTokenRepository, times(1)).findAllTokenIds();
+
+        // The next poll rebuilds from the table, sized for twice its rows
+        when(revokedTokenRepository.findAllTokenIds()).thenReturn(ids);
+        tokenRevocationService.pollRevocations();
+        verify(revokedTokenRepository, times(2)).findAllTokenIds();
+
+        // Rows read again in the overlap are not counted again
+        tokenRevocationService.pollRevocations();
+        tokenRevocationService.pollRevocations();
+        verify(revokedTokenRepository, times(2)).findAllTokenIds();
+    }
+
+    private void load(Instant lastRevokedAt, List<UUID> tokenIds) {
+        when(revokedTokenRepository.findLastRevokedAt()).thenReturn(lastRevokedAt);
+        when(revokedTokenRepository.findAllTokenIds()).thenReturn(tokenIds);
+        tokenRevocationService.load();
+    }
+}
@@ -0,0 +1,57 @@
+package org.petconnect.backend.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the guarantees the revocation list relies on: an added id is always found,
+ * ids that were not added are found at about the configured rate, and an id added
+ * again is not counted twice.
+ */
+class BloomFilterTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void everyAddedIdIsFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        List<UUID> ids = ids(10_000);
+        ids.forEach(filter::add);
+
+        assertThat(ids).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void falsePositivesStayNearTheConfiguredProbability() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        ids(10_000).forEach(filter::add);
+
+        long falsePositives = ids(100_000).stream().filter(filter::mightContain).count();
+
+        assertThat(falsePositives / 100_000.0).isBetween(0.005, 0.015);
+    }
+
+    @Test
+    void anIdAddedAgainIsCountedOnce() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        List<UUID> ids = ids(1_000);
+
+        assertThat(ids).allMatch(filter::add);
+        assertThat(ids).noneMatch(filter::add);
+        assertThat(filter.size()).isEqualTo(1_000);
+    }
+
+    private List<UUID> ids(int count) {
+        List<UUID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,70 @@
+package org.petconnect.backend.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a bucket lets a burst through, then one request per refill interval,
+ * and that the seconds until the next token are rounded up.
+ */
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void aBurstIsFollowedByOneRequestPerRefill() {
+        TokenBucket bucket = new TokenBucket(3, 1, TimeUnit.SECONDS, now::get);
+
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+
+        advance(999);
+        assertThat(bucket.tryAcquire()).isFalse();
+        advance(1);
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void tokensRefillNoFurtherThanTheCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 1, TimeUnit.SECONDS, now::get);
+        bucket.tryAcquire();
+        assertThat(bucket.isFull()).isFalse();
+
+        advance(60_000);
+
+        assertThat(bucket.isFull()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void secondsUntilTokenAreRoundedUp() {
+        TokenBucket bucket = new TokenBucket(1, 2500, TimeUnit.MILLISECONDS, now::get);
+        assertThat(bucket.secondsUntilToken()).isZero();
+
+        bucket.tryAcquire();
+        assertThat(bucket.secondsUntilToken()).isEqualTo(3);
+
+        advance(1000);
+        assertThat(bucket.secondsUntilToken()).isEqualTo(2);
+
+        // Less than a second left still asks for a whole one
+        advance(1400);
+        assertThat(bucket.secondsUntilToken()).isEqualTo(1);
+
+        advance(100);
+        assertThat(bucket.secondsUntilToken()).isZero();
+    }
+
+    private void advance(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,88 @@
+-- Dataset for PageHydrationQueryCountTest: 60 of every list row, each with all the
+-- associations its DTO reads, owned by or shared with hydration-user0.
+-- Ids are derived from md5 so rows can reference each other by number.
+
+INSERT INTO image (id, key, bucket, file_type, file_size, uploaded_at)
+SELECT md5('hydration-image' || i)::uuid, 'images/' || i || '.jpg', 'petconnect', 'image/jpeg', 1024, now()
+FROM generate_series(1, 300) i;
+
+INSERT INTO avatar_image (id, image_id, created_at)
+SELECT md5('hydration-avatar' || i)::uuid, md5('hydration-image' || i)::uuid, now()
+FROM generate_series(1, 121) i;
+
+INSERT INTO "user" (id, username, email, first_name, last_name, password_hash, avatar_image_id, created_at)
+SELECT md5('hydration-user' || i)::uuid, 'hydration' || i, 'hydration' || i || '@example.com', 'First', 'Last',
+    'hash', md5('hydration-avatar' || (i + 1))::uuid, now() - i * interval '1 minute'
+FROM generate_series(0, 60) i;
+
+INSERT INTO address (id, address1, formatted_address, city, region, postal_code, country, lat, lng, created_at)
+SELECT md5('hydration-address' || i)::uuid, i || ' Main St', i || ' Main St', 'Hydration City', 'Region', '00000',
+    'Country', 40.0 + i / 100.0, -74.0 - i / 100.0, now()
+FROM generate_series(1, 120) i;
+
+INSERT INTO shelter (id, name, owner_id, avatar_image_id, created_at)
+SELECT md5('hydration-shelter' || i)::uuid, 'Hydration Shelter ' || i, md5('hydration-user' || i)::uuid,
+    md5('hydration-avatar' || (61 + i))::uuid, now() - i * interval '1 hour'
+FROM generate_series(1, 60) i;
+
+INSERT INTO shelter_address (id, shelter_id, address_id, created_at)
+SELECT md5('hydration-shelter-address' || i)::uuid, md5('hydration-shelter' || i)::uuid,
+    md5('hydration-address' || i)::uuid, now()
+FROM generate_series(1, 60) i;
+
+-- Every other pet belongs to a shelter, the rest have their own address
+INSERT INTO pet (id, name, description, species, breed, gender, birth_date, status, created_by_user_id, shelter_id,
+    created_at)
+SELECT md5('hydration-pet' || i)::uuid, 'Pet ' || i, 'A friendly pet', 'Hydration', 'Breed', 'Male',
+    date '2020-01-01' + i, 'AVAILABLE', md5('hydration-user0')::uuid,
+    CASE WHEN i % 2 = 0 THEN md5('hydration-shelter' || i)::uuid END,
+    now() - i * interval '1 minute'
+FROM generate_series(1, 60) i;
+
+INSERT INTO pet_address (id, pet_id, address_id, created_at)
+SELECT md5('hydration-pet-address' || i)::uuid, md5('hydration-pet' || i)::uuid,
+    md5('hydration-address' || (60 + i))::uuid, now()
+FROM generate_series(1, 60) i
+WHERE i % 2 = 1;
+
+INSERT INTO pet_image (id, pet_id, image_id, is_primary, created_at)
+SELECT md5('hydration-pet-image' || i)::uuid, md5('hydration-pet' || (i % 60 + 1))::uuid,
+    md5('hydration-image' || (121 + i))::uuid, i <= 60, now()
+FROM generate_series(1, 120) i;
+
+INSERT INTO favorite (user_id, pet_id, created_at)
+SELECT md5('hydration-user0')::uuid, md5('hydration-pet' || i)::uuid, now() - i * interval '1 minute'
+FROM generate_series(1, 60) i;
+
+-- One conversation with every other user about one of the pets
+INSERT INTO message (id, sender_id, receiver_id, content, is_read, shelter_id, pet_id, sent_at)
+SELECT md5('hydration-message' || i)::uuid, md5('hydration-user' || i)::uuid, md5('hydration-user0')::uuid,
+    'Message ' || i, false, CASE WHEN i % 2 = 0 THEN md5('hydration-shelter' || i)::uuid END,
+    md5('hydration-pet' || i)::uuid, now() - i * interval '1 second'
+FROM generate_series(1, 60) i;
+
+INSERT INTO conversation (user_a_id, user_b_id, pet_id, last_message_id, last_message_at, user_a_unread,
+    user_b_unread)
+SELECT DISTINCT ON (c.user_a_id, c.user_b_id, c.pet_id)
+    c.user_a_id, c.user_b_id, c.pet_id, c.id, c.sent_at,
+    COUNT(*) FILTER (WHERE NOT c.is_read AND c.receiver_id = c.user_a_id)
+        OVER (PARTITION BY c.user_a_id, c.user_b_id, c.pet_id),
+    COUNT(*) FILTER (WHERE NOT c.is_read AND c.receiver_id = c.user_b_id AND c.user_a_id <> c.user_b_id)
+        OVER (PARTITION BY c.user_a_id, c.user_b_id, c.pet_id)
+FROM (
+    SELECT m.*, LEAST(m.sender_id, m.receiver_id) AS user_a_id, GREATEST(m.sender_id, m.receiver_id) AS user_b_id
+    FROM message m
+    WHERE m.pet_id IS NOT NULL AND md5('hydration-user0')::uuid IN (m.sender_id, m.receiver_id)
+) c
+ORDER BY c.user_a_id, c.user_b_id, c.pet_id, c.sent_at DESC, c.id DESC
+ON CONFLICT DO NOTHING;
+
+INSERT INTO pet_search (pet_id, name, description, species, breed, gender, birth_date, created_at, owner_id,
+    shelter_id, city, country, lat, lng)
+SELECT p.id, p.name, p.description, LOWER(p.species), LOWER(p.breed), LOWER(p.gender), p.birth_date, p.created_at,
+    p.created_by_user_id, p.shelter_id, LOWER(a.city), LOWER(a.country), a.lat, a.lng
+FROM pet p
+LEFT JOIN pet_address pa ON pa.pet_id = p.id
+LEFT JOIN shelter_address sa ON sa.shelter_id = p.shelter_id
+LEFT JOIN address a ON a.id = COALESCE(pa.address_id, sa.address_id)
+WHERE p.species = 'Hydration';
@@ -0,0 +1,49 @@
+-- Dataset for PetDeletionTest: deletion-user0 owns deletion-pet1, deletion-pet3 and
+-- deletion-shelter1 with its deletion-pet2. deletion-user1 has messaged deletion-user0
+-- about all three pets and has an unread reply about deletion-pet2.
+-- Ids are derived from md5 so rows can reference each other by number.
+
+INSERT INTO "user" (id, username, email, first_name, last_name, password_hash, created_at)
+SELECT md5('deletion-user' || i)::uuid, 'deletion' || i, 'deletion' || i || '@example.com', 'First', 'Last',
+    'hash', now()
+FROM generate_series(0, 1) i;
+
+INSERT INTO shelter (id, name, owner_id, created_at)
+VALUES (md5('deletion-shelter1')::uuid, 'Deletion Shelter', md5('deletion-user0')::uuid, now());
+
+INSERT INTO pet (id, name, description, species, breed, gender, birth_date, status, created_by_user_id,
+    shelter_id, created_at)
+SELECT md5('deletion-pet' || i)::uuid, 'Pet ' || i, 'A friendly pet', 'Deletion', 'Breed', 'Male',
+    date '2020-01-01', 'AVAILABLE', md5('deletion-user0')::uuid,
+    CASE WHEN i = 2 THEN md5('deletion-shelter1')::uuid END, now()
+FROM generate_series(1, 3) i;
+
+-- Two unread messages about deletion-pet1, one about each other pet and a reply about deletion-pet2
+INSERT INTO message (id, sender_id, receiver_id, content, is_read, shelter_id, pet_id, sent_at)
+VALUES
+    (md5('deletion-message1')::uuid, md5('deletion-user1')::uuid, md5('deletion-user0')::uuid, 'Message 1', false,
+        NULL, md5('deletion-pet1')::uuid, now() - interval '5 seconds'),
+    (md5('deletion-message2')::uuid, md5('deletion-user1')::uuid, md5('deletion-user0')::uuid, 'Message 2', false,
+        NULL, md5('deletion-pet1')::uuid, now() - interval '4 seconds'),
+    (md5('deletion-message3')::uuid, md5('deletion-user1')::uuid, md5('deletion-user0')::uuid, 'Message 3', false,
+        md5('deletion-shelter1')::uuid, md5('deletion-pet2')::uuid, now() - interval '3 seconds'),
+    (md5('deletion-message4')::uuid, md5('deletion-user0')::uuid, md5('deletion-user1')::uuid, 'Message 4', false,
+        md5('deletion-shelter1')::uuid, md5('deletion-pet2')::uuid, now() - interval '2 seconds'),
+    (md5('deletion-message5')::uuid, md5('deletion-user1')::uuid, md5('deletion-user0')::uuid, 'Message 5', false,
+        NULL, md5('deletion-pet3')::uuid, now() - interval '1 second');
+
+INSERT INTO conversation (user_a_id, user_b_id, pet_id, last_message_id, last_message_at, user_a_unread,
+    user_b_unread)
+SELECT DISTINCT ON (c.user_a_id, c.user_b_id, c.pet_id)
+    c.user_a_id, c.user_b_id, c.pet_id, c.id, c.sent_at,
+    COUNT(*) FILTER (WHERE c.receiver_id = c.user_a_id) OVER (PARTITION BY c.user_a_id, c.user_b_id, c.pet_id),
+    COUNT(*) FILTER (WHERE c.receiver_id = c.user_b_id) OVER (PARTITION BY c.user_a_id, c.user_b_id, c.pet_id)
+FROM (
+    SELECT m.*, LEAST(m.sender_id, m.receiver_id) AS user_a_id, GREATEST(m.sender_id, m.receiver_id) AS user_b_id
+    FROM message m
+    WHERE m.sender_id IN (md5('deletion-user0')::uuid, md5('deletion-user1')::uuid)
+) c
+ORDER BY c.user_a_id, c.user_b_id, c.pet_id, c.sent_at DESC;
+
+INSERT INTO user_unread_count (user_id, unread_count)
+VALUES (md5('deletion-user0')::uuid, 4), (md5('deletion-user1')::uuid, 1);
@@ -0,0 +1,98 @@
+-- Synthetic dataset for RepositoryQueryPlanTest, large enough that the planner
+-- prefers an index over a sequential scan wherever a usable index exists.
+-- Ids are derived from md5 so rows can reference each other by number.
+
+INSERT INTO "user" (id, username, email, first_name, last_name, password_hash, created_at)
+SELECT md5('user' || i)::uuid, 'user' || i, 'user' || i || '@example.com', 'First', 'Last', 'hash',
+    now() - i * interval '1 minute'
+FROM generate_series(1, 5000) i;
+
+INSERT INTO address (id, address1, formatted_address, city, region, postal_code, country, lat, lng, created_at)
+SELECT md5('address' || i)::uuid, i || ' Main St', i || ' Main St', 'City ' || (i % 80), 'Region', '00000',
+    'Country ' || (i % 10), (i % 120) - 60.0, ((i * 7) % 340) - 170.0, now()
+FROM generate_series(1, 30000) i;
+
+INSERT INTO shelter (id, name, owner_id, created_at)
+SELECT md5('shelter' || i)::uuid, 'Shelter ' || i, md5('user' || i)::uuid, now() - i * interval '1 hour'
+FROM generate_series(1, 200) i;
+
+INSERT INTO shelter_address (id, shelter_id, address_id, created_at)
+SELECT md5('shelter_address' || i)::uuid, md5('shelter' || i)::uuid, md5('address' || i)::uuid, now()
+FROM generate_series(1, 200) i;
+
+-- Every other pet belongs to a shelter, the rest have their own address
+INSERT INTO pet (id, name, description, species, breed, gender, birth_date, status, created_by_user_id, shelter_id,
+    created_at)
+SELECT md5('pet' || i)::uuid, 'Pet ' || i, 'A friendly pet', 'Species ' || (i % 6), 'Breed ' || (i % 60),
+    CASE WHEN i % 2 = 0 THEN 'Male' ELSE 'Female' END,
+    date '2015-01-01' + (i % 3000),
+    CASE i % 10 WHEN 0 THEN 'ADOPTED' WHEN 1 THEN 'PENDING' ELSE 'AVAILABLE' END,
+    md5('user' || (i % 5000 + 1))::uuid,
+    CASE WHEN i % 2 = 0 THEN md5('shelter' || (i / 2 % 200 + 1))::uuid END,
+    now() - i * interval '1 minute'
+FROM generate_series(1, 50000) i;
+
+INSERT INTO pet_address (id, pet_id, address_id, created_at)
+SELECT md5('pet_address' || i)::uuid, md5('pet' || i)::uuid, md5('address' || (200 + i % 29800 + 1))::uuid, now()
+FROM generate_series(1, 50000) i
+WHERE i % 2 = 1;
+
+INSERT INTO image (id, key, bucket, file_type, file_size, uploaded_at)
+SELECT md5('image' || i)::uuid, 'pets/' || i || '.jpg', 'petconnect', 'image/jpeg', 1024, now()
+FROM generate_series(1, 50000) i;
+
+INSERT INTO pet_image (id, pet_id, image_id, is_primary, created_at)
+SELECT md5('pet_image' || i)::uuid, md5('pet' || i)::uuid, md5('image' || i)::uuid, true, now()
+FROM generate_series(1, 50000) i;
+
+INSERT INTO favorite (user_id, pet_id, created_at)
+SELECT md5('user' || (i % 5000 + 1))::uuid, md5('pet' || ((i * 13) % 50000 + 1))::uuid, now() - i * interval '1 minute'
+FROM generate_series(1, 50000) i;
+
+INSERT INTO message (id, sender_id, receiver_id, content, is_read, pet_id, sent_at)
+SELECT md5('message' || i)::uuid, md5('user' || (i % 5000 + 1))::uuid, md5('user' || ((i * 7 + 3) % 5000 + 1))::uuid,
+    'Message ' || i, i % 3 = 0, md5('pet' || ((i * 31) % 50000 + 1))::uuid, now() - i * interval '1 second'
+FROM generate_series(1, 200000) i;
+
+INSERT INTO conversation (user_a_id, user_b_id, pet_id, last_message_id, last_message_at, user_a_unread,
+    user_b_unread)
+SELECT DISTINCT ON (c.user_a_id, c.user_b_id, c.pet_id)
+    c.user_a_id, c.user_b_id, c.pet_id, c.id, c.sent_at,
+    COUNT(*) FILTER (WHERE NOT c.is_read AND c.receiver_id = c.user_a_id)
+        OVER (PARTITION BY c.user_a_id, c.user_b_id, c.pet_id),
+    COUNT(*) FILTER (WHERE NOT c.is_read AND c.receiver_id = c.user_b_id AND c.user_a_id <> c.user_b_id)
+        OVER (PARTITION BY c.user_a_id, c.user_b_id, c.pet_id)
+FROM (
+    SELECT m.*, LEAST(m.sender_id, m.receiver_id) AS user_a_id, GREATEST(m.sender_id, m.receiver_id) AS user_b_id
+    FROM message m
+    WHERE m.pet_id IS NOT NULL
+) c
+ORDER BY c.user_a_id, c.user_b_id, c.pet_id, c.sent_at DESC, c.id DESC
+ON CONFLICT DO NOTHING;
+
+INSERT INTO user_unread_count (user_id, unread_count)
+SELECT c.user_id, SUM(c.unread)
+FROM (
+    SELECT user_a_id AS user_id, user_a_unread AS unread FROM conversation
+    UNION ALL
+    SELECT user_b_id AS user_id, user_b_unread AS unread FROM conversation WHERE user_a_id <> user_b_id
+) c
+GROUP BY c.user_id
+ON CONFLICT DO NOTHING;
+
+INSERT INTO pet_search (pet_id, name, description, species, breed, gender, birth_date, created_at, owner_id,
+    shelter_id, city, country, lat, lng)
+SELECT p.id, p.name, p.description, LOWER(p.species), LOWER(p.breed), LOWER(p.gender), p.birth_date, p.created_at,
+    p.created_by_user_id, p.shelter_id, LOWER(a.city), LOWER(a.country), a.lat, a.lng
+FROM pet p
+LEFT JOIN pet_address pa ON pa.pet_id = p.id
+LEFT JOIN shelter_address sa ON sa.shelter_id = p.shelter_id
+LEFT JOIN address a ON a.id = COALESCE(pa.address_id, sa.address_id)
+WHERE p.status = 'AVAILABLE';
+
+INSERT INTO revoked_token (token_id, expires_at, revoked_at)
+SELECT md5('revoked_token' || i)::uuid, now() + interval '7 days' - i * interval '30 seconds',
+    now() - i * interval '30 seconds'
+FROM generate_series(1, 20000) i;
+
+ANALYZE;
@@ -8,19 +8,55 @@ import { AuthResponse, UserLogin, UserRegister } from '@/types/auth';
 import { getCurrentUTCDate } from '@/lib/date';
 import { http } from '@/lib/http';
 
+const REFRESH_TOKEN_MAX_AGE = 7 * 24 * 60 * 60;
+
+async function storeTokens(data: AuthResponse) {
+  const cookieStore = await cookies();
+  const options = {
+    httpOnly: true,
+    secure: process.env.NODE_ENV === 'production',
+    sameSite: 'strict' as const,
+    path: '/',
+  };
+
+  // The access token cookie goes away with the token, the refresh token then renews it
+  cookieStore.set('session_token', data.token, { ...options, maxAge: data.expiresIn });
+  cookieStore.set('refresh_token', data.refreshToken, { ...options, maxAge: REFRESH_TOKEN_MAX_AGE });
+}
+
+// Exchanges the refresh token for new tokens, the old refresh token can not be used again
+async function renewTokens(): Promise<string | null> {
+  const refreshToken = (await cookies()).get('refresh_token');
+  if (!refreshToken) return null;
+
+  try {
+    const response = await http.post<AuthResponse>('/auth/refresh', { refreshToken: refreshToken.value });
+    await storeTokens(response.data);
+    return response.data.token;
+  } catch (error) {
+    return null;
+  }
+}
+
+async function fetchSession(token: string) {
+  const response = await http.get<User>('/user/me', {
+    headers: { Authorization: `Bearer ${token}` },
+  });
+
+  // Add the token to the user object
+  return {
+    ...response.data,
+    token,
+  };
+}
+
 export async function register(data: UserRegister): Promise<AuthResponse | ErrorResponse> {
   try {
     const response = await http.post('/auth/register', data);
 
-    // If successful, store the token in cookies
+    // If successful, store the tokens in cookies
     if (response.data.token) {
-      (await cookies()).set('session_token', response.data.token, {
-        httpOnly: true,
-        secure: process.env.NODE_ENV === 'production',
-        sameSite: 'strict',
-        path: '/',
-        maxAge: 30 * 24 * 60 * 60,
-      });
+      await storeTokens(response.data);
     }
 
     return response.data;
@@ -46,15 +82,9 @@ export async function login(data: UserLogin): Promise<AuthResponse | ErrorRespon
   try {
     const response = await http.post('/auth/login', data);
 
-    // If successful, store the token in cookies
+    // If successful, store the tokens in cookies
     if (response.data.token) {
-      (await cookies()).set('session_token', response.data.token, {
-        httpOnly: true,
-        secure: process.env.NODE_ENV === 'production',
-        sameSite: 'strict',
-        path: '/',
-        maxAge: 30 * 24 * 60 * 60,
-      });
+      await storeTokens(response.data);
     }
 
     return response.data;
@@ -78,24 +108,46 @@ export async function login(data: UserLogin): Promise<AuthResponse | ErrorRespon
 
 export async function logout() {
   const cookieStore = await cookies();
+  const refreshToken = cookieStore.get('refresh_token');
+
+  try {
+    // Revokes both tokens, so copies of them stop working too
+    await http.post('/auth/logout', refreshToken ? { refreshToken: refreshToken.value } : {});
+  } catch (error) {
+    // The cookies are removed regardless
+  }
+
   cookieStore.delete('session_token');
+  cookieStore.delete('refresh_token');
   redirect('/');
 }
 
 export async function getSession() {
   try {
     const cookieStore = await cookies();
-    const token = cookieStore.get('session_token');
+    const token = cookieStore.get('session_token')?.value ?? (await renewTokens());
 
     if (!token) return null;
 
-    const response = await http.get<User>('/user/me');
+    try {
+      return await fetchSession(token);
+    } catch (error: any) {
+      if (error.response?.status !== 401) throw error;
 
-    // Add the token to the user object
-    return {
-      ...response.data,
-      token: token.value,
-    };
+      // Expired or revoked, the refresh token may still be valid
+      const renewed = await renewTokens();
+      return renewed ? await fetchSession(renewed) : null;
+    }
+  } catch (error) {
+    return null;
+  }
+}
+
+// Renews the tokens before the access token expires
+export async function refreshSession() {
+  try {
+    const token = await renewTokens();
+    return token ? await fetchSession(token) : null;
   } catch (error) {
     return null;
   }
@@ -1,5 +1,5 @@
 import { User } from '@/types/api';
-import { ConversationDTO, MessageDTO, SendMessageRequest } from '@/types/api/message';
+import { ConversationDTO, MessageDTO, MessagesResponse, SendMessageRequest } from '@/types/api/message';
 import { http } from '@/lib/http';
 
 // Send a new message
@@ -35,11 +35,11 @@ export async function getConversationWithUser(userId: string): Promise<MessageDT
   }
 }
 
-// Get conversation about pet
+// Get the newest page of a conversation about pet
 export async function getConversationAboutPet(userId: string, petId: string): Promise<MessageDTO[]> {
   try {
-    const response = await http.get(`/messages/conversations/${userId}/pets/${petId}`);
-    return response.data;
+    const response = await http.get<MessagesResponse>(`/messages/conversations/${userId}/pets/${petId}`);
+    return response.data.messages;
   } catch (error) {
     console.error('Error fetching conversation about pet:', error);
     throw error;
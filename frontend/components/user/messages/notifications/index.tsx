@@ -59,9 +59,10 @@ export function MessageNotifications() {
       }
     };
 
+    // Fetched again after reconnecting, counts changed while offline are not pushed
     fetchUnreadCount();
     initialRenderRef.current = false;
-  }, [session, setUnreadCount, setConversations]);
+  }, [session, connected, setUnreadCount, setConversations]);
 
   // Connect to WebSocket and listen for new messages
   useEffect(() => {
@@ -182,24 +183,20 @@ export function MessageNotifications() {
     // Define a function to refresh conversations when new messages arrive
     const refreshConversations = async () => {
       try {
-        const count = await getUnreadMessagesCount();
-        setUnreadCount(count);
-
-        if (count > 0) {
-          const convos = await getConversations();
-          setConversations(convos);
-
-          // Update latest known message time
-          if (convos.length > 0) {
-            const latestConvo = [...convos].sort(
-              (a, b) => new Date(b.lastMessageAt).getTime() - new Date(a.lastMessageAt).getTime()
-            )[0];
-            if (
-              !lastKnownMessageTimeRef.current ||
-              new Date(latestConvo.lastMessageAt).getTime() > new Date(lastKnownMessageTimeRef.current).getTime()
-            ) {
-              lastKnownMessageTimeRef.current = latestConvo.lastMessageAt;
-            }
+        // The unread count itself arrives as UNREAD_COUNT events, which may come after this one
+        const convos = await getConversations();
+        setConversations(convos);
+
+        // Update latest known message time
+        if (convos.length > 0) {
+          const latestConvo = [...convos].sort(
+            (a, b) => new Date(b.lastMessageAt).getTime() - new Date(a.lastMessageAt).getTime()
+          )[0];
+          if (
+            !lastKnownMessageTimeRef.current ||
+            new Date(latestConvo.lastMessageAt).getTime() > new Date(lastKnownMessageTimeRef.current).getTime()
+          ) {
+            lastKnownMessageTimeRef.current = latestConvo.lastMessageAt;
           }
         }
       } catch (error) {
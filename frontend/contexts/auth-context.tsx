@@ -3,16 +3,28 @@
 import { useEffect } from 'react';
 import { useAuthStore } from '@/stores/auth-store';
 
+const RENEW_INTERVAL_MS = 10 * 60 * 1000;
+
 interface AuthProviderProps {
   children: React.ReactNode;
 }
 
 export function AuthProvider({ children }: AuthProviderProps) {
   const initialize = useAuthStore((state) => state.refresh);
+  const renew = useAuthStore((state) => state.renew);
+  const isAuthenticated = useAuthStore((state) => !!state.session);
 
   useEffect(() => {
     initialize();
   }, [initialize]);
 
+  // Access tokens live for 15 minutes, they are renewed well before that
+  useEffect(() => {
+    if (!isAuthenticated) return;
+
+    const interval = setInterval(renew, RENEW_INTERVAL_MS);
+    return () => clearInterval(interval);
+  }, [isAuthenticated, renew]);
+
   return children;
 }
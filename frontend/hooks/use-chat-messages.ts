@@ -70,7 +70,9 @@ export function useChatMessages() {
           currentConversationUserId,
           newMessage.trim(),
           tempMessage.sentAt,
-          currentConversationPetId
+          currentConversationPetId,
+          undefined,
+          tempMessage.id
         );
         setNewMessage('');
       } catch (error) {
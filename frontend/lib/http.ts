@@ -15,7 +15,8 @@ http.interceptors.request.use(async (config) => {
     const cookieStore = await (await import('next/headers')).cookies();
     const token = cookieStore.get('session_token');
 
-    if (token) {
+    // Requests retried with a refreshed token bring their own header
+    if (token && !config.headers.Authorization) {
       config.headers.Authorization = `Bearer ${token.value}`;
     }
   }
@@ -1,7 +1,7 @@
-import { Client, Frame, Message } from '@stomp/stompjs';
+import { Client, Frame, Message, StompSubscription } from '@stomp/stompjs';
 import SockJS from 'sockjs-client';
 
-import { WebSocketMessageType } from '@/types/api/message';
+import { WebSocketMessage, WebSocketMessageType } from '@/types/api/message';
 import { getCurrentUTCDate } from '@/lib/date';
 
 class WebSocketService {
@@ -11,6 +11,12 @@ class WebSocketService {
   private connectionHandlers: Set<(connected: boolean) => void> = new Set();
   private token: string | null = null;
   private userId: string | null = null;
+  private watchedPetIds: Set<string> = new Set();
+  private petStatusSubscriptions: Map<string, StompSubscription> = new Map();
+  // Events on the personal queue are numbered, a reconnect asks for the ones after the last seen
+  private lastSequence: number | null = null;
+  private resumedFrom = 0;
+  private seenSequences: Set<number> = new Set();
 
   constructor() {
     Object.values(WebSocketMessageType).forEach((type) => {
@@ -31,12 +37,26 @@ class WebSocketService {
       try {
         const wsUrl = `${process.env.NEXT_PUBLIC_API_URL}/ws`;
 
-        const socket = new SockJS(wsUrl);
-
         this.client = new Client({
-          webSocketFactory: () => socket,
-          connectHeaders: {
-            Authorization: `Bearer ${token}`,
+          // Each reconnect needs a new socket, a closed SockJS cannot be reopened
+          webSocketFactory: () => {
+            const socket = new SockJS(wsUrl);
+
+            // Add error handler for the SockJS connection
+            socket.onerror = (error) => {
+              console.error('SockJS error:', error);
+            };
+
+            return socket;
+          },
+          beforeConnect: () => {
+            if (!this.client) return;
+            this.client.connectHeaders = {
+              Authorization: `Bearer ${this.token}`,
+              ...(this.lastSequence !== null ? { 'last-sequence': String(this.lastSequence) } : {}),
+            };
+            this.resumedFrom = this.lastSequence ?? 0;
+            this.seenSequences.clear();
           },
           debug: (str) => {
             console.log(`STOMP: ${str}`);
@@ -51,20 +71,11 @@ class WebSocketService {
           this.notifyConnectionHandlers(true);
 
           // Subscribe to personal message queue
-          this.client?.subscribe(`/user/${this.userId}/queue/messages`, (message: Message) => {
-            try {
-              const data = JSON.parse(message.body);
-              const type = data.type as WebSocketMessageType;
-              const payload = data.payload;
-
-              const handlers = this.messageHandlers.get(type);
-              if (handlers) {
-                handlers.forEach((handler) => handler(payload));
-              }
-            } catch (error) {
-              console.error('Error processing WebSocket message:', error);
-            }
-          });
+          this.client?.subscribe('/user/queue/messages', (message: Message) => this.dispatch(message));
+
+          // Subscriptions do not survive a reconnect
+          this.petStatusSubscriptions.clear();
+          this.watchedPetIds.forEach((petId) => this.subscribeToPetStatus(petId));
 
           resolve();
         };
@@ -81,11 +92,6 @@ class WebSocketService {
           this.notifyConnectionHandlers(false);
         };
 
-        // Add error handler for the SockJS connection
-        socket.onerror = (error) => {
-          console.error('SockJS error:', error);
-        };
-
         this.client.activate();
       } catch (error) {
         console.error('Error setting up WebSocket connection:', error);
@@ -94,6 +100,11 @@ class WebSocketService {
     });
   }
 
+  // Reconnects authenticate with the renewed token, the open connection stays as it is
+  setToken(token: string): void {
+    this.token = token;
+  }
+
   disconnect(): void {
     if (this.client && this.connected) {
       this.client.deactivate();
@@ -107,7 +118,14 @@ class WebSocketService {
   }
 
   // Message sending methods
-  sendMessage(receiverId: string, content: string, sentAt: string, petId: string, shelterId?: string): void {
+  sendMessage(
+    receiverId: string,
+    content: string,
+    sentAt: string,
+    petId: string,
+    shelterId?: string,
+    clientMessageId?: string
+  ): void {
     if (!this.client || !this.connected) {
       console.error('WebSocket not connected');
       return;
@@ -119,6 +137,7 @@ class WebSocketService {
       sentAt: sentAt || getCurrentUTCDate(),
       petId,
       shelterId,
+      clientMessageId,
     };
 
     try {
@@ -213,6 +232,63 @@ class WebSocketService {
     }
   }
 
+  // Follow status updates for exactly these pets, each pet has its own topic
+  watchPetStatus(petIds: string[]): void {
+    this.watchedPetIds = new Set(petIds);
+
+    this.petStatusSubscriptions.forEach((subscription, petId) => {
+      if (!this.watchedPetIds.has(petId)) {
+        subscription.unsubscribe();
+        this.petStatusSubscriptions.delete(petId);
+      }
+    });
+
+    if (!this.client || !this.connected) return;
+    this.watchedPetIds.forEach((petId) => this.subscribeToPetStatus(petId));
+  }
+
+  private subscribeToPetStatus(petId: string): void {
+    if (!this.client || this.petStatusSubscriptions.has(petId)) return;
+
+    try {
+      const subscription = this.client.subscribe(`/topic/pets/${petId}/status`, (message: Message) =>
+        this.dispatch(message)
+      );
+      this.petStatusSubscriptions.set(petId, subscription);
+    } catch (error) {
+      console.error('Error subscribing to pet status:', error);
+    }
+  }
+
+  private dispatch(message: Message): void {
+    try {
+      const data = JSON.parse(message.body) as WebSocketMessage;
+
+      // Everything sent while disconnected arrives in one frame, oldest first
+      if (data.type === WebSocketMessageType.MISSED_EVENTS) {
+        (data.payload as WebSocketMessage[]).forEach((event) => this.handle(event));
+      } else {
+        this.handle(data);
+      }
+    } catch (error) {
+      console.error('Error processing WebSocket message:', error);
+    }
+  }
+
+  private handle({ type, payload, sequence }: WebSocketMessage): void {
+    // Missed events can arrive alongside live ones, each is handled once
+    if (typeof sequence === 'number') {
+      if (sequence <= this.resumedFrom || this.seenSequences.has(sequence)) return;
+      this.seenSequences.add(sequence);
+      this.lastSequence = Math.max(this.lastSequence ?? 0, sequence);
+    }
+
+    const handlers = this.messageHandlers.get(type);
+    if (handlers) {
+      handlers.forEach((handler) => handler(payload));
+    }
+  }
+
   // Event handlers
   onMessage(type: WebSocketMessageType, handler: (payload: any) => void): () => void {
     const handlers = this.messageHandlers.get(type);
@@ -3,6 +3,7 @@
 import { useEffect, useRef } from 'react';
 import { useAuthStore } from '@/stores/auth-store';
 import { useMessageStore } from '@/stores/message-store';
+import websocketService from '@/lib/websocket';
 import { useQueryClient } from '@tanstack/react-query';
 import { toast } from 'sonner';
 
@@ -53,6 +54,7 @@ export function WebSocketProvider({ children }: { children: React.ReactNode }) {
   useEffect(() => {
     const connectToWebSocket = async () => {
       if (!session?.token) return;
+      websocketService.setToken(session.token);
 
       try {
         const state = useMessageStore.getState();
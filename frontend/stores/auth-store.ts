@@ -1,6 +1,6 @@
 import { create } from 'zustand';
 
-import { getSession, login, logout, register } from '@/actions/auth';
+import { getSession, login, logout, refreshSession, register } from '@/actions/auth';
 import { AuthResponse, ErrorResponse, User } from '@/types/api';
 import { UserLogin, UserRegister } from '@/types/auth';
 
@@ -13,6 +13,7 @@ interface AuthStore {
   setLoading: (isLoading: boolean) => void;
   isAuthenticated: () => boolean;
   refresh: () => Promise<void>;
+  renew: () => Promise<void>;
   reset: () => Promise<void>;
   register: (data: UserRegister) => Promise<AuthResponse | ErrorResponse>;
   login: (data: UserLogin) => Promise<AuthResponse | ErrorResponse>;
@@ -46,6 +47,13 @@ export const useAuthStore = create<AuthStore>((set, get) => ({
       });
     }
   },
+  renew: async () => {
+    // Keeps the current session when renewing fails, the next request tells if it is still valid
+    const session = await refreshSession();
+    if (session) {
+      set({ session });
+    }
+  },
   reset: async () => {
     set({ session: null, isLoading: false, error: null });
   },
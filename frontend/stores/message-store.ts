@@ -1,8 +1,15 @@
 import { useAuthStore } from '@/stores/auth-store';
+import { toast } from 'sonner';
 import { create } from 'zustand';
 
 import { PetStatus } from '@/types/api';
-import { ConversationDTO, MessageDTO, PetStatusUpdatePayload, WebSocketMessageType } from '@/types/api/message';
+import {
+  ConversationDTO,
+  MessageDTO,
+  MessageFailedPayload,
+  PetStatusUpdatePayload,
+  WebSocketMessageType,
+} from '@/types/api/message';
 import websocketService from '@/lib/websocket';
 
 interface MessageStore {
@@ -37,6 +44,9 @@ interface MessageStore {
   setUserTyping: (userId: string, petId: string | null, isTyping: boolean) => void;
   sendTypingStatus: (receiverId: string, isTyping: boolean) => void;
 
+  // Presence
+  setUserOnline: (userId: string, online: boolean) => void;
+
   // Pet status
   updatePetStatus: (petId: string, status: PetStatus) => void;
 
@@ -95,6 +105,42 @@ export const useMessageStore = create<MessageStore>((set, get) => ({
         get().refreshConversations();
       });
 
+      // Handle acknowledgements of messages this user sent, from this or another tab
+      websocketService.onMessage(WebSocketMessageType.MESSAGE_SENT, (message: MessageDTO) => {
+        const { currentConversationUserId, currentConversationPetId, messages } = get();
+
+        // Replace the optimistic copy shown while the message was being written
+        const pending = messages.findIndex(
+          (msg) =>
+            msg.id.startsWith('temp-') &&
+            msg.receiverId === message.receiverId &&
+            msg.petId === message.petId &&
+            msg.content === message.content
+        );
+        if (pending !== -1) {
+          const updatedMessages = [...messages];
+          updatedMessages[pending] = { ...messages[pending], id: message.id, sentAt: message.sentAt };
+          set({ messages: updatedMessages });
+        } else if (
+          message.receiverId === currentConversationUserId &&
+          (!currentConversationPetId || message.petId === currentConversationPetId) &&
+          !messages.some((msg) => msg.id === message.id)
+        ) {
+          set({ messages: [...messages, message] });
+        }
+
+        get().refreshConversations();
+      });
+
+      // A message this user sent could not be written, drop its optimistic copy
+      websocketService.onMessage(WebSocketMessageType.MESSAGE_FAILED, (failure: MessageFailedPayload) => {
+        const { messages } = get();
+        if (failure.clientMessageId) {
+          set({ messages: messages.filter((msg) => msg.id !== failure.clientMessageId) });
+        }
+        toast.error(failure.message || 'Failed to send message');
+      });
+
       // Handle read receipts
       websocketService.onMessage(
         WebSocketMessageType.READ_RECEIPT,
@@ -112,6 +158,11 @@ export const useMessageStore = create<MessageStore>((set, get) => ({
         }
       );
 
+      // The unread badge follows the server's total, no need to ask for it again
+      websocketService.onMessage(WebSocketMessageType.UNREAD_COUNT, ({ count }: { count: number; delta: number }) => {
+        set({ unreadCount: count });
+      });
+
       // Handle pet status updates
       websocketService.onMessage(WebSocketMessageType.PET_STATUS_UPDATE, (payload: PetStatusUpdatePayload) => {
         get().updatePetStatus(payload.petId, payload.status);
@@ -175,6 +226,20 @@ export const useMessageStore = create<MessageStore>((set, get) => ({
           get().setUserTyping(userId, petId, false);
         }
       });
+
+      // Too much was missed while disconnected to be sent again
+      websocketService.onMessage(WebSocketMessageType.RESYNC_REQUIRED, () => {
+        get().refreshConversations();
+      });
+
+      // Handle presence of conversation partners
+      websocketService.onMessage(WebSocketMessageType.USER_ONLINE, ({ userId }: { userId: string }) => {
+        get().setUserOnline(userId, true);
+      });
+
+      websocketService.onMessage(WebSocketMessageType.USER_OFFLINE, ({ userId }: { userId: string }) => {
+        get().setUserOnline(userId, false);
+      });
     } catch (error) {
       console.error('Failed to connect to WebSocket:', error);
       set({ connecting: false });
@@ -189,7 +254,14 @@ export const useMessageStore = create<MessageStore>((set, get) => ({
   conversations: [],
   currentConversationUserId: null,
   currentConversationPetId: null,
-  setConversations: (conversations) => set({ conversations }),
+  setConversations: (conversations) => {
+    set({ conversations });
+
+    // Status changes arrive on each pet's topic instead of the personal queue
+    websocketService.watchPetStatus(
+      Array.from(new Set(conversations.flatMap((conv) => (conv.pet ? [conv.pet.id] : []))))
+    );
+  },
   selectConversation: (userId, petId) => {
     if (!petId) {
       console.error('Cannot select conversation: petId is required');
@@ -273,6 +345,12 @@ export const useMessageStore = create<MessageStore>((set, get) => ({
   },
 
   // Pet status
+  setUserOnline: (userId, online) => {
+    set({
+      conversations: get().conversations.map((conv) => (conv.otherUserId === userId ? { ...conv, online } : conv)),
+    });
+  },
+
   updatePetStatus: (petId, status) => {
     // This will be handled by updating the conversations and messages
     // that contain this pet with the new status
@@ -5,15 +5,31 @@ import { User } from './user';
 
 export enum WebSocketMessageType {
   NEW_MESSAGE = 'NEW_MESSAGE',
+  MESSAGE_SENT = 'MESSAGE_SENT',
+  MESSAGE_FAILED = 'MESSAGE_FAILED',
   READ_RECEIPT = 'READ_RECEIPT',
+  UNREAD_COUNT = 'UNREAD_COUNT',
   PET_STATUS_UPDATE = 'PET_STATUS_UPDATE',
   USER_TYPING = 'USER_TYPING',
   USER_STOPPED_TYPING = 'USER_STOPPED_TYPING',
+  USER_ONLINE = 'USER_ONLINE',
+  USER_OFFLINE = 'USER_OFFLINE',
+  MISSED_EVENTS = 'MISSED_EVENTS',
+  RESYNC_REQUIRED = 'RESYNC_REQUIRED',
 }
 
 export interface WebSocketMessage {
   type: WebSocketMessageType;
   payload: any;
+  sequence?: number;
+}
+
+export interface MessagesResponse {
+  messages: MessageDTO[];
+  olderCursor: string | null;
+  newerCursor: string | null;
+  hasOlder: boolean;
+  hasNewer: boolean;
 }
 
 export interface MessageDTO {
@@ -42,6 +58,7 @@ export interface ConversationDTO {
   pet: Pet | null;
   lastMessageAt: string;
   unreadCount?: number;
+  online?: boolean;
 }
 
 export interface SendMessageRequest {
@@ -50,6 +67,14 @@ export interface SendMessageRequest {
   petId: string;
   shelterId?: string;
   sentAt: string;
+  clientMessageId?: string;
+}
+
+export interface MessageFailedPayload {
+  clientMessageId: string | null;
+  receiverId: string;
+  petId: string;
+  message: string;
 }
 
 export interface ReadMessagePayload {
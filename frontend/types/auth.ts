@@ -1,5 +1,8 @@
 export interface AuthResponse {
   token: string;
+  refreshToken: string;
+  // Seconds until the access token expires
+  expiresIn: number;
 }
 
 export interface UserRegister {